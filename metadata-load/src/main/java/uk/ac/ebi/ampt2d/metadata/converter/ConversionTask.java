@@ -0,0 +1,62 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.converter;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Converts a range of a list into the same range of an array, splitting the range in halves until it is small enough
+ * to convert on one thread
+ */
+class ConversionTask<SOURCE, DESTINATION> extends RecursiveAction {
+
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+
+    private final SraToAmpt2dConverter<SOURCE, DESTINATION> converter;
+
+    private final List<SOURCE> sources;
+
+    private final Object[] destinations;
+
+    private final int from;
+
+    private final int to;
+
+    ConversionTask(SraToAmpt2dConverter<SOURCE, DESTINATION> converter, List<SOURCE> sources, Object[] destinations,
+                   int from, int to) {
+        this.converter = converter;
+        this.sources = sources;
+        this.destinations = destinations;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= SEQUENTIAL_THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                destinations[i] = converter.convert(sources.get(i));
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new ConversionTask<>(converter, sources, destinations, from, middle),
+                new ConversionTask<>(converter, sources, destinations, middle, to));
+    }
+}
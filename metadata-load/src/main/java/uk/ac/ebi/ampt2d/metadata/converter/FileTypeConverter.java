@@ -17,14 +17,93 @@
  */
 package uk.ac.ebi.ampt2d.metadata.converter;
 
+import uk.ac.ebi.ampt2d.metadata.loader.metrics.LoaderMetrics;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.AccessionVersionId;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
 import uk.ac.ebi.ena.sra.xml.AnalysisFileType;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Converts an analysis file into a {@link File}. Stateless and thread-safe, a single instance can be shared.
+ *
+ * The file name, which is the path of the file within the analysis, becomes the accession with version 1, so files
+ * loaded again have the same accession and version as the stored ones and can be upserted.
+ *
+ * The SRA file types are mapped through a table indexed by the XMLBeans enum's int value, built once from the names of
+ * both enums. SRA types without a matching {@link File.Type} are converted to {@link File.Type#OTHER} and counted in
+ * the {@value #UNMAPPED_FILE_TYPE_METRIC} metric.
+ */
 public class FileTypeConverter implements SraToAmpt2dConverter<AnalysisFileType, File> {
 
+    public static final String UNMAPPED_FILE_TYPE_METRIC = "loader.converter.file.unmapped-type";
+
+    /**
+     * SRA analysis files have no accession of their own, their path is unique and is never reused for other content
+     */
+    private static final int FILE_VERSION = 1;
+
+    /**
+     * The SRA FILE element does not carry the file size
+     */
+    private static final long UNKNOWN_SIZE = 0;
+
+    private static final Logger CONVERTER_LOGGER = Logger.getLogger(FileTypeConverter.class.getName());
+
+    private static final File.Type[] FILE_TYPES = buildFileTypeTable();
+
+    private final LoaderMetrics loaderMetrics;
+
+    public FileTypeConverter() {
+        this(null);
+    }
+
+    /**
+     * @param loaderMetrics metrics the unmapped file types are counted in, or null
+     */
+    public FileTypeConverter(LoaderMetrics loaderMetrics) {
+        this.loaderMetrics = loaderMetrics;
+    }
+
     @Override
     public File convert(AnalysisFileType analysisFileType) {
-        return new File(analysisFileType.getChecksum(), analysisFileType.getFilename(),
-                analysisFileType.getFiletype().toString().toUpperCase());
+        return new File(new AccessionVersionId(analysisFileType.getFilename(), FILE_VERSION),
+                analysisFileType.getChecksum(), analysisFileType.getFilename(), UNKNOWN_SIZE,
+                convertFileType(analysisFileType.getFiletype()));
+    }
+
+    private File.Type convertFileType(AnalysisFileType.Filetype.Enum filetype) {
+        File.Type fileType = (filetype != null && filetype.intValue() < FILE_TYPES.length) ?
+                FILE_TYPES[filetype.intValue()] : null;
+        if (fileType != null) {
+            return fileType;
+        }
+        CONVERTER_LOGGER.log(Level.FINE, "Unmapped SRA file type " + filetype + ", converted to OTHER");
+        if (loaderMetrics != null) {
+            loaderMetrics.increment(UNMAPPED_FILE_TYPE_METRIC);
+        }
+        return File.Type.OTHER;
+    }
+
+    private static File.Type[] buildFileTypeTable() {
+        int lastInt = AnalysisFileType.Filetype.Enum.table.lastInt();
+        File.Type[] fileTypes = new File.Type[lastInt + 1];
+        for (int i = 0; i <= lastInt; i++) {
+            AnalysisFileType.Filetype.Enum filetype = AnalysisFileType.Filetype.Enum.forInt(i);
+            if (filetype != null) {
+                fileTypes[i] = findFileType(filetype.toString().replace("_", "").toUpperCase());
+            }
+        }
+        return fileTypes;
+    }
+
+    private static File.Type findFileType(String normalizedName) {
+        for (File.Type fileType : File.Type.values()) {
+            if (fileType.name().replace("_", "").equals(normalizedName)) {
+                return fileType;
+            }
+        }
+        return null;
     }
 }
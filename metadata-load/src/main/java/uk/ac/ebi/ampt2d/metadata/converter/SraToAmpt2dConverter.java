@@ -17,14 +17,54 @@
  */
 package uk.ac.ebi.ampt2d.metadata.converter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
+/**
+ * Converts SRA objects into metadata entities.
+ *
+ * Implementations must be stateless and thread-safe: {@link #convertModels(List, ForkJoinPool)} calls
+ * {@link #convert(Object)} from several threads at once.
+ */
 public interface SraToAmpt2dConverter<SOURCE, DESTINATION> {
 
+    /**
+     * Lists shorter than this are converted on the calling thread even when a fork-join pool is given
+     */
+    int PARALLEL_THRESHOLD = 1024;
+
     DESTINATION convert(SOURCE source);
 
     default List<DESTINATION> convertModels(List<SOURCE> sources) {
-        return sources.stream().map(source -> convert(source)).collect(Collectors.toList());
+        List<DESTINATION> destinations = new ArrayList<>(sources.size());
+        convertModels(sources, destinations::add);
+        return destinations;
+    }
+
+    /**
+     * Converts the sources in order straight into the sink, without building an intermediate collection
+     */
+    default void convertModels(List<SOURCE> sources, Consumer<? super DESTINATION> sink) {
+        for (SOURCE source : sources) {
+            sink.accept(convert(source));
+        }
+    }
+
+    /**
+     * Converts large lists in parallel in the given pool, each task writing its range of a pre-sized array.
+     *
+     * @return a fixed-size list with the converted models in the order of the sources
+     */
+    @SuppressWarnings("unchecked")
+    default List<DESTINATION> convertModels(List<SOURCE> sources, ForkJoinPool forkJoinPool) {
+        if (sources.size() < PARALLEL_THRESHOLD) {
+            return convertModels(sources);
+        }
+        Object[] destinations = new Object[sources.size()];
+        forkJoinPool.invoke(new ConversionTask<>(this, sources, destinations, 0, sources.size()));
+        return (List<DESTINATION>) Arrays.asList(destinations);
     }
 }
@@ -0,0 +1,60 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+import uk.ac.ebi.ena.sra.xml.AnalysisType;
+import uk.ac.ebi.ena.sra.xml.ReferenceAssemblyType;
+import uk.ac.ebi.ena.sra.xml.ReferenceSequenceType;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Extracts the reference assembly of sequence variation, reference alignment and processed reads analyses.
+ */
+public class SraAnalysisAssemblyLoader extends SraObjectLoaderFromAnalysisDocument<ReferenceAssemblyType> {
+
+    public SraAnalysisAssemblyLoader(SraObjectLoaderByAccession<ANALYSISDocument> sraAnalysisDocumentLoader) {
+        super(sraAnalysisDocumentLoader);
+    }
+
+    @Override
+    public List<ReferenceAssemblyType> extractSraObjects(AnalysisType analysis) {
+        ReferenceSequenceType referenceSequence = getReferenceSequence(analysis.getANALYSISTYPE());
+        return (referenceSequence != null && referenceSequence.getASSEMBLY() != null) ?
+                Collections.singletonList(referenceSequence.getASSEMBLY()) : Collections.emptyList();
+    }
+
+    private static ReferenceSequenceType getReferenceSequence(AnalysisType.ANALYSISTYPE analysisType) {
+        if (analysisType == null) {
+            return null;
+        }
+        if (analysisType.isSetSEQUENCEVARIATION()) {
+            return analysisType.getSEQUENCEVARIATION();
+        }
+        if (analysisType.isSetREFERENCEALIGNMENT()) {
+            return analysisType.getREFERENCEALIGNMENT();
+        }
+        if (analysisType.isSetPROCESSEDREADS()) {
+            return analysisType.getPROCESSEDREADS();
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,298 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.xmlbeans.XmlException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+import org.springframework.web.client.AsyncRestTemplate;
+import uk.ac.ebi.ampt2d.metadata.loader.http.RateLimiter;
+import uk.ac.ebi.ampt2d.metadata.loader.http.RetryPolicy;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads ANALYSIS documents from the ENA browser API with a non-blocking HTTP client.
+ *
+ * Requests are sent through an {@link AsyncRestTemplate}, ideally backed by the Apache async client created by
+ * {@link #createAsyncRestTemplate(int)}, so a handful of I/O threads serve thousands of requests in flight. Up to
+ * {@code maxRequestsInFlight} accessions are requested at once and each completed request starts the next one. The
+ * responses are parsed on {@code parseExecutor}, never on the I/O threads. Transient failures are retried after the
+ * {@link RetryPolicy} backoff without blocking any thread, and an optional {@link RateLimiter} delays the requests
+ * the same way.
+ *
+ * It can replace {@link SraAnalysisDocumentLoader} anywhere an {@link SraObjectLoaderByAccession} is expected, the
+ * blocking methods wait for the asynchronous ones.
+ */
+public class SraAnalysisDocumentAsyncLoader implements SraObjectLoaderByAccession<ANALYSISDocument> {
+
+    public static final int DEFAULT_MAX_REQUESTS_IN_FLIGHT = 1000;
+
+    private static final Logger SRA_ANALYSIS_LOGGER = Logger.getLogger(SraAnalysisDocumentAsyncLoader.class.getName());
+
+    private static final ScheduledExecutorService RETRY_SCHEDULER = createRetryScheduler();
+
+    private AsyncRestTemplate asyncRestTemplate;
+
+    private String enaApiUrl;
+
+    private int maxRequestsInFlight;
+
+    private Executor parseExecutor;
+
+    private RetryPolicy retryPolicy = new RetryPolicy();
+
+    private RateLimiter rateLimiter;
+
+    public SraAnalysisDocumentAsyncLoader(AsyncRestTemplate asyncRestTemplate) {
+        this(asyncRestTemplate, ENA_API_URL, DEFAULT_MAX_REQUESTS_IN_FLIGHT, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param asyncRestTemplate template used for the HTTP requests
+     * @param enaApiUrl URL template with a single {accessionId} variable
+     * @param maxRequestsInFlight maximum number of accessions requested or parsed at the same time
+     * @param parseExecutor executor the XML responses are parsed on
+     */
+    public SraAnalysisDocumentAsyncLoader(AsyncRestTemplate asyncRestTemplate, String enaApiUrl,
+                                          int maxRequestsInFlight, Executor parseExecutor) {
+        if (maxRequestsInFlight < 1) {
+            throw new IllegalArgumentException("The maximum number of requests in flight must be positive");
+        }
+        this.asyncRestTemplate = asyncRestTemplate;
+        this.enaApiUrl = enaApiUrl;
+        this.maxRequestsInFlight = maxRequestsInFlight;
+        this.parseExecutor = parseExecutor;
+    }
+
+    /**
+     * Creates a template backed by a non-blocking Apache HTTP client. The client is started on the first request and
+     * is closed by destroying the template's request factory.
+     *
+     * @param maxConnections maximum number of open connections, in total and per host
+     */
+    public static AsyncRestTemplate createAsyncRestTemplate(int maxConnections) {
+        CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.custom()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .build();
+        return new AsyncRestTemplate(new HttpComponentsAsyncClientHttpRequestFactory(httpAsyncClient));
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * @param rateLimiter limiter every request goes through, it is told when ENA throttles the requests
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Map<String, ANALYSISDocument> getSraObjects(List<String> accessions) {
+        return loadSraObjects(accessions).getSraObjects();
+    }
+
+    @Override
+    public SraObjectLoadResult<ANALYSISDocument> loadSraObjects(List<String> accessions) {
+        return loadSraObjectsAsync(accessions).join();
+    }
+
+    /**
+     * @return a future completed once every accession is loaded or has failed, it never completes exceptionally
+     */
+    public CompletableFuture<SraObjectLoadResult<ANALYSISDocument>> loadSraObjectsAsync(List<String> accessions) {
+        List<CompletableFuture<ANALYSISDocument>> futures = new ArrayList<>(accessions.size());
+        for (int i = 0; i < accessions.size(); i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        AtomicInteger nextAccession = new AtomicInteger();
+        for (int i = 0; i < Math.min(maxRequestsInFlight, accessions.size()); i++) {
+            loadNextAccession(accessions, futures, nextAccession);
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((ignored, failure) -> {
+            SraObjectLoadResult<ANALYSISDocument> loadResult = new SraObjectLoadResult<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    ANALYSISDocument analysisDocument = futures.get(i).join();
+                    loadResult.addSraObject(analysisDocument.getANALYSIS().getAccession(), analysisDocument);
+                } catch (CompletionException exception) {
+                    Throwable cause = exception.getCause();
+                    loadResult.addFailure(accessions.get(i),
+                            (cause instanceof Exception) ? (Exception) cause : exception);
+                }
+            }
+            if (loadResult.hasFailures()) {
+                SRA_ANALYSIS_LOGGER.log(Level.WARNING, loadResult.getFailures().size() + " of " +
+                        accessions.size() + " analyses could not be loaded: " + loadResult.getFailures().keySet());
+            }
+            return loadResult;
+        });
+    }
+
+    /**
+     * @return a future completed with the parsed document, or exceptionally if the request failed after all retries
+     * or the response does not hold a parseable analysis
+     */
+    public CompletableFuture<ANALYSISDocument> getSraObjectAsync(String accession) {
+        return fetchXmlString(accession, 1)
+                .thenApplyAsync(xmlString -> parseAnalysisDocument(xmlString, accession), parseExecutor);
+    }
+
+    private void loadNextAccession(List<String> accessions, List<CompletableFuture<ANALYSISDocument>> futures,
+                                   AtomicInteger nextAccession) {
+        int index = nextAccession.getAndIncrement();
+        if (index >= accessions.size()) {
+            return;
+        }
+        getSraObjectAsync(accessions.get(index)).whenComplete((analysisDocument, failure) -> {
+            if (failure != null) {
+                futures.get(index).completeExceptionally(
+                        (failure instanceof CompletionException) ? failure.getCause() : failure);
+            } else {
+                futures.get(index).complete(analysisDocument);
+            }
+            loadNextAccession(accessions, futures, nextAccession);
+        });
+    }
+
+    /**
+     * @return a future completed with the response body, or exceptionally if the request failed after all retries.
+     * Nothing is thrown, a request that can not even be sent fails the future.
+     */
+    private CompletableFuture<String> fetchXmlString(String accession, int attempt) {
+        CompletableFuture<String> xmlString = new CompletableFuture<>();
+        try {
+            long delayNanos = (rateLimiter != null) ? rateLimiter.reserve() : 0;
+            if (delayNanos > 0) {
+                schedule(() -> sendRequest(accession, attempt, xmlString), delayNanos, TimeUnit.NANOSECONDS,
+                        xmlString);
+            } else {
+                sendRequest(accession, attempt, xmlString);
+            }
+        } catch (RuntimeException exception) {
+            xmlString.completeExceptionally(exception);
+        }
+        return xmlString;
+    }
+
+    private void sendRequest(String accession, int attempt, CompletableFuture<String> xmlString) {
+        try {
+            asyncRestTemplate.exchange(enaApiUrl, HttpMethod.GET, null, String.class, accession).addCallback(
+                    response -> {
+                        if (rateLimiter != null) {
+                            rateLimiter.onSuccess();
+                        }
+                        xmlString.complete(response.getBody());
+                    },
+                    failure -> onRequestFailure(accession, attempt, xmlString, failure));
+        } catch (RuntimeException exception) {
+            // The template throws instead of failing the returned future when the request can not be sent
+            onRequestFailure(accession, attempt, xmlString, exception);
+        }
+    }
+
+    private void onRequestFailure(String accession, int attempt, CompletableFuture<String> xmlString,
+                                  Throwable failure) {
+        try {
+            if (rateLimiter != null && failure instanceof Exception &&
+                    retryPolicy.isThrottled((Exception) failure)) {
+                rateLimiter.onThrottled(retryPolicy.getRetryAfter((Exception) failure));
+            }
+            if (failure instanceof Exception && retryPolicy.isRetryable((Exception) failure) &&
+                    attempt < retryPolicy.getMaxAttempts()) {
+                long backoffMillis = retryPolicy.getBackoff(attempt).toMillis();
+                Duration retryAfter = retryPolicy.getRetryAfter((Exception) failure);
+                if (retryAfter != null && rateLimiter == null) {
+                    backoffMillis = Math.max(backoffMillis, retryAfter.toMillis());
+                }
+                SRA_ANALYSIS_LOGGER.log(Level.INFO, "Attempt " + attempt + " for analysis " + accession +
+                        " failed (" + failure.getMessage() + "), retrying in " + backoffMillis + " ms");
+                schedule(() -> fetchXmlString(accession, attempt + 1).whenComplete((retried, retryFailure) -> {
+                    if (retryFailure != null) {
+                        xmlString.completeExceptionally(retryFailure);
+                    } else {
+                        xmlString.complete(retried);
+                    }
+                }), backoffMillis, TimeUnit.MILLISECONDS, xmlString);
+            } else {
+                xmlString.completeExceptionally(failure);
+            }
+        } catch (RuntimeException exception) {
+            exception.addSuppressed(failure);
+            xmlString.completeExceptionally(exception);
+        }
+    }
+
+    /**
+     * Runs the task after the delay on the retry scheduler, which would otherwise swallow what the task throws
+     *
+     * @param target future failed with whatever the task throws
+     */
+    private static void schedule(Runnable task, long delay, TimeUnit unit, CompletableFuture<?> target) {
+        RETRY_SCHEDULER.schedule(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException exception) {
+                target.completeExceptionally(exception);
+            }
+        }, delay, unit);
+    }
+
+    private ANALYSISDocument parseAnalysisDocument(String xmlString, String accession) {
+        if (xmlString == null) {
+            throw new NoSuchElementException("Empty response for accession " + accession);
+        }
+        try {
+            return ANALYSISDocument.Factory.parse(removeRootTagsFromXmlString(xmlString));
+        } catch (XmlException exception) {
+            SRA_ANALYSIS_LOGGER.log(Level.FINE, "Parse exception for accession " + accession, exception);
+            throw new NoSuchElementException("No parseable analysis document for accession " + accession);
+        }
+    }
+
+    private static ScheduledExecutorService createRetryScheduler() {
+        ScheduledThreadPoolExecutor retryScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "sra-async-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryScheduler.setRemoveOnCancelPolicy(true);
+        return retryScheduler;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.ampt2d.metadata.loader.http.ResilientHttpExecutor;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads ANALYSIS documents from the ENA browser API in batches.
+ *
+ * The accessions are split into chunks of {@code batchSize}, each chunk is requested as a comma-separated accession
+ * list in a single HTTP call. The response body is streamed through {@link SraAnalysisXmlSplitter}, so each ANALYSIS
+ * element is parsed on its own and the response is never held in memory as a whole. Accessions that are not found
+ * upstream are absent from the result. Batch requests run through a {@link ResilientHttpExecutor}, like the requests of
+ * {@link SraAnalysisDocumentLoader}.
+ */
+public class SraAnalysisDocumentBatchLoader implements SraObjectLoaderByAccession<ANALYSISDocument> {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final Logger SRA_ANALYSIS_LOGGER = Logger.getLogger(SraAnalysisDocumentBatchLoader.class.getName());
+
+    private static final String ACCESSION_SEPARATOR = ",";
+
+    private RestTemplate restTemplate;
+
+    private String enaApiUrl;
+
+    private int batchSize;
+
+    private SraAnalysisXmlSplitter xmlSplitter = new SraAnalysisXmlSplitter();
+
+    private ResilientHttpExecutor httpExecutor = new ResilientHttpExecutor();
+
+    public SraAnalysisDocumentBatchLoader(RestTemplate restTemplate) {
+        this(restTemplate, ENA_API_URL, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param restTemplate template used for the HTTP requests
+     * @param enaApiUrl URL template with a single {accessionId} variable that accepts a comma-separated list
+     * @param batchSize maximum number of accessions requested in a single HTTP call
+     */
+    public SraAnalysisDocumentBatchLoader(RestTemplate restTemplate, String enaApiUrl, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+        this.restTemplate = restTemplate;
+        this.enaApiUrl = enaApiUrl;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param httpExecutor executor that applies the retry policy and circuit breaker to every batch request
+     */
+    public void setHttpExecutor(ResilientHttpExecutor httpExecutor) {
+        this.httpExecutor = httpExecutor;
+    }
+
+    @Override
+    public Map<String, ANALYSISDocument> getSraObjects(List<String> accessions) {
+        return loadSraObjects(accessions).getSraObjects();
+    }
+
+    /**
+     * Requests every batch, retrying transient failures. A response that can not be parsed, for example because it
+     * was cut short, fails like an I/O error and is retried too. When a batch still fails, its accessions that were not
+     * parsed are reported as failures and the following batches are requested anyway. Accessions missing from a
+     * successful response are reported as not found.
+     */
+    @Override
+    public SraObjectLoadResult<ANALYSISDocument> loadSraObjects(List<String> accessions) {
+        Map<String, ANALYSISDocument> accessionsToAnalyses = new LinkedHashMap<>();
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for (int from = 0; from < accessions.size(); from += batchSize) {
+            List<String> batch = accessions.subList(from, Math.min(from + batchSize, accessions.size()));
+            try {
+                httpExecutor.execute("analyses " + batch, () -> restTemplate.execute(enaApiUrl, HttpMethod.GET, null,
+                        response -> splitAnalysisDocuments(response, batch, accessionsToAnalyses),
+                        String.join(ACCESSION_SEPARATOR, batch)));
+            } catch (RuntimeException exception) {
+                batch.stream()
+                        .filter(accession -> !accessionsToAnalyses.containsKey(accession))
+                        .forEach(accession -> failures.put(accession, exception));
+            }
+        }
+
+        SraObjectLoadResult<ANALYSISDocument> loadResult = new SraObjectLoadResult<>();
+        accessionsToAnalyses.forEach(loadResult::addSraObject);
+        for (String accession : accessions) {
+            if (failures.containsKey(accession)) {
+                loadResult.addFailure(accession, failures.get(accession));
+            } else if (!accessionsToAnalyses.containsKey(accession)) {
+                loadResult.addFailure(accession,
+                        new NoSuchElementException("No analysis document for accession " + accession));
+            }
+        }
+        if (loadResult.hasFailures()) {
+            SRA_ANALYSIS_LOGGER.log(Level.WARNING, loadResult.getFailures().size() + " of " + accessions.size() +
+                    " analyses could not be loaded: " + loadResult.getFailures().keySet());
+        }
+        return loadResult;
+    }
+
+    private Integer splitAnalysisDocuments(ClientHttpResponse response, List<String> batch,
+                                           Map<String, ANALYSISDocument> accessionsToAnalyses) throws IOException {
+        try {
+            return xmlSplitter.split(response.getBody(), analysisDocument -> accessionsToAnalyses.putIfAbsent(
+                    analysisDocument.getANALYSIS().getAccession(), analysisDocument));
+        } catch (XMLStreamException exception) {
+            throw new IOException("Unparseable analyses response for accessions " + batch, exception);
+        }
+    }
+}
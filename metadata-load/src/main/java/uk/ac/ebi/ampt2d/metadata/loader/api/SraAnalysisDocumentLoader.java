@@ -17,51 +17,262 @@
  */
 package uk.ac.ebi.ampt2d.metadata.loader.api;
 
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.ampt2d.metadata.loader.cache.CachedSraResponse;
+import uk.ac.ebi.ampt2d.metadata.loader.cache.SraResponseCache;
+import uk.ac.ebi.ampt2d.metadata.loader.deadletter.DeadLetter;
+import uk.ac.ebi.ampt2d.metadata.loader.deadletter.DeadLetterStore;
+import uk.ac.ebi.ampt2d.metadata.loader.http.ResilientHttpExecutor;
 import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.function.Function;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+/**
+ * Loads ANALYSIS documents from the ENA browser API, one request per accession.
+ *
+ * By default the requests are sent one after another. When an {@link ExecutorService} is provided the requests are
+ * sent concurrently from its worker threads, with at most {@code maxConcurrentRequests} requests in flight. Every
+ * request goes to the ENA browser API, so this cap is also the load put on that single host. In both modes the returned
+ * map iterates in the order of the requested accessions.
+ *
+ * An optional {@link SraResponseCache} keeps the raw XML of every response. Cached responses that carry an ETag or a
+ * Last-Modified validator are revalidated with a conditional request, the others are served from the cache until
+ * their time to live expires.
+ *
+ * Every request runs through a {@link ResilientHttpExecutor}, so transient failures are retried with backoff and a
+ * failing upstream pauses the requests instead of failing every remaining accession. Accessions that still can not be
+ * loaded are reported by {@link #loadSraObjects(List)} and left out of {@link #getSraObjects(List)}. With a
+ * {@link DeadLetterStore} they are also recorded, with the raw XML of the responses that could not be parsed, so
+ * they can be replayed later.
+ */
 public class SraAnalysisDocumentLoader implements SraObjectLoaderByAccession<ANALYSISDocument> {
 
     private static final Logger SRA_ANALYSIS_LOGGER = Logger.getLogger(SraAnalysisDocumentLoader.class.getName());
 
     private RestTemplate restTemplate;
 
+    private ExecutorService executorService;
+
+    private Semaphore requestPermits;
+
+    private SraResponseCache responseCache;
+
+    private Duration cacheTimeToLive;
+
+    private Clock clock = Clock.systemUTC();
+
+    private ResilientHttpExecutor httpExecutor = new ResilientHttpExecutor();
+
+    private DeadLetterStore deadLetterStore;
+
     public SraAnalysisDocumentLoader(RestTemplate restTemplate) {
         this.restTemplate = restTemplate;
     }
 
+    /**
+     * @param restTemplate template used for the HTTP requests, it must be safe to share between threads
+     * @param executorService worker pool the requests are sent from, its lifecycle is owned by the caller
+     * @param maxConcurrentRequests maximum number of requests in flight, across all the worker threads
+     */
+    public SraAnalysisDocumentLoader(RestTemplate restTemplate, ExecutorService executorService,
+                                     int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("The maximum number of concurrent requests must be positive");
+        }
+        this.restTemplate = restTemplate;
+        this.executorService = executorService;
+        this.requestPermits = new Semaphore(maxConcurrentRequests, true);
+    }
+
+    /**
+     * @param responseCache cache the raw XML responses are read from and written to
+     * @param timeToLive how long a response without validators is served from the cache before it is fetched again
+     */
+    public void setResponseCache(SraResponseCache responseCache, Duration timeToLive) {
+        this.responseCache = responseCache;
+        this.cacheTimeToLive = timeToLive;
+    }
+
+    /**
+     * @param httpExecutor executor that applies the retry policy and circuit breaker to every request
+     */
+    public void setHttpExecutor(ResilientHttpExecutor httpExecutor) {
+        this.httpExecutor = httpExecutor;
+    }
+
+    /**
+     * @param deadLetterStore store every accession that can not be fetched or parsed is recorded in
+     */
+    public void setDeadLetterStore(DeadLetterStore deadLetterStore) {
+        this.deadLetterStore = deadLetterStore;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
     public static String getEnaApiUrl() {
         return ENA_API_URL;
     }
 
     @Override
     public Map<String, ANALYSISDocument> getSraObjects(List<String> accessions) {
-        return accessions.stream()
-                .map(accession -> parseAnalysisType(restTemplate.exchange(ENA_API_URL,
-                        HttpMethod.GET, null, String.class, accession).getBody(), accession))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toMap(analysisDocument -> analysisDocument.getANALYSIS().getAccession(),
-                        Function.identity()));
+        return loadSraObjects(accessions).getSraObjects();
+    }
+
+    /**
+     * Fetches every accession, retrying transient failures, and reports the accessions that still failed or could not
+     * be parsed in the result instead of aborting the whole list.
+     */
+    @Override
+    public SraObjectLoadResult<ANALYSISDocument> loadSraObjects(List<String> accessions) {
+        SraObjectLoadResult<ANALYSISDocument> loadResult = (executorService == null) ?
+                loadAnalysisDocumentsSequentially(accessions) : loadAnalysisDocumentsConcurrently(accessions);
+        if (loadResult.hasFailures()) {
+            SRA_ANALYSIS_LOGGER.log(Level.WARNING, loadResult.getFailures().size() + " of " + accessions.size() +
+                    " analyses could not be loaded: " + loadResult.getFailures().keySet());
+        }
+        return loadResult;
+    }
+
+    private SraObjectLoadResult<ANALYSISDocument> loadAnalysisDocumentsSequentially(List<String> accessions) {
+        SraObjectLoadResult<ANALYSISDocument> loadResult = new SraObjectLoadResult<>();
+        for (String accession : accessions) {
+            try {
+                addAnalysisDocument(loadResult, getAnalysisDocument(accession));
+            } catch (RuntimeException exception) {
+                loadResult.addFailure(accession, exception);
+            }
+        }
+        return loadResult;
     }
 
-    private ANALYSISDocument parseAnalysisType(String xmlString, String accession) {
-        ANALYSISDocument analysisDocument = null;
-        xmlString = removeRootTagsFromXmlString(xmlString);
+    private SraObjectLoadResult<ANALYSISDocument> loadAnalysisDocumentsConcurrently(List<String> accessions) {
+        List<CompletableFuture<ANALYSISDocument>> futures = accessions.stream()
+                .map(accession -> CompletableFuture.supplyAsync(() -> getAnalysisDocument(accession),
+                        executorService))
+                .collect(Collectors.toList());
+
+        SraObjectLoadResult<ANALYSISDocument> loadResult = new SraObjectLoadResult<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                addAnalysisDocument(loadResult, futures.get(i).join());
+            } catch (CompletionException exception) {
+                Throwable cause = exception.getCause();
+                loadResult.addFailure(accessions.get(i),
+                        (cause instanceof Exception) ? (Exception) cause : exception);
+            }
+        }
+        return loadResult;
+    }
+
+    private static void addAnalysisDocument(SraObjectLoadResult<ANALYSISDocument> loadResult,
+                                            ANALYSISDocument analysisDocument) {
+        loadResult.addSraObject(analysisDocument.getANALYSIS().getAccession(), analysisDocument);
+    }
+
+    /**
+     * Fetches the raw XML of a single analysis, going through the response cache, the concurrency cap and the retry
+     * policy like {@link #getSraObjects(List)} does.
+     */
+    public String fetchAnalysisXml(String accession) {
         try {
-            analysisDocument = ANALYSISDocument.Factory.parse(xmlString);
+            return httpExecutor.execute("analysis " + accession, (requestPermits != null) ?
+                    () -> getXmlStringWithinConcurrencyCap(accession) : () -> getXmlString(accession));
+        } catch (RuntimeException exception) {
+            recordDeadLetter(accession, exception, null);
+            throw exception;
+        }
+    }
+
+    /**
+     * @throws NoSuchElementException if the XML does not hold a parseable analysis, for example when ENA reports the
+     * accession as not found
+     */
+    public ANALYSISDocument parseAnalysisXml(String xmlString, String accession) {
+        try {
+            return ANALYSISDocument.Factory.parse(removeRootTagsFromXmlString(xmlString));
         } catch (Exception exception) {
-            SRA_ANALYSIS_LOGGER.log(Level.SEVERE, "Parse exception for accession " + accession);
-            exception.printStackTrace();
+            SRA_ANALYSIS_LOGGER.log(Level.SEVERE, "Parse exception for accession " + accession, exception);
+            recordDeadLetter(accession, exception, xmlString);
+            NoSuchElementException notFound = new NoSuchElementException(
+                    "No parseable analysis document for accession " + accession);
+            notFound.initCause(exception);
+            throw notFound;
+        }
+    }
+
+    private void recordDeadLetter(String accession, Exception exception, String xmlString) {
+        if (deadLetterStore != null) {
+            deadLetterStore.append(new DeadLetter(accession, exception, clock.instant(), xmlString));
+        }
+    }
+
+    private ANALYSISDocument getAnalysisDocument(String accession) {
+        return parseAnalysisXml(fetchAnalysisXml(accession), accession);
+    }
+
+    private String getXmlStringWithinConcurrencyCap(String accession) {
+        requestPermits.acquireUninterruptibly();
+        try {
+            return getXmlString(accession);
+        } finally {
+            requestPermits.release();
+        }
+    }
+
+    private String getXmlString(String accession) {
+        if (responseCache == null) {
+            return restTemplate.exchange(ENA_API_URL, HttpMethod.GET, null, String.class, accession).getBody();
+        }
+
+        Instant now = clock.instant();
+        CachedSraResponse cachedResponse = responseCache.get(accession);
+        if (cachedResponse != null && !cachedResponse.hasValidators() &&
+                cachedResponse.isFresh(cacheTimeToLive, now)) {
+            return cachedResponse.getBody();
+        }
+
+        HttpEntity<?> request = null;
+        if (cachedResponse != null && cachedResponse.hasValidators()) {
+            HttpHeaders headers = new HttpHeaders();
+            if (cachedResponse.getETag() != null) {
+                headers.setIfNoneMatch(cachedResponse.getETag());
+            }
+            if (cachedResponse.getLastModified() != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, cachedResponse.getLastModified());
+            }
+            request = new HttpEntity<>(headers);
+        }
+
+        ResponseEntity<String> response = restTemplate.exchange(ENA_API_URL, HttpMethod.GET, request, String.class,
+                accession);
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cachedResponse != null) {
+            responseCache.put(accession, cachedResponse.revalidatedAt(now));
+            return cachedResponse.getBody();
+        }
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            HttpHeaders headers = response.getHeaders();
+            responseCache.put(accession, new CachedSraResponse(response.getBody(), headers.getETag(),
+                    headers.getFirst(HttpHeaders.LAST_MODIFIED), now));
         }
-        return analysisDocument;
+        return response.getBody();
     }
 }
@@ -0,0 +1,70 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Objects extracted by each extractor of a {@link SraAnalysisMultiObjectLoader}, keyed by analysis accession, and the
+ * analyses that could not be loaded.
+ */
+public class SraAnalysisExtractionResult {
+
+    private final Map<SraObjectLoaderFromAnalysisDocument<?>, Map<String, List<?>>> extractorsToObjects =
+            new IdentityHashMap<>();
+
+    private final Map<String, Exception> failures;
+
+    SraAnalysisExtractionResult(List<SraObjectLoaderFromAnalysisDocument<?>> extractors,
+                                Map<String, Exception> failures) {
+        for (SraObjectLoaderFromAnalysisDocument<?> extractor : extractors) {
+            extractorsToObjects.put(extractor, new LinkedHashMap<>());
+        }
+        this.failures = failures;
+    }
+
+    void put(SraObjectLoaderFromAnalysisDocument<?> extractor, String accession, List<?> sraObjects) {
+        extractorsToObjects.get(extractor).put(accession, sraObjects);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the extractor was not registered in the loader
+     */
+    @SuppressWarnings("unchecked")
+    public <SRA_OBJECT> Map<String, List<SRA_OBJECT>> getSraObjects(
+            SraObjectLoaderFromAnalysisDocument<SRA_OBJECT> extractor) {
+        Map<String, List<?>> accessionsToObjects = extractorsToObjects.get(extractor);
+        if (accessionsToObjects == null) {
+            throw new IllegalArgumentException("Extractor " + extractor + " was not registered");
+        }
+        return Collections.unmodifiableMap((Map<String, List<SRA_OBJECT>>) (Map<String, ?>) accessionsToObjects);
+    }
+
+    public Map<String, Exception> getFailures() {
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+}
@@ -19,11 +19,11 @@ package uk.ac.ebi.ampt2d.metadata.loader.api;
 
 import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
 import uk.ac.ebi.ena.sra.xml.AnalysisFileType;
+import uk.ac.ebi.ena.sra.xml.AnalysisType;
 
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 public class SraAnalysisFileTypeLoader extends SraObjectLoaderFromAnalysisDocument<AnalysisFileType> {
 
@@ -32,16 +32,9 @@ public class SraAnalysisFileTypeLoader extends SraObjectLoaderFromAnalysisDocume
     }
 
     @Override
-    public Map<String, List<AnalysisFileType>> getSraObjectsFromAnalysisDocument(List<String> analysisAccessions) {
-        Map<String, ANALYSISDocument> accessionsToAnalyses =
-                sraAnalysisDocumentLoader.getSraObjects(analysisAccessions);
-        Map<String, List<AnalysisFileType>> analysisAccessionsToFiles = new HashMap<>();
-        for (String accession : accessionsToAnalyses.keySet()) {
-            ANALYSISDocument analysisDocument = accessionsToAnalyses.get(accession);
-            analysisAccessionsToFiles.put(analysisDocument.getANALYSIS().getAccession(),
-                    Arrays.asList(analysisDocument.getANALYSIS().getFILES().getFILEArray()));
-        }
-        return analysisAccessionsToFiles;
+    public List<AnalysisFileType> extractSraObjects(AnalysisType analysis) {
+        return (analysis.getFILES() != null) ?
+                Arrays.asList(analysis.getFILES().getFILEArray()) : Collections.emptyList();
     }
 
 }
@@ -0,0 +1,70 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+import uk.ac.ebi.ena.sra.xml.AnalysisType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fetches and parses every ANALYSIS document once and feeds it to all the registered
+ * {@link SraObjectLoaderFromAnalysisDocument} extractors, so loading files, study references, assemblies or
+ * attributes of the same analyses does not repeat the network and parse cost for each of them.
+ */
+public class SraAnalysisMultiObjectLoader {
+
+    private final SraObjectLoaderByAccession<ANALYSISDocument> sraAnalysisDocumentLoader;
+
+    private final List<SraObjectLoaderFromAnalysisDocument<?>> extractors = new ArrayList<>();
+
+    public SraAnalysisMultiObjectLoader(SraObjectLoaderByAccession<ANALYSISDocument> sraAnalysisDocumentLoader) {
+        this.sraAnalysisDocumentLoader = sraAnalysisDocumentLoader;
+    }
+
+    /**
+     * @param extractor extractor whose results are read back with
+     * {@link SraAnalysisExtractionResult#getSraObjects(SraObjectLoaderFromAnalysisDocument)}
+     */
+    public SraAnalysisMultiObjectLoader register(SraObjectLoaderFromAnalysisDocument<?> extractor) {
+        if (extractors.contains(extractor)) {
+            throw new IllegalArgumentException("Extractor " + extractor + " is already registered");
+        }
+        extractors.add(extractor);
+        return this;
+    }
+
+    public SraAnalysisExtractionResult loadSraObjects(List<String> analysisAccessions) {
+        if (extractors.isEmpty()) {
+            throw new IllegalStateException("No extractor is registered");
+        }
+        SraObjectLoadResult<ANALYSISDocument> loadResult = sraAnalysisDocumentLoader.loadSraObjects(
+                analysisAccessions);
+        SraAnalysisExtractionResult extractionResult = new SraAnalysisExtractionResult(extractors,
+                loadResult.getFailures());
+        for (ANALYSISDocument analysisDocument : loadResult.getSraObjects().values()) {
+            AnalysisType analysis = analysisDocument.getANALYSIS();
+            for (SraObjectLoaderFromAnalysisDocument<?> extractor : extractors) {
+                extractionResult.put(extractor, analysis.getAccession(), extractor.extractSraObjects(analysis));
+            }
+        }
+        return extractionResult;
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+import uk.ac.ebi.ena.sra.xml.AnalysisType;
+
+import java.util.Collections;
+import java.util.List;
+
+public class SraAnalysisStudyRefLoader extends SraObjectLoaderFromAnalysisDocument<AnalysisType.STUDYREF> {
+
+    public SraAnalysisStudyRefLoader(SraObjectLoaderByAccession<ANALYSISDocument> sraAnalysisDocumentLoader) {
+        super(sraAnalysisDocumentLoader);
+    }
+
+    @Override
+    public List<AnalysisType.STUDYREF> extractSraObjects(AnalysisType analysis) {
+        return (analysis.getSTUDYREF() != null) ?
+                Collections.singletonList(analysis.getSTUDYREF()) : Collections.emptyList();
+    }
+
+}
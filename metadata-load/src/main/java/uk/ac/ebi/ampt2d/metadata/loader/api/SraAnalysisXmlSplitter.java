@@ -0,0 +1,99 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import org.apache.xmlbeans.XmlException;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Splits an XML stream into ANALYSIS documents without loading the whole stream in memory.
+ *
+ * The stream is read with StAX and every ANALYSIS element, wherever it is nested (ROOT, ANALYSIS_SET or a dump
+ * file), is handed to XMLBeans on its own, so only one analysis is held in memory at a time. An element that can
+ * not be parsed is logged and skipped.
+ */
+public class SraAnalysisXmlSplitter {
+
+    private static final Logger SRA_ANALYSIS_LOGGER = Logger.getLogger(SraAnalysisXmlSplitter.class.getName());
+
+    private static final String ANALYSIS_ELEMENT = "ANALYSIS";
+
+    private final XMLInputFactory xmlInputFactory;
+
+    public SraAnalysisXmlSplitter() {
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * @param xmlStream stream to read, it is not closed by this method
+     * @param analysisDocumentConsumer receives every analysis document in the order found in the stream
+     * @return the number of analysis documents passed to the consumer
+     * @throws XMLStreamException if the stream is not well-formed XML
+     */
+    public int split(InputStream xmlStream, Consumer<ANALYSISDocument> analysisDocumentConsumer)
+            throws XMLStreamException {
+        XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(xmlStream);
+        int analysisDocuments = 0;
+        try {
+            int event = xmlStreamReader.getEventType();
+            while (true) {
+                if (event == XMLStreamConstants.START_ELEMENT &&
+                        ANALYSIS_ELEMENT.equals(xmlStreamReader.getLocalName())) {
+                    ANALYSISDocument analysisDocument = parseAnalysisElement(xmlStreamReader);
+                    if (analysisDocument != null) {
+                        analysisDocumentConsumer.accept(analysisDocument);
+                        analysisDocuments++;
+                    }
+                    // XMLBeans stops on the END_ELEMENT of the analysis, which must not be skipped by next()
+                    event = xmlStreamReader.getEventType();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                }
+                if (!xmlStreamReader.hasNext()) {
+                    break;
+                }
+                event = xmlStreamReader.next();
+            }
+        } finally {
+            xmlStreamReader.close();
+        }
+        return analysisDocuments;
+    }
+
+    private ANALYSISDocument parseAnalysisElement(XMLStreamReader xmlStreamReader) {
+        String accession = xmlStreamReader.getAttributeValue(null, "accession");
+        try {
+            return ANALYSISDocument.Factory.parse(xmlStreamReader);
+        } catch (XmlException exception) {
+            SRA_ANALYSIS_LOGGER.log(Level.SEVERE, "Parse exception for accession " + accession, exception);
+            return null;
+        }
+    }
+}
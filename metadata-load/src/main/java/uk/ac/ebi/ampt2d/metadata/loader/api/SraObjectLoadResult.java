@@ -0,0 +1,54 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of loading a list of accessions: the objects that were loaded and, for every accession that could not be
+ * loaded, the exception that stopped it. Both maps iterate in the order the accessions were recorded.
+ */
+public class SraObjectLoadResult<SRA_OBJECT> {
+
+    private final Map<String, SRA_OBJECT> sraObjects = new LinkedHashMap<>();
+
+    private final Map<String, Exception> failures = new LinkedHashMap<>();
+
+    public void addSraObject(String accession, SRA_OBJECT sraObject) {
+        sraObjects.putIfAbsent(accession, sraObject);
+    }
+
+    public void addFailure(String accession, Exception failure) {
+        failures.putIfAbsent(accession, failure);
+    }
+
+    public Map<String, SRA_OBJECT> getSraObjects() {
+        return Collections.unmodifiableMap(sraObjects);
+    }
+
+    public Map<String, Exception> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+}
@@ -27,6 +27,16 @@ public interface SraObjectLoaderByAccession<SRA_OBJECT> {
 
     Map<String, SRA_OBJECT> getSraObjects(List<String> accessions);
 
+    /**
+     * Loads the accessions and reports the ones that could not be loaded instead of throwing. Implementations that
+     * talk to a remote service override this method, the default one only wraps {@link #getSraObjects(List)}.
+     */
+    default SraObjectLoadResult<SRA_OBJECT> loadSraObjects(List<String> accessions) {
+        SraObjectLoadResult<SRA_OBJECT> loadResult = new SraObjectLoadResult<>();
+        getSraObjects(accessions).forEach(loadResult::addSraObject);
+        return loadResult;
+    }
+
     default String removeRootTagsFromXmlString(String xmlString) {
         return (xmlString != null) ? xmlString.replaceAll(XML_ROOT_TAGS, "") : xmlString;
     }
@@ -18,10 +18,18 @@
 package uk.ac.ebi.ampt2d.metadata.loader.api;
 
 import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+import uk.ac.ebi.ena.sra.xml.AnalysisType;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Extracts one kind of object from ANALYSIS documents.
+ *
+ * Used on its own, a loader fetches and parses the documents itself. Several loaders can instead be registered in a
+ * {@link SraAnalysisMultiObjectLoader}, which fetches and parses every document once and hands it to each of them.
+ */
 public abstract class SraObjectLoaderFromAnalysisDocument<SRA_OBJECT> {
 
     protected SraObjectLoaderByAccession<ANALYSISDocument> sraAnalysisDocumentLoader;
@@ -30,5 +38,19 @@ public abstract class SraObjectLoaderFromAnalysisDocument<SRA_OBJECT> {
         this.sraAnalysisDocumentLoader = sraAnalysisDocumentLoader;
     }
 
-    public abstract Map<String, List<SRA_OBJECT>> getSraObjectsFromAnalysisDocument(List<String> analysisAccessions);
+    public Map<String, List<SRA_OBJECT>> getSraObjectsFromAnalysisDocument(List<String> analysisAccessions) {
+        Map<String, ANALYSISDocument> accessionsToAnalyses =
+                sraAnalysisDocumentLoader.getSraObjects(analysisAccessions);
+        Map<String, List<SRA_OBJECT>> analysisAccessionsToObjects = new LinkedHashMap<>();
+        for (ANALYSISDocument analysisDocument : accessionsToAnalyses.values()) {
+            analysisAccessionsToObjects.put(analysisDocument.getANALYSIS().getAccession(),
+                    extractSraObjects(analysisDocument.getANALYSIS()));
+        }
+        return analysisAccessionsToObjects;
+    }
+
+    /**
+     * @return the objects of this kind found in the analysis, an empty list if there are none
+     */
+    public abstract List<SRA_OBJECT> extractSraObjects(AnalysisType analysis);
 }
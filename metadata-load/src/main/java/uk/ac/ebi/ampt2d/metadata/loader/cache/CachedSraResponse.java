@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A raw XML response together with the validators sent by the server, used for conditional revalidation
+ */
+public class CachedSraResponse {
+
+    private final String body;
+
+    private final String eTag;
+
+    private final String lastModified;
+
+    private final Instant fetchedAt;
+
+    /**
+     * @param body raw XML returned by the server
+     * @param eTag value of the ETag header, or null if the server did not send one
+     * @param lastModified value of the Last-Modified header, or null if the server did not send one
+     * @param fetchedAt time the response was last fetched or revalidated
+     */
+    public CachedSraResponse(String body, String eTag, String lastModified, Instant fetchedAt) {
+        this.body = body;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public boolean hasValidators() {
+        return eTag != null || lastModified != null;
+    }
+
+    public boolean isFresh(Duration timeToLive, Instant now) {
+        return !fetchedAt.plus(timeToLive).isBefore(now);
+    }
+
+    public CachedSraResponse revalidatedAt(Instant now) {
+        return new CachedSraResponse(body, eTag, lastModified, now);
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.cache;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link SraResponseCache} that keeps one file per accession in a local directory.
+ *
+ * The raw XML is stored in {@code <accession>.xml} and the validators in {@code <accession>.properties}. Both files
+ * are written to a temporary file first and then moved in place, so a crash never leaves a truncated entry. An XML
+ * file without properties, for example a test fixture copied into the directory, is served as an entry without
+ * validators fetched at the file's modification time.
+ */
+public class FileSystemSraResponseCache implements SraResponseCache {
+
+    private static final Pattern ACCESSION_PATTERN = Pattern.compile("[A-Za-z0-9_.-]+");
+
+    private static final String XML_EXTENSION = ".xml";
+
+    private static final String PROPERTIES_EXTENSION = ".properties";
+
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private static final String ETAG = "etag";
+
+    private static final String LAST_MODIFIED = "last-modified";
+
+    private static final String FETCHED_AT = "fetched-at";
+
+    private final Path directory;
+
+    public FileSystemSraResponseCache(Path directory) {
+        try {
+            this.directory = Files.createDirectories(directory);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Can not create cache directory " + directory, exception);
+        }
+    }
+
+    @Override
+    public CachedSraResponse get(String accession) {
+        Path xmlFile = resolve(accession, XML_EXTENSION);
+        if (!Files.exists(xmlFile)) {
+            return null;
+        }
+        try {
+            String body = new String(Files.readAllBytes(xmlFile), StandardCharsets.UTF_8);
+            Path propertiesFile = resolve(accession, PROPERTIES_EXTENSION);
+            if (!Files.exists(propertiesFile)) {
+                return new CachedSraResponse(body, null, null, Files.getLastModifiedTime(xmlFile).toInstant());
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(propertiesFile, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            return new CachedSraResponse(body, properties.getProperty(ETAG), properties.getProperty(LAST_MODIFIED),
+                    Instant.parse(properties.getProperty(FETCHED_AT)));
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Can not read cached response for accession " + accession, exception);
+        }
+    }
+
+    @Override
+    public void put(String accession, CachedSraResponse response) {
+        Properties properties = new Properties();
+        if (response.getETag() != null) {
+            properties.setProperty(ETAG, response.getETag());
+        }
+        if (response.getLastModified() != null) {
+            properties.setProperty(LAST_MODIFIED, response.getLastModified());
+        }
+        properties.setProperty(FETCHED_AT, response.getFetchedAt().toString());
+
+        Path xmlFile = resolve(accession, XML_EXTENSION);
+        Path propertiesFile = resolve(accession, PROPERTIES_EXTENSION);
+        try {
+            Path temporaryXmlFile = Files.createTempFile(directory, accession + XML_EXTENSION, TEMPORARY_EXTENSION);
+            Files.write(temporaryXmlFile, response.getBody().getBytes(StandardCharsets.UTF_8));
+            Path temporaryPropertiesFile = Files.createTempFile(directory, accession + PROPERTIES_EXTENSION,
+                    TEMPORARY_EXTENSION);
+            try (Writer writer = Files.newBufferedWriter(temporaryPropertiesFile, StandardCharsets.UTF_8)) {
+                properties.store(writer, accession);
+            }
+            Files.move(temporaryXmlFile, xmlFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(temporaryPropertiesFile, propertiesFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Can not cache response for accession " + accession, exception);
+        }
+    }
+
+    private Path resolve(String accession, String extension) {
+        if (!ACCESSION_PATTERN.matcher(accession).matches()) {
+            throw new IllegalArgumentException("Invalid accession " + accession);
+        }
+        return directory.resolve(accession + extension);
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.cache;
+
+/**
+ * Stores the raw XML responses of the ENA browser API per accession.
+ *
+ * Implementations must be safe to use from several threads.
+ */
+public interface SraResponseCache {
+
+    /**
+     * @return the cached response for the accession, or null if there is none
+     */
+    CachedSraResponse get(String accession);
+
+    void put(String accession, CachedSraResponse response);
+
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.deadletter;
+
+import java.time.Instant;
+
+/**
+ * An accession that could not be loaded, with the raw response when there was one.
+ */
+public class DeadLetter {
+
+    private final String accession;
+
+    private final String errorClass;
+
+    private final String errorMessage;
+
+    private final Instant timestamp;
+
+    private final String payload;
+
+    public DeadLetter(String accession, Exception error, Instant timestamp, String payload) {
+        this(accession, error.getClass().getName(), error.getMessage(), timestamp, payload);
+    }
+
+    DeadLetter(String accession, String errorClass, String errorMessage, Instant timestamp, String payload) {
+        this.accession = accession;
+        this.errorClass = errorClass;
+        this.errorMessage = errorMessage;
+        this.timestamp = timestamp;
+        this.payload = payload;
+    }
+
+    public String getAccession() {
+        return accession;
+    }
+
+    public String getErrorClass() {
+        return errorClass;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the raw XML received for the accession, or null if the request itself failed
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.deadletter;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Re-runs the import of the accessions recorded in a {@link DeadLetterStore}.
+ *
+ * The accessions are handed to an importer, for example {@code AnalysisImportPipeline::run}, whose loader records
+ * its failures in the same store. Accessions that did not get a new letter during the replay are considered resolved
+ * and the store is compacted to the latest letter of the others.
+ */
+public class DeadLetterReplayer {
+
+    private static final Logger DEAD_LETTER_LOGGER = Logger.getLogger(DeadLetterReplayer.class.getName());
+
+    private final DeadLetterStore deadLetterStore;
+
+    private Clock clock = Clock.systemUTC();
+
+    public DeadLetterReplayer(DeadLetterStore deadLetterStore) {
+        this.deadLetterStore = deadLetterStore;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @param importer imports the accessions, recording the ones that fail again in the store
+     * @return the accessions that still fail
+     */
+    public Set<String> replay(Consumer<List<String>> importer) {
+        Set<String> accessions = deadLetterStore.getAccessions();
+        if (accessions.isEmpty()) {
+            return accessions;
+        }
+        Instant start = clock.instant();
+        DEAD_LETTER_LOGGER.info("Replaying " + accessions.size() + " accessions from " + deadLetterStore.getFile());
+        importer.accept(new ArrayList<>(accessions));
+
+        Set<String> failedAccessions = new LinkedHashSet<>();
+        for (DeadLetter deadLetter : deadLetterStore.readAll()) {
+            if (!deadLetter.getTimestamp().isBefore(start) && accessions.contains(deadLetter.getAccession())) {
+                failedAccessions.add(deadLetter.getAccession());
+            }
+        }
+        Set<String> resolvedAccessions = new LinkedHashSet<>(accessions);
+        resolvedAccessions.removeAll(failedAccessions);
+        deadLetterStore.compact(resolvedAccessions);
+        DEAD_LETTER_LOGGER.info(resolvedAccessions.size() + " accessions resolved, " + failedAccessions.size() +
+                " still failing");
+        return failedAccessions;
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.deadletter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only file of {@link DeadLetter}s, one JSON object per line.
+ *
+ * Every letter is written and flushed on its own, so a large import that crashes keeps track of all the failures
+ * recorded until then. A line left truncated by a crash is skipped when the file is read back. The file only shrinks
+ * through {@link #compact(Collection)}, after a replay.
+ */
+public class DeadLetterStore {
+
+    private static final Logger DEAD_LETTER_LOGGER = Logger.getLogger(DeadLetterStore.class.getName());
+
+    private static final String ACCESSION = "accession";
+
+    private static final String ERROR_CLASS = "errorClass";
+
+    private static final String ERROR_MESSAGE = "errorMessage";
+
+    private static final String TIMESTAMP = "timestamp";
+
+    private static final String PAYLOAD = "payload";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path file;
+
+    public DeadLetterStore(Path file) {
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Can not create dead letter directory for " + file, exception);
+        }
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public synchronized void append(DeadLetter deadLetter) {
+        try {
+            boolean terminated = endsWithNewLine();
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND)) {
+                if (!terminated) {
+                    // keeps a line truncated by a crash from swallowing this letter
+                    writer.write('\n');
+                }
+                writer.write(toJson(deadLetter));
+                writer.write('\n');
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Can not record dead letter for accession " + deadLetter.getAccession(),
+                    exception);
+        }
+    }
+
+    private boolean endsWithNewLine() throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, channel.size() - 1);
+            return lastByte.get(0) == '\n';
+        }
+    }
+
+    /**
+     * @return every letter in the order it was recorded
+     */
+    public synchronized List<DeadLetter> readAll() {
+        List<DeadLetter> deadLetters = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return deadLetters;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    deadLetters.add(fromJson(objectMapper.readTree(line)));
+                } catch (IOException | RuntimeException exception) {
+                    DEAD_LETTER_LOGGER.log(Level.WARNING, "Skipping unreadable line " + lineNumber + " of " + file,
+                            exception);
+                }
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Can not read dead letters from " + file, exception);
+        }
+        return deadLetters;
+    }
+
+    /**
+     * @return the distinct accessions of the letters, in the order they first failed
+     */
+    public Set<String> getAccessions() {
+        Set<String> accessions = new LinkedHashSet<>();
+        for (DeadLetter deadLetter : readAll()) {
+            accessions.add(deadLetter.getAccession());
+        }
+        return accessions;
+    }
+
+    /**
+     * Rewrites the file with only the latest letter of every accession that is not resolved.
+     *
+     * @param resolvedAccessions accessions that have since been loaded
+     * @return the number of letters left in the file
+     */
+    public synchronized int compact(Collection<String> resolvedAccessions) {
+        Map<String, DeadLetter> latestDeadLetters = new LinkedHashMap<>();
+        for (DeadLetter deadLetter : readAll()) {
+            latestDeadLetters.remove(deadLetter.getAccession());
+            latestDeadLetters.put(deadLetter.getAccession(), deadLetter);
+        }
+        latestDeadLetters.keySet().removeAll(resolvedAccessions);
+        try {
+            Path temporaryFile = Files.createTempFile(file.toAbsolutePath().getParent(),
+                    file.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                for (DeadLetter deadLetter : latestDeadLetters.values()) {
+                    writer.write(toJson(deadLetter));
+                    writer.write('\n');
+                }
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Can not compact dead letters in " + file, exception);
+        }
+        return latestDeadLetters.size();
+    }
+
+    private String toJson(DeadLetter deadLetter) throws IOException {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put(ACCESSION, deadLetter.getAccession());
+        node.put(ERROR_CLASS, deadLetter.getErrorClass());
+        node.put(ERROR_MESSAGE, deadLetter.getErrorMessage());
+        node.put(TIMESTAMP, deadLetter.getTimestamp().toString());
+        node.put(PAYLOAD, deadLetter.getPayload());
+        return objectMapper.writeValueAsString(node);
+    }
+
+    private static DeadLetter fromJson(JsonNode node) {
+        return new DeadLetter(node.get(ACCESSION).asText(), node.get(ERROR_CLASS).asText(),
+                textOrNull(node, ERROR_MESSAGE), Instant.parse(node.get(TIMESTAMP).asText()),
+                textOrNull(node, PAYLOAD));
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return (value == null || value.isNull()) ? null : value.asText();
+    }
+
+}
@@ -0,0 +1,275 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.dump;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Byte offsets of every ANALYSIS element of an ENA XML dump file, persisted next to the dump's other indexes.
+ *
+ * The index is built by a single byte-level scan of the dump that looks for {@code <ANALYSIS ...>} start tags and the
+ * matching {@code </ANALYSIS>} end tags, without parsing the XML. A gzip dump is first decompressed into the index
+ * directory, so the offsets always refer to a plain XML file that can be read at random. The index is rebuilt when
+ * the size or modification time of the dump changes.
+ */
+public class AnalysisDumpIndex {
+
+    private static final Logger DUMP_LOGGER = Logger.getLogger(AnalysisDumpIndex.class.getName());
+
+    private static final int INDEX_FORMAT = 0x41445831;
+
+    private static final String INDEX_EXTENSION = ".idx";
+
+    private static final String DATA_EXTENSION = ".xml";
+
+    private static final byte[] ANALYSIS_TAG = "ANALYSIS".getBytes(StandardCharsets.US_ASCII);
+
+    private static final Pattern ACCESSION_ATTRIBUTE = Pattern.compile("\\saccession\\s*=\\s*[\"']([^\"']+)[\"']");
+
+    private static final int MAX_TAG_LENGTH = 4096;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Position of an ANALYSIS element in the data file
+     */
+    public static final class Entry {
+
+        private final long offset;
+
+        private final int length;
+
+        Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+
+    private final Path dataFile;
+
+    private final Map<String, Entry> entries;
+
+    private AnalysisDumpIndex(Path dataFile, Map<String, Entry> entries) {
+        this.dataFile = dataFile;
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Loads the persisted index of a dump file, building and persisting it first if it is missing or out of date.
+     *
+     * @param dumpFile plain or gzip XML dump
+     * @param indexDirectory directory the index and any decompressed copy are stored in
+     */
+    public static AnalysisDumpIndex open(Path dumpFile, Path indexDirectory) throws IOException {
+        Files.createDirectories(indexDirectory);
+        String baseName = dumpFile.getFileName() + "-" +
+                Integer.toHexString(dumpFile.toAbsolutePath().normalize().toString().hashCode());
+        Path indexFile = indexDirectory.resolve(baseName + INDEX_EXTENSION);
+        boolean gzip = isGzip(dumpFile);
+        Path dataFile = gzip ? indexDirectory.resolve(baseName + DATA_EXTENSION) : dumpFile;
+
+        AnalysisDumpIndex index = load(indexFile, dumpFile, dataFile);
+        if (index != null) {
+            return index;
+        }
+
+        long start = System.nanoTime();
+        if (gzip) {
+            decompress(dumpFile, dataFile);
+        }
+        index = new AnalysisDumpIndex(dataFile, scan(dataFile));
+        index.save(indexFile, dumpFile);
+        DUMP_LOGGER.info("Indexed " + index.entries.size() + " analyses of " + dumpFile + " in " +
+                (System.nanoTime() - start) / 1000000 + " ms");
+        return index;
+    }
+
+    public Path getDataFile() {
+        return dataFile;
+    }
+
+    public Set<String> getAccessions() {
+        return entries.keySet();
+    }
+
+    /**
+     * @return the position of the analysis, or null if the dump does not hold it
+     */
+    public Entry getEntry(String accession) {
+        return entries.get(accession);
+    }
+
+    private static AnalysisDumpIndex load(Path indexFile, Path dumpFile, Path dataFile) throws IOException {
+        if (!Files.exists(indexFile) || !Files.exists(dataFile)) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile),
+                BUFFER_SIZE))) {
+            if (input.readInt() != INDEX_FORMAT || input.readLong() != Files.size(dumpFile) ||
+                    input.readLong() != Files.getLastModifiedTime(dumpFile).toMillis() ||
+                    input.readLong() != Files.size(dataFile)) {
+                DUMP_LOGGER.info("Index " + indexFile + " is out of date, rebuilding it");
+                return null;
+            }
+            int size = input.readInt();
+            Map<String, Entry> entries = new HashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                entries.put(input.readUTF(), new Entry(input.readLong(), input.readInt()));
+            }
+            return new AnalysisDumpIndex(dataFile, entries);
+        }
+    }
+
+    private void save(Path indexFile, Path dumpFile) throws IOException {
+        Path temporaryFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporaryFile), BUFFER_SIZE))) {
+            output.writeInt(INDEX_FORMAT);
+            output.writeLong(Files.size(dumpFile));
+            output.writeLong(Files.getLastModifiedTime(dumpFile).toMillis());
+            output.writeLong(Files.size(dataFile));
+            output.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeLong(entry.getValue().offset);
+                output.writeInt(entry.getValue().length);
+            }
+        }
+        Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Finds the ANALYSIS elements of a plain XML file. Elements are not expected inside comments or CDATA sections.
+     */
+    static Map<String, Entry> scan(Path dataFile) throws IOException {
+        Map<String, Entry> entries = new HashMap<>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] tag = new byte[MAX_TAG_LENGTH];
+        int tagLength = 0;
+        boolean inTag = false;
+        long tagStart = 0;
+        long position = 0;
+        long analysisStart = -1;
+        String accession = null;
+        try (InputStream input = Files.newInputStream(dataFile)) {
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++, position++) {
+                    byte value = buffer[i];
+                    if (!inTag) {
+                        if (value == '<') {
+                            inTag = true;
+                            tagStart = position;
+                            tagLength = 0;
+                        }
+                        continue;
+                    }
+                    if (value != '>') {
+                        if (tagLength < MAX_TAG_LENGTH) {
+                            tag[tagLength++] = value;
+                        }
+                        continue;
+                    }
+                    inTag = false;
+                    if (isAnalysisTag(tag, tagLength, 0)) {
+                        analysisStart = tagStart;
+                        accession = findAccession(tag, tagLength);
+                        if (tag[tagLength - 1] == '/') {
+                            analysisStart = -1;
+                        }
+                    } else if (analysisStart >= 0 && tagLength > 0 && tag[0] == '/' &&
+                            isAnalysisTag(tag, tagLength, 1)) {
+                        if (accession != null) {
+                            entries.put(accession, new Entry(analysisStart, (int) (position + 1 - analysisStart)));
+                        }
+                        analysisStart = -1;
+                        accession = null;
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static boolean isAnalysisTag(byte[] tag, int tagLength, int from) {
+        if (tagLength < from + ANALYSIS_TAG.length) {
+            return false;
+        }
+        for (int i = 0; i < ANALYSIS_TAG.length; i++) {
+            if (tag[from + i] != ANALYSIS_TAG[i]) {
+                return false;
+            }
+        }
+        if (tagLength == from + ANALYSIS_TAG.length) {
+            return true;
+        }
+        byte next = tag[from + ANALYSIS_TAG.length];
+        return next == ' ' || next == '\t' || next == '\r' || next == '\n' || next == '/';
+    }
+
+    private static String findAccession(byte[] tag, int tagLength) {
+        Matcher matcher = ACCESSION_ATTRIBUTE.matcher(new String(tag, 0, tagLength, StandardCharsets.UTF_8));
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static boolean isGzip(Path dumpFile) throws IOException {
+        try (InputStream input = Files.newInputStream(dumpFile)) {
+            return input.read() == 0x1f && input.read() == 0x8b;
+        }
+    }
+
+    private static void decompress(Path dumpFile, Path dataFile) throws IOException {
+        Path temporaryFile = Files.createTempFile(dataFile.getParent(), dataFile.getFileName().toString(), ".tmp");
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(dumpFile), BUFFER_SIZE);
+             OutputStream output = Files.newOutputStream(temporaryFile)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                output.write(buffer, 0, read);
+            }
+        }
+        Files.move(temporaryFile, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
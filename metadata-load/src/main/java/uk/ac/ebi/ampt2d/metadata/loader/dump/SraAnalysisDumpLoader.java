@@ -0,0 +1,176 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.dump;
+
+import org.apache.xmlbeans.XmlException;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraObjectLoadResult;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraObjectLoaderByAccession;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Loads ANALYSIS documents from local ENA XML dump files, or directories of them, instead of the ENA browser API.
+ *
+ * Every dump is indexed once by {@link AnalysisDumpIndex} and the index is kept in {@code indexDirectory}, so later
+ * runs only read the elements they are asked for. An element is read with a positional read on a shared
+ * {@link FileChannel} and parsed on its own, so the loader can be used from several threads. When an accession is
+ * present in more than one dump, the dump listed last wins.
+ */
+public class SraAnalysisDumpLoader implements SraObjectLoaderByAccession<ANALYSISDocument>, Closeable {
+
+    private static final Logger DUMP_LOGGER = Logger.getLogger(SraAnalysisDumpLoader.class.getName());
+
+    private static final Pattern DUMP_FILE_PATTERN = Pattern.compile(".+\\.xml(\\.gz)?");
+
+    private final List<FileChannel> channels = new ArrayList<>();
+
+    private final Map<String, DumpLocation> locations = new HashMap<>();
+
+    private static final class DumpLocation {
+
+        private final FileChannel channel;
+
+        private final AnalysisDumpIndex.Entry entry;
+
+        DumpLocation(FileChannel channel, AnalysisDumpIndex.Entry entry) {
+            this.channel = channel;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * @param dumpFiles plain or gzip XML dump files, or directories whose {@code .xml} and {@code .xml.gz} files are
+     * loaded in name order
+     * @param indexDirectory directory the indexes, and the decompressed copies of gzip dumps, are kept in
+     */
+    public SraAnalysisDumpLoader(List<Path> dumpFiles, Path indexDirectory) throws IOException {
+        if (dumpFiles.isEmpty()) {
+            throw new IllegalArgumentException("At least one dump file must be provided");
+        }
+        try {
+            for (Path dumpFile : listDumpFiles(dumpFiles)) {
+                AnalysisDumpIndex index = AnalysisDumpIndex.open(dumpFile, indexDirectory);
+                FileChannel channel = FileChannel.open(index.getDataFile(), StandardOpenOption.READ);
+                channels.add(channel);
+                for (String accession : index.getAccessions()) {
+                    locations.put(accession, new DumpLocation(channel, index.getEntry(accession)));
+                }
+            }
+        } catch (IOException | RuntimeException exception) {
+            close();
+            throw exception;
+        }
+        DUMP_LOGGER.info(locations.size() + " analyses available in " + channels.size() + " dump files");
+    }
+
+    private static List<Path> listDumpFiles(List<Path> paths) throws IOException {
+        List<Path> dumpFiles = new ArrayList<>();
+        for (Path path : paths) {
+            if (!Files.isDirectory(path)) {
+                dumpFiles.add(path);
+                continue;
+            }
+            try (Stream<Path> children = Files.list(path)) {
+                children.filter(child -> Files.isRegularFile(child) && DUMP_FILE_PATTERN.matcher(
+                        child.getFileName().toString()).matches())
+                        .sorted()
+                        .forEach(dumpFiles::add);
+            }
+        }
+        return dumpFiles;
+    }
+
+    public boolean contains(String accession) {
+        return locations.containsKey(accession);
+    }
+
+    @Override
+    public Map<String, ANALYSISDocument> getSraObjects(List<String> accessions) {
+        return loadSraObjects(accessions).getSraObjects();
+    }
+
+    /**
+     * Reads every accession from the dumps, reporting the accessions that are not in any dump or can not be parsed.
+     */
+    @Override
+    public SraObjectLoadResult<ANALYSISDocument> loadSraObjects(List<String> accessions) {
+        SraObjectLoadResult<ANALYSISDocument> loadResult = new SraObjectLoadResult<>();
+        for (String accession : accessions) {
+            DumpLocation location = locations.get(accession);
+            if (location == null) {
+                loadResult.addFailure(accession, new NoSuchElementException("No dump holds analysis " + accession));
+                continue;
+            }
+            try {
+                loadResult.addSraObject(accession, ANALYSISDocument.Factory.parse(
+                        new ByteArrayInputStream(read(location))));
+            } catch (IOException | XmlException exception) {
+                loadResult.addFailure(accession, exception);
+            }
+        }
+        if (loadResult.hasFailures()) {
+            DUMP_LOGGER.log(Level.WARNING, loadResult.getFailures().size() + " of " + accessions.size() +
+                    " analyses could not be loaded from the dumps: " + loadResult.getFailures().keySet());
+        }
+        return loadResult;
+    }
+
+    private static byte[] read(DumpLocation location) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(location.entry.getLength());
+        long position = location.entry.getOffset();
+        while (buffer.hasRemaining()) {
+            int read = location.channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Dump file is shorter than its index, it should be indexed again");
+            }
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public void close() {
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException exception) {
+                throw new UncheckedIOException("Can not close dump file", exception);
+            }
+        }
+        channels.clear();
+    }
+
+}
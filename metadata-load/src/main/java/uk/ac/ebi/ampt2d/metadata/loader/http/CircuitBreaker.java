@@ -0,0 +1,125 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.http;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Pauses the HTTP calls against an upstream that keeps failing.
+ *
+ * After {@code failureThreshold} consecutive failures the breaker opens and every caller of
+ * {@link #acquirePermission()} waits until {@code openDuration} has elapsed. A single probe call is then let through
+ * while the others keep waiting: its success closes the breaker, its failure opens it again.
+ */
+public class CircuitBreaker {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    private static final Logger CIRCUIT_BREAKER_LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private long openUntilNanos;
+
+    private boolean probeInFlight;
+
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION);
+    }
+
+    /**
+     * @param failureThreshold number of consecutive failures that opens the breaker
+     * @param openDuration time the calls are paused for once the breaker is open
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("The failure threshold must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Returns immediately while the breaker is closed, otherwise waits until the caller may send a probe call or the
+     * breaker is closed again. Every permission must be followed by {@link #recordSuccess()} or
+     * {@link #recordFailure()}.
+     */
+    public synchronized void acquirePermission() throws InterruptedException {
+        while (true) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            if (state == State.OPEN) {
+                long remainingNanos = openUntilNanos - System.nanoTime();
+                if (remainingNanos > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+                    continue;
+                }
+                state = State.HALF_OPEN;
+            }
+            if (!probeInFlight) {
+                probeInFlight = true;
+                return;
+            }
+            wait();
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            CIRCUIT_BREAKER_LOGGER.info("Upstream recovered, resuming requests");
+            state = State.CLOSED;
+            notifyAll();
+        }
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            CIRCUIT_BREAKER_LOGGER.warning("Upstream failed " + consecutiveFailures +
+                    " consecutive times, pausing requests for " + Duration.ofNanos(openDurationNanos));
+            state = State.OPEN;
+            openUntilNanos = System.nanoTime() + openDurationNanos;
+            probeInFlight = false;
+            notifyAll();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+}
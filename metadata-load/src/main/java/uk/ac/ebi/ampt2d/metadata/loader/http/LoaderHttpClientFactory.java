@@ -0,0 +1,135 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.http;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.ampt2d.metadata.loader.metrics.LoaderMetrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Creates the {@link RestTemplate} of the loaders on a pooled Apache HTTP client.
+ *
+ * Connections are kept alive and reused for consecutive requests against the same host, so a long run of small
+ * requests to ENA pays the TCP and TLS handshakes once per pooled connection instead of once per request. A
+ * connection is kept for the Keep-Alive timeout announced by the server, or {@code keepAlive} when it announces none,
+ * and idle connections are evicted in the background. Responses are requested and decompressed with gzip or deflate.
+ * The pool statistics can be published through {@link LoaderMetrics}.
+ */
+public class LoaderHttpClientFactory implements Closeable {
+
+    public static final int DEFAULT_MAX_PER_ROUTE = 16;
+
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(60);
+
+    public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofSeconds(30);
+
+    private static final String METRICS_PREFIX = "loader.http.pool.";
+
+    /**
+     * Idle time after which a pooled connection is checked before it is reused
+     */
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    public LoaderHttpClientFactory() {
+        this(DEFAULT_MAX_PER_ROUTE, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_KEEP_ALIVE);
+    }
+
+    /**
+     * @param maxPerRoute maximum number of pooled connections per host, the pool holds four times as many in total
+     * @param connectTimeout timeout to open a connection, also used to wait for a free pooled connection
+     * @param readTimeout maximum inactivity while reading a response
+     * @param keepAlive how long an idle connection is kept when the server does not say
+     */
+    public LoaderHttpClientFactory(int maxPerRoute, Duration connectTimeout, Duration readTimeout,
+                                   Duration keepAlive) {
+        if (maxPerRoute < 1) {
+            throw new IllegalArgumentException("The maximum number of connections per route must be positive");
+        }
+        if (connectTimeout.isNegative() || readTimeout.isNegative() || keepAlive.isNegative()) {
+            throw new IllegalArgumentException("The timeouts must not be negative");
+        }
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setMaxTotal(4 * maxPerRoute);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setConnectionRequestTimeout((int) connectTimeout.toMillis())
+                .setSocketTimeout((int) readTimeout.toMillis())
+                .build();
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return (serverKeepAlive > 0) ? serverKeepAlive : keepAlive.toMillis();
+        };
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * @return a template sharing the pooled client, closing the factory closes the client of every template
+     */
+    public RestTemplate createRestTemplate() {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    public void registerMetrics(LoaderMetrics loaderMetrics) {
+        registerPoolGauge(loaderMetrics, "leased", PoolStats::getLeased);
+        registerPoolGauge(loaderMetrics, "available", PoolStats::getAvailable);
+        registerPoolGauge(loaderMetrics, "pending", PoolStats::getPending);
+        registerPoolGauge(loaderMetrics, "max", PoolStats::getMax);
+    }
+
+    private void registerPoolGauge(LoaderMetrics loaderMetrics, String name, ToIntFunction<PoolStats> statistic) {
+        loaderMetrics.registerGauge(METRICS_PREFIX + name, () -> statistic.applyAsInt(getPoolStats()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+}
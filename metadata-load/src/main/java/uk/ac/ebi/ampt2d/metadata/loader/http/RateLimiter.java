@@ -0,0 +1,169 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.http;
+
+import uk.ac.ebi.ampt2d.metadata.loader.metrics.LoaderMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Token bucket that keeps the requests against an upstream within its fair-use limits.
+ *
+ * Tokens are added at {@code requestsPerSecond} up to {@code burst} tokens, and every request takes one. When the
+ * bucket is empty a request is delayed until its token is due, so callers are spaced out instead of rejected. When the
+ * upstream answers 429 Too Many Requests, {@link #onThrottled(Duration)} halves the rate and pauses every request for
+ * the Retry-After delay; {@link #onSuccess()} then raises the rate back in small steps up to the configured one. One
+ * instance is meant to be shared by all the callers of the same upstream.
+ */
+public class RateLimiter {
+
+    public static final String RATE_METRIC = "loader.http.rate-limiter.requests-per-second";
+
+    public static final String THROTTLED_TIME_METRIC = "loader.http.rate-limiter.throttled-millis";
+
+    public static final String THROTTLED_RESPONSES_METRIC = "loader.http.rate-limiter.throttled-responses";
+
+    private static final Logger HTTP_LOGGER = Logger.getLogger(RateLimiter.class.getName());
+
+    /**
+     * Fraction of the configured rate the rate never goes below, however often the upstream throttles
+     */
+    private static final double MIN_RATE_FRACTION = 1.0 / 16;
+
+    /**
+     * Fraction of the configured rate recovered by every successful request
+     */
+    private static final double RECOVERY_FRACTION = 1.0 / 100;
+
+    private final double configuredRate;
+
+    private final int burst;
+
+    private final LongSupplier nanoClock;
+
+    private double currentRate;
+
+    private double storedTokens;
+
+    private long nextFreeNanos;
+
+    private long throttledNanos;
+
+    private long throttledResponses;
+
+    /**
+     * @param requestsPerSecond sustained rate of requests
+     * @param burst number of requests that can be sent at once after a quiet period
+     */
+    public RateLimiter(double requestsPerSecond, int burst) {
+        this(requestsPerSecond, burst, System::nanoTime);
+    }
+
+    RateLimiter(double requestsPerSecond, int burst, LongSupplier nanoClock) {
+        if (!(requestsPerSecond > 0)) {
+            throw new IllegalArgumentException("The rate must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("The burst must be positive");
+        }
+        this.configuredRate = requestsPerSecond;
+        this.burst = burst;
+        this.nanoClock = nanoClock;
+        this.currentRate = requestsPerSecond;
+        this.storedTokens = burst;
+        this.nextFreeNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Waits until a request may be sent.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes the token of one request without waiting, for callers that schedule the request themselves.
+     *
+     * @return nanoseconds to wait before the request may be sent
+     */
+    public synchronized long reserve() {
+        long now = nanoClock.getAsLong();
+        if (now > nextFreeNanos) {
+            storedTokens = Math.min(burst, storedTokens + (now - nextFreeNanos) * currentRate / 1e9);
+            nextFreeNanos = now;
+        }
+        double storedTokensTaken = Math.min(1, storedTokens);
+        storedTokens -= storedTokensTaken;
+        nextFreeNanos += (long) ((1 - storedTokensTaken) * 1e9 / currentRate);
+        long waitNanos = nextFreeNanos - now;
+        throttledNanos += waitNanos;
+        return waitNanos;
+    }
+
+    /**
+     * Slows down after the upstream answered 429 Too Many Requests.
+     *
+     * @param retryAfter delay requested by the upstream, or null if it did not send one
+     */
+    public synchronized void onThrottled(Duration retryAfter) {
+        throttledResponses++;
+        currentRate = Math.max(configuredRate * MIN_RATE_FRACTION, currentRate / 2);
+        storedTokens = 0;
+        long pauseNanos = (retryAfter != null && !retryAfter.isNegative()) ? retryAfter.toNanos() : 0;
+        nextFreeNanos = Math.max(nextFreeNanos, nanoClock.getAsLong() + pauseNanos);
+        HTTP_LOGGER.info("Upstream throttled the requests, slowing down to " + String.format("%.2f", currentRate) +
+                " requests per second" + ((retryAfter != null) ? " after a pause of " + retryAfter : ""));
+    }
+
+    /**
+     * Raises the rate back towards the configured one after a request was not throttled.
+     */
+    public synchronized void onSuccess() {
+        if (currentRate < configuredRate) {
+            currentRate = Math.min(configuredRate, currentRate + configuredRate * RECOVERY_FRACTION);
+        }
+    }
+
+    public synchronized double getCurrentRate() {
+        return currentRate;
+    }
+
+    /**
+     * @return total time requests were delayed by the limiter
+     */
+    public synchronized Duration getThrottledTime() {
+        return Duration.ofNanos(throttledNanos);
+    }
+
+    public synchronized long getThrottledResponses() {
+        return throttledResponses;
+    }
+
+    public void registerMetrics(LoaderMetrics loaderMetrics) {
+        loaderMetrics.registerGauge(RATE_METRIC, this::getCurrentRate);
+        loaderMetrics.registerGauge(THROTTLED_TIME_METRIC, () -> getThrottledTime().toMillis());
+        loaderMetrics.registerGauge(THROTTLED_RESPONSES_METRIC, this::getThrottledResponses);
+    }
+
+}
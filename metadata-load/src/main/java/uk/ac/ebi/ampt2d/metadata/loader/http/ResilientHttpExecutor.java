@@ -0,0 +1,135 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.http;
+
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs HTTP calls under a {@link RetryPolicy} and a {@link CircuitBreaker}.
+ *
+ * A call that fails with a retryable exception counts as an upstream failure and is attempted again after the
+ * policy's backoff, until the attempts are exhausted and the last exception is thrown. Any other exception, a 404 for
+ * example, shows that the upstream is answering: it is thrown straight away without touching the breaker's failure
+ * count. One instance is meant to be shared by all the calls against the same upstream.
+ *
+ * An optional {@link RateLimiter} spaces out every attempt and is told when the upstream throttles the calls. Without
+ * one, a 429 response is still retried no earlier than its Retry-After delay.
+ */
+public class ResilientHttpExecutor {
+
+    private static final Logger HTTP_LOGGER = Logger.getLogger(ResilientHttpExecutor.class.getName());
+
+    private final RetryPolicy retryPolicy;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final RateLimiter rateLimiter;
+
+    public ResilientHttpExecutor() {
+        this(new RetryPolicy(), new CircuitBreaker());
+    }
+
+    public ResilientHttpExecutor(RetryPolicy retryPolicy, CircuitBreaker circuitBreaker) {
+        this(retryPolicy, circuitBreaker, null);
+    }
+
+    /**
+     * @param rateLimiter limiter every attempt goes through, or null to send the attempts as fast as they come
+     */
+    public ResilientHttpExecutor(RetryPolicy retryPolicy, CircuitBreaker circuitBreaker, RateLimiter rateLimiter) {
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @param description short description of the call used in the log, for example the accession it fetches
+     * @param call the HTTP call to run
+     * @return the value returned by the first successful attempt
+     */
+    public <T> T execute(String description, Supplier<T> call) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                circuitBreaker.acquirePermission();
+                if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new RestClientException("Interrupted while waiting to request " + description, exception);
+            }
+
+            RuntimeException failure;
+            try {
+                T result = call.get();
+                circuitBreaker.recordSuccess();
+                if (rateLimiter != null) {
+                    rateLimiter.onSuccess();
+                }
+                return result;
+            } catch (RuntimeException exception) {
+                failure = exception;
+            }
+
+            if (!retryPolicy.isRetryable(failure)) {
+                circuitBreaker.recordSuccess();
+                throw failure;
+            }
+            circuitBreaker.recordFailure();
+            boolean throttled = retryPolicy.isThrottled(failure);
+            Duration retryAfter = throttled ? retryPolicy.getRetryAfter(failure) : null;
+            if (throttled && rateLimiter != null) {
+                rateLimiter.onThrottled(retryAfter);
+            }
+            if (attempt >= retryPolicy.getMaxAttempts()) {
+                HTTP_LOGGER.log(Level.WARNING, "Giving up on " + description + " after " + attempt + " attempts",
+                        failure);
+                throw failure;
+            }
+
+            long backoffMillis = retryPolicy.getBackoff(attempt).toMillis();
+            if (retryAfter != null && rateLimiter == null) {
+                // a rate limiter already pauses every attempt for the Retry-After delay
+                backoffMillis = Math.max(backoffMillis, retryAfter.toMillis());
+            }
+            HTTP_LOGGER.log(Level.INFO, "Attempt " + attempt + " for " + description + " failed (" +
+                    failure.getMessage() + "), retrying in " + backoffMillis + " ms");
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                failure.addSuppressed(exception);
+                throw failure;
+            }
+        }
+    }
+
+}
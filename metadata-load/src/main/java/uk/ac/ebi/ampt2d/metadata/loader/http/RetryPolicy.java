@@ -0,0 +1,134 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which failed HTTP calls are retried and how long to wait before the next attempt.
+ *
+ * Server errors, 429 Too Many Requests and I/O errors are retried. The backoff grows exponentially from
+ * {@code initialBackoff} up to {@code maxBackoff} and a uniformly random delay below that bound is used ("full
+ * jitter"), so concurrent workers that failed together do not retry together.
+ */
+public class RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 4;
+
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(500);
+
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final int maxAttempts;
+
+    private final Duration initialBackoff;
+
+    private final Duration maxBackoff;
+
+    public RetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF);
+    }
+
+    /**
+     * @param maxAttempts total number of attempts, including the first one
+     * @param initialBackoff upper bound of the delay before the second attempt
+     * @param maxBackoff upper bound of the delay before any attempt
+     */
+    public RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The maximum number of attempts must be positive");
+        }
+        if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("The backoff must be positive and not exceed the maximum backoff");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean isRetryable(Exception exception) {
+        if (exception instanceof HttpClientErrorException) {
+            return isThrottled(exception);
+        }
+        return exception instanceof HttpServerErrorException || exception instanceof ResourceAccessException;
+    }
+
+    /**
+     * @return true if the upstream answered 429 Too Many Requests
+     */
+    public boolean isThrottled(Exception exception) {
+        return exception instanceof HttpClientErrorException &&
+                ((HttpClientErrorException) exception).getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * @return the delay of the Retry-After header of a failed response, in seconds or as an HTTP date, or null if the
+     * response has no valid header
+     */
+    public Duration getRetryAfter(Exception exception) {
+        if (!(exception instanceof HttpStatusCodeException)) {
+            return null;
+        }
+        HttpHeaders headers = ((HttpStatusCodeException) exception).getResponseHeaders();
+        String retryAfter = (headers != null) ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (retryAfter == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                Duration delay = Duration.between(Instant.now(),
+                        ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException notDate) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @param failedAttempts number of attempts that already failed, at least 1
+     * @return delay to wait before the next attempt
+     */
+    public Duration getBackoff(int failedAttempts) {
+        long boundMillis = maxBackoff.toMillis();
+        int doublings = failedAttempts - 1;
+        if (doublings < Long.numberOfLeadingZeros(initialBackoff.toMillis()) - 1) {
+            boundMillis = Math.min(boundMillis, initialBackoff.toMillis() << doublings);
+        }
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(boundMillis + 1));
+    }
+
+}
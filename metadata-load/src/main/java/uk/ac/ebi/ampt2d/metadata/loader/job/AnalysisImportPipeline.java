@@ -0,0 +1,385 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.job;
+
+import uk.ac.ebi.ampt2d.metadata.converter.SraToAmpt2dConverter;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraAnalysisDocumentLoader;
+import uk.ac.ebi.ampt2d.metadata.loader.metrics.LoaderMetrics;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FileService;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+import uk.ac.ebi.ena.sra.xml.AnalysisFileType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Imports the files of a list of analyses with the fetch, parse/convert and write steps running concurrently.
+ *
+ * Each step is a {@link PipelineStage} fed by a bounded queue: I/O-bound workers fetch the raw XML, CPU-bound workers
+ * parse it and convert the files, and a single writer upserts the files in batches. A full queue blocks the stage
+ * feeding it, so a slow stage holds back the earlier ones instead of letting the queued items grow without limit. The
+ * depth and throughput of every stage are logged after each batch and published as gauges when {@link LoaderMetrics}
+ * are set.
+ *
+ * Accessions that can not be fetched or parsed are logged and counted as failed. A failure to save a batch stops the
+ * whole pipeline and is thrown by {@link #run(List)}.
+ */
+public class AnalysisImportPipeline {
+
+    public static final int DEFAULT_FETCH_WORKERS = 8;
+
+    public static final int DEFAULT_CONVERT_WORKERS = Runtime.getRuntime().availableProcessors();
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 500;
+
+    private static final Logger IMPORT_LOGGER = Logger.getLogger(AnalysisImportPipeline.class.getName());
+
+    private static final long POLL_MILLIS = 100;
+
+    private static final String METRICS_PREFIX = "loader.pipeline.";
+
+    // Compared by identity, so it can not be mistaken for a real accession
+    private static final String END_OF_ACCESSIONS = new String("END_OF_ACCESSIONS");
+
+    private static final FetchedAnalysis END_OF_FETCHED_ANALYSES = new FetchedAnalysis(null, null);
+
+    private static final ConvertedAnalysis END_OF_CONVERTED_ANALYSES = new ConvertedAnalysis(null);
+
+    private SraAnalysisDocumentLoader analysisDocumentLoader;
+
+    private SraToAmpt2dConverter<AnalysisFileType, File> fileConverter;
+
+    private FileService fileService;
+
+    private int fetchWorkers;
+
+    private int convertWorkers;
+
+    private int queueCapacity;
+
+    private int writeBatchSize;
+
+    private LoaderMetrics loaderMetrics;
+
+    private volatile List<PipelineStage> stages = Collections.emptyList();
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    public AnalysisImportPipeline(SraAnalysisDocumentLoader analysisDocumentLoader,
+                                  SraToAmpt2dConverter<AnalysisFileType, File> fileConverter,
+                                  FileService fileService) {
+        this(analysisDocumentLoader, fileConverter, fileService, DEFAULT_FETCH_WORKERS, DEFAULT_CONVERT_WORKERS,
+                DEFAULT_QUEUE_CAPACITY, DEFAULT_WRITE_BATCH_SIZE);
+    }
+
+    /**
+     * @param fetchWorkers number of threads fetching XML, the loader's concurrency cap still applies
+     * @param convertWorkers number of threads parsing XML and converting files
+     * @param queueCapacity capacity of the queue in front of each stage
+     * @param writeBatchSize number of files after which the writer saves a batch
+     */
+    public AnalysisImportPipeline(SraAnalysisDocumentLoader analysisDocumentLoader,
+                                  SraToAmpt2dConverter<AnalysisFileType, File> fileConverter,
+                                  FileService fileService, int fetchWorkers, int convertWorkers,
+                                  int queueCapacity, int writeBatchSize) {
+        if (fetchWorkers < 1 || convertWorkers < 1 || queueCapacity < 1 || writeBatchSize < 1) {
+            throw new IllegalArgumentException("The workers, queue capacity and batch size must be positive");
+        }
+        this.analysisDocumentLoader = analysisDocumentLoader;
+        this.fileConverter = fileConverter;
+        this.fileService = fileService;
+        this.fetchWorkers = fetchWorkers;
+        this.convertWorkers = convertWorkers;
+        this.queueCapacity = queueCapacity;
+        this.writeBatchSize = writeBatchSize;
+    }
+
+    public void setLoaderMetrics(LoaderMetrics loaderMetrics) {
+        this.loaderMetrics = loaderMetrics;
+    }
+
+    /**
+     * @return the stages of the current or last run
+     */
+    public List<PipelineStage> getStages() {
+        return stages;
+    }
+
+    /**
+     * Runs the pipeline until every accession is saved or has failed. Not meant to be called concurrently.
+     *
+     * @return the counters of this run
+     */
+    public ImportProgress run(List<String> accessions) {
+        BlockingQueue<String> fetchQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<FetchedAnalysis> convertQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<ConvertedAnalysis> writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        PipelineStage fetchStage = new PipelineStage("fetch", fetchQueue, fetchWorkers);
+        PipelineStage convertStage = new PipelineStage("convert", convertQueue, convertWorkers);
+        PipelineStage writeStage = new PipelineStage("write", writeQueue, 1);
+        stages = Collections.unmodifiableList(Arrays.asList(fetchStage, convertStage, writeStage));
+        registerGauges();
+        failure.set(null);
+
+        ImportProgress progress = new ImportProgress(accessions.size(), 0);
+        ExecutorService fetchPool = newPool(fetchStage, fetchWorkers);
+        ExecutorService convertPool = newPool(convertStage, convertWorkers);
+        ExecutorService writePool = newPool(writeStage, 1);
+        try {
+            AtomicInteger activeFetchWorkers = new AtomicInteger(fetchWorkers);
+            for (int i = 0; i < fetchWorkers; i++) {
+                fetchPool.execute(() -> runWorker(() -> {
+                    fetch(fetchQueue, convertQueue, fetchStage, progress);
+                    if (activeFetchWorkers.decrementAndGet() == 0) {
+                        for (int j = 0; j < convertWorkers; j++) {
+                            put(convertQueue, END_OF_FETCHED_ANALYSES);
+                        }
+                    }
+                }));
+            }
+            AtomicInteger activeConvertWorkers = new AtomicInteger(convertWorkers);
+            for (int i = 0; i < convertWorkers; i++) {
+                convertPool.execute(() -> runWorker(() -> {
+                    convert(convertQueue, writeQueue, convertStage, progress);
+                    if (activeConvertWorkers.decrementAndGet() == 0) {
+                        put(writeQueue, END_OF_CONVERTED_ANALYSES);
+                    }
+                }));
+            }
+            Future<?> writer = writePool.submit(() -> runWorker(() -> write(writeQueue, writeStage, progress)));
+
+            runWorker(() -> {
+                for (String accession : accessions) {
+                    put(fetchQueue, accession);
+                }
+                for (int i = 0; i < fetchWorkers; i++) {
+                    put(fetchQueue, END_OF_ACCESSIONS);
+                }
+            });
+            writer.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, exception);
+        } catch (ExecutionException exception) {
+            failure.compareAndSet(null, exception.getCause());
+        } finally {
+            fetchPool.shutdownNow();
+            convertPool.shutdownNow();
+            writePool.shutdownNow();
+        }
+
+        Throwable pipelineFailure = failure.get();
+        if (pipelineFailure != null) {
+            IMPORT_LOGGER.log(Level.SEVERE, "Import pipeline stopped: " + progress + "; " + stages, pipelineFailure);
+            if (pipelineFailure instanceof RuntimeException) {
+                throw (RuntimeException) pipelineFailure;
+            }
+            throw new IllegalStateException("Import pipeline stopped", pipelineFailure);
+        }
+        IMPORT_LOGGER.info("Import pipeline finished: " + progress + "; " + stages);
+        return progress;
+    }
+
+    private void fetch(BlockingQueue<String> fetchQueue, BlockingQueue<FetchedAnalysis> convertQueue,
+                       PipelineStage fetchStage, ImportProgress progress) {
+        String accession;
+        while ((accession = take(fetchQueue)) != END_OF_ACCESSIONS) {
+            long start = System.nanoTime();
+            String xmlString;
+            try {
+                xmlString = analysisDocumentLoader.fetchAnalysisXml(accession);
+            } catch (RuntimeException exception) {
+                recordFailure(accession, exception, progress);
+                continue;
+            } finally {
+                fetchStage.recordItems(1, System.nanoTime() - start);
+            }
+            put(convertQueue, new FetchedAnalysis(accession, xmlString));
+        }
+    }
+
+    private void convert(BlockingQueue<FetchedAnalysis> convertQueue, BlockingQueue<ConvertedAnalysis> writeQueue,
+                         PipelineStage convertStage, ImportProgress progress) {
+        FetchedAnalysis fetchedAnalysis;
+        while ((fetchedAnalysis = take(convertQueue)) != END_OF_FETCHED_ANALYSES) {
+            long start = System.nanoTime();
+            List<File> files;
+            try {
+                ANALYSISDocument analysisDocument = analysisDocumentLoader.parseAnalysisXml(
+                        fetchedAnalysis.xmlString, fetchedAnalysis.accession);
+                files = (analysisDocument.getANALYSIS().getFILES() != null) ? fileConverter.convertModels(
+                        Arrays.asList(analysisDocument.getANALYSIS().getFILES().getFILEArray())) :
+                        Collections.emptyList();
+            } catch (RuntimeException exception) {
+                recordFailure(fetchedAnalysis.accession, exception, progress);
+                continue;
+            } finally {
+                convertStage.recordItems(1, System.nanoTime() - start);
+            }
+            put(writeQueue, new ConvertedAnalysis(files));
+        }
+    }
+
+    private void write(BlockingQueue<ConvertedAnalysis> writeQueue, PipelineStage writeStage,
+                       ImportProgress progress) throws InterruptedException {
+        List<File> batch = new ArrayList<>(writeBatchSize);
+        int batchAnalyses = 0;
+        while (true) {
+            checkNotStopped();
+            ConvertedAnalysis convertedAnalysis = writeQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            boolean endOfAnalyses = convertedAnalysis == END_OF_CONVERTED_ANALYSES;
+            if (convertedAnalysis != null && !endOfAnalyses) {
+                batch.addAll(convertedAnalysis.files);
+                batchAnalyses++;
+            }
+            // A batch is also saved when the queue runs dry, so files do not wait for a slow upstream stage
+            if (batchAnalyses > 0 && (batch.size() >= writeBatchSize || convertedAnalysis == null || endOfAnalyses)) {
+                long start = System.nanoTime();
+                fileService.upsert(batch);
+                writeStage.recordItems(batchAnalyses, System.nanoTime() - start);
+                progress.addChunk(batchAnalyses, 0, batch.size());
+                IMPORT_LOGGER.info(progress + "; " + stages);
+                batch = new ArrayList<>(writeBatchSize);
+                batchAnalyses = 0;
+            }
+            if (endOfAnalyses) {
+                return;
+            }
+        }
+    }
+
+    private void recordFailure(String accession, RuntimeException exception, ImportProgress progress) {
+        IMPORT_LOGGER.log(Level.WARNING, "Analysis " + accession + " was not imported: " + exception);
+        progress.addChunk(0, 1, 0);
+        if (loaderMetrics != null) {
+            loaderMetrics.increment(METRICS_PREFIX + "failed");
+        }
+    }
+
+    private void registerGauges() {
+        if (loaderMetrics == null) {
+            return;
+        }
+        for (PipelineStage stage : stages) {
+            String prefix = METRICS_PREFIX + stage.getName() + ".";
+            loaderMetrics.registerGauge(prefix + "queue-depth", stage::getQueueDepth);
+            loaderMetrics.registerGauge(prefix + "processed", stage::getProcessedItems);
+            loaderMetrics.registerGauge(prefix + "items-per-second", stage::getItemsPerSecond);
+            loaderMetrics.registerGauge(prefix + "busy-ratio", stage::getBusyRatio);
+        }
+    }
+
+    /**
+     * Runs one worker's loop, recording the first unexpected failure so every other worker stops too
+     */
+    private void runWorker(Worker worker) {
+        try {
+            worker.run();
+        } catch (CancellationException exception) {
+            // Another worker failed and already recorded why
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, exception);
+        } catch (RuntimeException | Error exception) {
+            failure.compareAndSet(null, exception);
+        }
+    }
+
+    private <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkNotStopped();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted");
+        }
+    }
+
+    private <T> T take(BlockingQueue<T> queue) {
+        try {
+            T item;
+            while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                checkNotStopped();
+            }
+            return item;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted");
+        }
+    }
+
+    private void checkNotStopped() {
+        if (failure.get() != null) {
+            throw new CancellationException("Import pipeline stopped");
+        }
+    }
+
+    private static ExecutorService newPool(PipelineStage stage, int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "import-" + stage.getName() + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+        void run() throws InterruptedException;
+    }
+
+    private static final class FetchedAnalysis {
+
+        private final String accession;
+
+        private final String xmlString;
+
+        private FetchedAnalysis(String accession, String xmlString) {
+            this.accession = accession;
+            this.xmlString = xmlString;
+        }
+    }
+
+    private static final class ConvertedAnalysis {
+
+        private final List<File> files;
+
+        private ConvertedAnalysis(List<File> files) {
+            this.files = files;
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.job;
+
+import uk.ac.ebi.ampt2d.metadata.converter.SraToAmpt2dConverter;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraObjectLoadResult;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraObjectLoaderByAccession;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FileService;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+import uk.ac.ebi.ena.sra.xml.AnalysisFileType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Imports the files of every analysis listed in an accession file into the metadata repositories.
+ *
+ * The accession file holds one analysis accession per line, blank lines and lines starting with '#' are ignored. The
+ * accessions are fetched and converted in chunks of {@code chunkSize}, and the files of a chunk are upserted in a single
+ * {@link FileService} call, so files imported again are not duplicated. The {@link ImportCheckpoint} is saved after
+ * each chunk is committed, so a job restarted with the same accession file and checkpoint resumes after the last
+ * committed accession. Accessions that can not be loaded are logged and counted as failed, they do not stop the job.
+ */
+public class BulkImportJob {
+
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    private static final Logger IMPORT_LOGGER = Logger.getLogger(BulkImportJob.class.getName());
+
+    private static final String COMMENT_PREFIX = "#";
+
+    private SraObjectLoaderByAccession<ANALYSISDocument> analysisDocumentLoader;
+
+    private SraToAmpt2dConverter<AnalysisFileType, File> fileConverter;
+
+    private FileService fileService;
+
+    private ImportCheckpoint checkpoint;
+
+    private int chunkSize;
+
+    public BulkImportJob(SraObjectLoaderByAccession<ANALYSISDocument> analysisDocumentLoader,
+                         SraToAmpt2dConverter<AnalysisFileType, File> fileConverter, FileService fileService,
+                         ImportCheckpoint checkpoint) {
+        this(analysisDocumentLoader, fileConverter, fileService, checkpoint, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkImportJob(SraObjectLoaderByAccession<ANALYSISDocument> analysisDocumentLoader,
+                         SraToAmpt2dConverter<AnalysisFileType, File> fileConverter, FileService fileService,
+                         ImportCheckpoint checkpoint, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size must be positive");
+        }
+        this.analysisDocumentLoader = analysisDocumentLoader;
+        this.fileConverter = fileConverter;
+        this.fileService = fileService;
+        this.checkpoint = checkpoint;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param accessionsFile file with the analysis accessions to import
+     * @return the counters of this run
+     * @throws IllegalStateException if the checkpoint does not match the accession file
+     */
+    public ImportProgress run(Path accessionsFile) throws IOException {
+        long totalAccessions;
+        try (Stream<String> accessions = readAccessions(accessionsFile)) {
+            totalAccessions = accessions.count();
+        }
+        long committedAccessions = checkpoint.getCommittedAccessions();
+        ImportProgress progress = new ImportProgress(totalAccessions, committedAccessions);
+        if (committedAccessions > 0) {
+            IMPORT_LOGGER.info("Resuming import of " + accessionsFile + " after accession " +
+                    checkpoint.getLastCommittedAccession() + " (" + committedAccessions + " already committed)");
+        }
+
+        try (Stream<String> accessions = readAccessions(accessionsFile)) {
+            List<String> chunk = new ArrayList<>(chunkSize);
+            long position = 0;
+            for (String accession : (Iterable<String>) accessions::iterator) {
+                position++;
+                if (position < committedAccessions) {
+                    continue;
+                }
+                if (position == committedAccessions) {
+                    verifyCheckpoint(accession);
+                    continue;
+                }
+                chunk.add(accession);
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, position, progress);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (position < committedAccessions) {
+                throw new IllegalStateException("The checkpoint is past the end of " + accessionsFile);
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, position, progress);
+            }
+        }
+        IMPORT_LOGGER.info("Import of " + accessionsFile + " finished: " + progress);
+        return progress;
+    }
+
+    private void verifyCheckpoint(String accession) {
+        if (!accession.equals(checkpoint.getLastCommittedAccession())) {
+            throw new IllegalStateException("The checkpoint expects accession " +
+                    checkpoint.getLastCommittedAccession() + " at line " + checkpoint.getCommittedAccessions() +
+                    " but found " + accession + ", the accession file has changed");
+        }
+    }
+
+    private void importChunk(List<String> chunk, long committedAccessions, ImportProgress progress) {
+        SraObjectLoadResult<ANALYSISDocument> loadResult = analysisDocumentLoader.loadSraObjects(chunk);
+        loadResult.getFailures().forEach((accession, failure) -> IMPORT_LOGGER.log(Level.WARNING,
+                "Analysis " + accession + " was not imported: " + failure));
+
+        List<File> files = new ArrayList<>();
+        for (ANALYSISDocument analysisDocument : loadResult.getSraObjects().values()) {
+            if (analysisDocument.getANALYSIS().getFILES() != null) {
+                fileConverter.convertModels(Arrays.asList(analysisDocument.getANALYSIS().getFILES().getFILEArray()),
+                        files::add);
+            }
+        }
+        fileService.upsert(files);
+        checkpoint.save(committedAccessions, chunk.get(chunk.size() - 1));
+
+        progress.addChunk(loadResult.getSraObjects().size(), loadResult.getFailures().size(), files.size());
+        IMPORT_LOGGER.info(progress.toString());
+    }
+
+    private static Stream<String> readAccessions(Path accessionsFile) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(accessionsFile, StandardCharsets.UTF_8);
+        return reader.lines()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith(COMMENT_PREFIX))
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException exception) {
+                        IMPORT_LOGGER.log(Level.WARNING, "Can not close " + accessionsFile, exception);
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.job;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Remembers how far a {@link BulkImportJob} got through its accession list.
+ *
+ * The checkpoint is a properties file holding the number of accessions committed so far and the last of them. It is
+ * written to a temporary file and moved in place, so a crash while saving leaves the previous checkpoint intact.
+ */
+public class ImportCheckpoint {
+
+    private static final String COMMITTED_ACCESSIONS = "committed-accessions";
+
+    private static final String LAST_COMMITTED_ACCESSION = "last-committed-accession";
+
+    private final Path checkpointFile;
+
+    private long committedAccessions;
+
+    private String lastCommittedAccession;
+
+    public ImportCheckpoint(Path checkpointFile) {
+        this.checkpointFile = checkpointFile;
+        if (Files.exists(checkpointFile)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException exception) {
+                throw new UncheckedIOException("Can not read checkpoint " + checkpointFile, exception);
+            }
+            committedAccessions = Long.parseLong(properties.getProperty(COMMITTED_ACCESSIONS));
+            lastCommittedAccession = properties.getProperty(LAST_COMMITTED_ACCESSION);
+        }
+    }
+
+    /**
+     * @return number of accessions at the start of the list that are already committed
+     */
+    public long getCommittedAccessions() {
+        return committedAccessions;
+    }
+
+    /**
+     * @return last committed accession, or null if nothing was committed yet
+     */
+    public String getLastCommittedAccession() {
+        return lastCommittedAccession;
+    }
+
+    public void save(long committedAccessions, String lastCommittedAccession) {
+        Properties properties = new Properties();
+        properties.setProperty(COMMITTED_ACCESSIONS, Long.toString(committedAccessions));
+        properties.setProperty(LAST_COMMITTED_ACCESSION, lastCommittedAccession);
+        try {
+            Path directory = checkpointFile.toAbsolutePath().getParent();
+            Path temporaryFile = Files.createTempFile(directory, checkpointFile.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Can not save checkpoint " + checkpointFile, exception);
+        }
+        this.committedAccessions = committedAccessions;
+        this.lastCommittedAccession = lastCommittedAccession;
+    }
+
+}
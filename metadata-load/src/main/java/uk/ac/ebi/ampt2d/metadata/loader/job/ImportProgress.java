@@ -0,0 +1,121 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.job;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Counters of a running {@link BulkImportJob} or {@link AnalysisImportPipeline}, with the throughput and estimated
+ * time left derived from them.
+ *
+ * The counters may be updated from several threads. The throughput only covers the accessions processed by this
+ * run, so accessions skipped on resume do not inflate it.
+ */
+public class ImportProgress {
+
+    private final long totalAccessions;
+
+    private final long skippedAccessions;
+
+    private final long startNanos;
+
+    private long importedAccessions;
+
+    private long failedAccessions;
+
+    private long savedFiles;
+
+    private long unchangedAccessions;
+
+    public ImportProgress(long totalAccessions, long skippedAccessions) {
+        this.totalAccessions = totalAccessions;
+        this.skippedAccessions = skippedAccessions;
+        this.startNanos = System.nanoTime();
+    }
+
+    synchronized void addChunk(long imported, long failed, long files) {
+        importedAccessions += imported;
+        failedAccessions += failed;
+        savedFiles += files;
+    }
+
+    /**
+     * Counts accessions that were loaded but whose stored files were already up to date, they are also imported
+     */
+    synchronized void addUnchanged(long unchanged) {
+        unchangedAccessions += unchanged;
+    }
+
+    public long getTotalAccessions() {
+        return totalAccessions;
+    }
+
+    public long getSkippedAccessions() {
+        return skippedAccessions;
+    }
+
+    public synchronized long getImportedAccessions() {
+        return importedAccessions;
+    }
+
+    public synchronized long getFailedAccessions() {
+        return failedAccessions;
+    }
+
+    public synchronized long getSavedFiles() {
+        return savedFiles;
+    }
+
+    public synchronized long getUnchangedAccessions() {
+        return unchangedAccessions;
+    }
+
+    public synchronized long getProcessedAccessions() {
+        return importedAccessions + failedAccessions;
+    }
+
+    public double getAccessionsPerSecond() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        return (elapsedNanos > 0) ? getProcessedAccessions() * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * @return estimated time to process the remaining accessions, or null while the throughput is unknown
+     */
+    public Duration getEstimatedTimeLeft() {
+        double accessionsPerSecond = getAccessionsPerSecond();
+        if (accessionsPerSecond <= 0) {
+            return null;
+        }
+        long remaining = totalAccessions - skippedAccessions - getProcessedAccessions();
+        return Duration.ofSeconds((long) Math.ceil(remaining / accessionsPerSecond));
+    }
+
+    @Override
+    public synchronized String toString() {
+        long done = skippedAccessions + getProcessedAccessions();
+        Duration estimatedTimeLeft = getEstimatedTimeLeft();
+        return String.format(Locale.ROOT, "%d/%d accessions (%.1f%%), %d failed, %d files, %.1f accessions/s, ETA %s",
+                done, totalAccessions, (totalAccessions > 0) ? 100.0 * done / totalAccessions : 100.0,
+                failedAccessions, savedFiles, getAccessionsPerSecond(),
+                (estimatedTimeLeft != null) ? estimatedTimeLeft : "unknown") +
+                ((unchangedAccessions > 0) ? ", " + unchangedAccessions + " unchanged" : "");
+    }
+
+}
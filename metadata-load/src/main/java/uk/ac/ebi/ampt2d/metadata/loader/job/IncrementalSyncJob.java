@@ -0,0 +1,254 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.job;
+
+import uk.ac.ebi.ampt2d.metadata.converter.SraToAmpt2dConverter;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraObjectLoadResult;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraObjectLoaderByAccession;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.AccessionVersionId;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FileService;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+import uk.ac.ebi.ena.sra.xml.AnalysisFileType;
+import uk.ac.ebi.ena.sra.xml.AnalysisType;
+import uk.ac.ebi.ena.sra.xml.AttributeType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Imports only the analyses that changed upstream since the previous run.
+ *
+ * The job reads a discovery list, for example an ENA portal search export, with one analysis accession per line and
+ * optionally its last-updated date after a tab. Accessions last updated before the stored high-water mark are not
+ * fetched at all. The others are fetched in chunks; the ENA-LAST-UPDATE attribute of each analysis, when present,
+ * replaces the discovery date, and analyses whose stored files all have a {@code lastModifiedDate} on or after it are
+ * not written. The high-water mark then moves up to the latest date synced, but never past an accession that failed,
+ * so the next run picks the failures up again. Dates are compared by day, and the day of the mark is synced again
+ * because ENA dates carry no time.
+ */
+public class IncrementalSyncJob {
+
+    public static final String ANALYSIS_ENTITY_TYPE = "analysis";
+
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    static final List<String> LAST_UPDATE_ATTRIBUTES = Arrays.asList("ENA-LAST-UPDATE", "ENA-LAST-UPDATED");
+
+    private static final Logger SYNC_LOGGER = Logger.getLogger(IncrementalSyncJob.class.getName());
+
+    private static final String COMMENT_PREFIX = "#";
+
+    private static final String HEADER_PREFIX = "accession";
+
+    private SraObjectLoaderByAccession<ANALYSISDocument> analysisDocumentLoader;
+
+    private SraToAmpt2dConverter<AnalysisFileType, File> fileConverter;
+
+    private FileService fileService;
+
+    private SyncWatermarkStore watermarkStore;
+
+    private int chunkSize;
+
+    public IncrementalSyncJob(SraObjectLoaderByAccession<ANALYSISDocument> analysisDocumentLoader,
+                              SraToAmpt2dConverter<AnalysisFileType, File> fileConverter, FileService fileService,
+                              SyncWatermarkStore watermarkStore) {
+        this(analysisDocumentLoader, fileConverter, fileService, watermarkStore, DEFAULT_CHUNK_SIZE);
+    }
+
+    public IncrementalSyncJob(SraObjectLoaderByAccession<ANALYSISDocument> analysisDocumentLoader,
+                              SraToAmpt2dConverter<AnalysisFileType, File> fileConverter, FileService fileService,
+                              SyncWatermarkStore watermarkStore, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size must be positive");
+        }
+        this.analysisDocumentLoader = analysisDocumentLoader;
+        this.fileConverter = fileConverter;
+        this.fileService = fileService;
+        this.watermarkStore = watermarkStore;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param discoveryFile file with the candidate analysis accessions and their last-updated dates
+     * @return the counters of this run, accessions older than the high-water mark are counted as skipped
+     */
+    public ImportProgress run(Path discoveryFile) throws IOException {
+        Map<String, LocalDate> discoveredAccessions = readDiscoveryList(discoveryFile);
+        LocalDate watermark = watermarkStore.getWatermark(ANALYSIS_ENTITY_TYPE);
+        List<String> changedAccessions = discoveredAccessions.entrySet().stream()
+                .filter(entry -> watermark == null || entry.getValue() == null || !entry.getValue().isBefore(watermark))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        ImportProgress progress = new ImportProgress(discoveredAccessions.size(),
+                discoveredAccessions.size() - changedAccessions.size());
+        SYNC_LOGGER.info(changedAccessions.size() + " of " + discoveredAccessions.size() + " analyses changed since " +
+                ((watermark != null) ? watermark : "the beginning"));
+
+        LocalDate latestSynced = null;
+        LocalDate earliestFailed = null;
+        for (int from = 0; from < changedAccessions.size(); from += chunkSize) {
+            List<String> chunk = changedAccessions.subList(from, Math.min(from + chunkSize, changedAccessions.size()));
+            Map<String, LocalDate> syncedDates = syncChunk(chunk, discoveredAccessions, progress);
+            for (String accession : chunk) {
+                if (syncedDates.containsKey(accession)) {
+                    latestSynced = max(latestSynced, syncedDates.get(accession));
+                } else {
+                    earliestFailed = min(earliestFailed, discoveredAccessions.get(accession));
+                }
+            }
+        }
+
+        LocalDate newWatermark = (earliestFailed != null) ? min(latestSynced, earliestFailed) : latestSynced;
+        if (newWatermark != null && (watermark == null || newWatermark.isAfter(watermark))) {
+            watermarkStore.saveWatermark(ANALYSIS_ENTITY_TYPE, newWatermark);
+            SYNC_LOGGER.info("Analyses synced up to " + newWatermark);
+        }
+        SYNC_LOGGER.info("Sync of " + discoveryFile + " finished: " + progress);
+        return progress;
+    }
+
+    /**
+     * @return the last-updated date of every accession synced, undated ones are left out of the map
+     */
+    private Map<String, LocalDate> syncChunk(List<String> chunk, Map<String, LocalDate> discoveredAccessions,
+                                             ImportProgress progress) {
+        SraObjectLoadResult<ANALYSISDocument> loadResult = analysisDocumentLoader.loadSraObjects(chunk);
+        loadResult.getFailures().forEach((accession, failure) -> SYNC_LOGGER.log(Level.WARNING,
+                "Analysis " + accession + " was not synced: " + failure));
+
+        Map<String, LocalDate> syncedDates = new HashMap<>();
+        Map<String, List<File>> accessionsToFiles = new HashMap<>();
+        List<AccessionVersionId> accessionVersionIds = new ArrayList<>();
+        for (Map.Entry<String, ANALYSISDocument> loaded : loadResult.getSraObjects().entrySet()) {
+            AnalysisType analysis = loaded.getValue().getANALYSIS();
+            LocalDate lastUpdate = getLastUpdate(analysis);
+            syncedDates.put(loaded.getKey(), (lastUpdate != null) ? lastUpdate :
+                    discoveredAccessions.get(loaded.getKey()));
+            List<File> files = (analysis.getFILES() != null) ?
+                    fileConverter.convertModels(Arrays.asList(analysis.getFILES().getFILEArray())) :
+                    Collections.emptyList();
+            accessionsToFiles.put(loaded.getKey(), files);
+            files.forEach(file -> accessionVersionIds.add(file.getAccessionVersionId()));
+        }
+
+        Map<AccessionVersionId, ZonedDateTime> lastModifiedDates = fileService.findLastModifiedDates(
+                accessionVersionIds);
+        List<File> filesToSave = new ArrayList<>();
+        int unchangedAccessions = 0;
+        for (Map.Entry<String, List<File>> analysisFiles : accessionsToFiles.entrySet()) {
+            if (isUpToDate(analysisFiles.getValue(), syncedDates.get(analysisFiles.getKey()), lastModifiedDates)) {
+                unchangedAccessions++;
+            } else {
+                filesToSave.addAll(analysisFiles.getValue());
+            }
+        }
+        if (!filesToSave.isEmpty()) {
+            fileService.upsert(filesToSave);
+        }
+
+        progress.addChunk(loadResult.getSraObjects().size(), loadResult.getFailures().size(), filesToSave.size());
+        progress.addUnchanged(unchangedAccessions);
+        SYNC_LOGGER.info(progress.toString());
+        syncedDates.values().removeIf(date -> date == null);
+        return syncedDates;
+    }
+
+    private static boolean isUpToDate(List<File> files, LocalDate lastUpdate,
+                                      Map<AccessionVersionId, ZonedDateTime> lastModifiedDates) {
+        if (lastUpdate == null || files.isEmpty()) {
+            return false;
+        }
+        // ENA only gives the day of the last update, files stored on that same day may predate it
+        for (File file : files) {
+            ZonedDateTime lastModified = lastModifiedDates.get(file.getAccessionVersionId());
+            if (lastModified == null ||
+                    !lastModified.withZoneSameInstant(ZoneOffset.UTC).toLocalDate().isAfter(lastUpdate)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static LocalDate getLastUpdate(AnalysisType analysis) {
+        if (analysis.getANALYSISATTRIBUTES() == null) {
+            return null;
+        }
+        for (AttributeType attribute : analysis.getANALYSISATTRIBUTES().getANALYSISATTRIBUTEArray()) {
+            if (LAST_UPDATE_ATTRIBUTES.contains(attribute.getTAG())) {
+                return parseDate(attribute.getVALUE());
+            }
+        }
+        return null;
+    }
+
+    static Map<String, LocalDate> readDiscoveryList(Path discoveryFile) throws IOException {
+        Map<String, LocalDate> discoveredAccessions = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(discoveryFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith(COMMENT_PREFIX) || line.startsWith(HEADER_PREFIX)) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                discoveredAccessions.put(columns[0].trim(), (columns.length > 1) ? parseDate(columns[1]) : null);
+            }
+        }
+        return discoveredAccessions;
+    }
+
+    private static LocalDate parseDate(String date) {
+        if (date == null || date.trim().length() < 10) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date.trim().substring(0, 10));
+        } catch (DateTimeParseException exception) {
+            SYNC_LOGGER.log(Level.WARNING, "Ignoring invalid date " + date);
+            return null;
+        }
+    }
+
+    private static LocalDate max(LocalDate first, LocalDate second) {
+        return (first == null || (second != null && second.isAfter(first))) ? second : first;
+    }
+
+    private static LocalDate min(LocalDate first, LocalDate second) {
+        return (first == null || (second != null && second.isBefore(first))) ? second : first;
+    }
+
+}
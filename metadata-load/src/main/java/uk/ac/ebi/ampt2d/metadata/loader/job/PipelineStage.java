@@ -0,0 +1,87 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.job;
+
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One stage of an {@link AnalysisImportPipeline}: the bounded queue feeding it and how busy its workers are.
+ *
+ * A stage whose queue stays full while the next stage's queue stays empty is the bottleneck. The busy ratio is the
+ * share of the workers' time spent processing items rather than waiting for them.
+ */
+public class PipelineStage {
+
+    private final String name;
+
+    private final BlockingQueue<?> inputQueue;
+
+    private final int workers;
+
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder processedItems = new LongAdder();
+
+    private final LongAdder busyNanos = new LongAdder();
+
+    PipelineStage(String name, BlockingQueue<?> inputQueue, int workers) {
+        this.name = name;
+        this.inputQueue = inputQueue;
+        this.workers = workers;
+    }
+
+    void recordItems(long items, long processingNanos) {
+        processedItems.add(items);
+        busyNanos.add(processingNanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return inputQueue.size();
+    }
+
+    public int getQueueCapacity() {
+        return inputQueue.size() + inputQueue.remainingCapacity();
+    }
+
+    public long getProcessedItems() {
+        return processedItems.sum();
+    }
+
+    public double getItemsPerSecond() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        return (elapsedNanos > 0) ? processedItems.sum() * 1e9 / elapsedNanos : 0;
+    }
+
+    public double getBusyRatio() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        return (elapsedNanos > 0) ? Math.min(1.0, busyNanos.sum() / ((double) elapsedNanos * workers)) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: queue %d/%d, %d items, %.1f items/s, %.0f%% busy", name,
+                getQueueDepth(), getQueueCapacity(), getProcessedItems(), getItemsPerSecond(), 100 * getBusyRatio());
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.job;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Properties;
+
+/**
+ * Remembers, per entity type, the upstream last-updated date up to which an {@link IncrementalSyncJob} has synced.
+ *
+ * The high-water marks are kept in a properties file that is written to a temporary file and moved in place, like an
+ * {@link ImportCheckpoint}.
+ */
+public class SyncWatermarkStore {
+
+    private final Path watermarkFile;
+
+    private final Properties watermarks = new Properties();
+
+    public SyncWatermarkStore(Path watermarkFile) {
+        this.watermarkFile = watermarkFile;
+        if (Files.exists(watermarkFile)) {
+            try (Reader reader = Files.newBufferedReader(watermarkFile, StandardCharsets.UTF_8)) {
+                watermarks.load(reader);
+            } catch (IOException exception) {
+                throw new UncheckedIOException("Can not read sync watermarks " + watermarkFile, exception);
+            }
+        }
+    }
+
+    /**
+     * @return the date records of this type were synced up to, or null if the type was never synced
+     */
+    public synchronized LocalDate getWatermark(String entityType) {
+        String watermark = watermarks.getProperty(entityType);
+        return (watermark != null) ? LocalDate.parse(watermark) : null;
+    }
+
+    public synchronized void saveWatermark(String entityType, LocalDate watermark) {
+        watermarks.setProperty(entityType, watermark.toString());
+        try {
+            Path directory = watermarkFile.toAbsolutePath().getParent();
+            Path temporaryFile = Files.createTempFile(directory, watermarkFile.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                watermarks.store(writer, null);
+            }
+            Files.move(temporaryFile, watermarkFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Can not save sync watermarks " + watermarkFile, exception);
+        }
+    }
+
+}
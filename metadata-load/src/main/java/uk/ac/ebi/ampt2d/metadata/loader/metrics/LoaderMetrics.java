@@ -0,0 +1,80 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.metrics;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Counters and gauges of the loader, published as {@code counter.<name>} and {@code gauge.<name>}.
+ *
+ * Registered as a bean next to the actuator, the values show up in the metrics endpoint; outside a Spring context they
+ * can be read with {@link #getCount(String)} or {@link #metrics()}. Counters are cheap to update from many threads.
+ */
+public class LoaderMetrics implements PublicMetrics {
+
+    private static final String COUNTER_PREFIX = "counter.";
+
+    private static final String GAUGE_PREFIX = "gauge.";
+
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<String, Supplier<? extends Number>> gauges = new ConcurrentSkipListMap<>();
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void add(String name, long delta) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+
+    public long getCount(String name) {
+        LongAdder counter = counters.get(name);
+        return (counter != null) ? counter.sum() : 0;
+    }
+
+    /**
+     * @param name name of the gauge, an existing gauge with the same name is replaced
+     * @param gauge supplies the current value every time the metrics are read
+     */
+    public void registerGauge(String name, Supplier<? extends Number> gauge) {
+        gauges.put(name, gauge);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Collection<Metric<?>> metrics = new ArrayList<>(counters.size() + gauges.size());
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            metrics.add(new Metric<>(COUNTER_PREFIX + counter.getKey(), counter.getValue().sum()));
+        }
+        for (Map.Entry<String, Supplier<? extends Number>> gauge : gauges.entrySet()) {
+            metrics.add(new Metric<>(GAUGE_PREFIX + gauge.getKey(), gauge.getValue().get()));
+        }
+        return metrics;
+    }
+
+}
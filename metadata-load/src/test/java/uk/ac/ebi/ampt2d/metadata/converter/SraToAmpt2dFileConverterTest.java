@@ -21,9 +21,15 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import uk.ac.ebi.ampt2d.metadata.loader.metrics.LoaderMetrics;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
 import uk.ac.ebi.ena.sra.xml.AnalysisFileType;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.when;
 
@@ -41,6 +47,68 @@ public class SraToAmpt2dFileConverterTest {
         assertAnalysisFileTypeEqualsFile(analysisFileType, file);
     }
 
+    @Test
+    public void testEverySraFileTypeIsMapped() {
+        AnalysisFileType analysisFile = AnalysisFileType.Factory.newInstance();
+        LoaderMetrics loaderMetrics = new LoaderMetrics();
+        FileTypeConverter fileTypeConverter = new FileTypeConverter(loaderMetrics);
+        for (int i = 1; i <= AnalysisFileType.Filetype.Enum.table.lastInt(); i++) {
+            analysisFile.setFiletype(AnalysisFileType.Filetype.Enum.forInt(i));
+            File.Type fileType = fileTypeConverter.convert(analysisFile).getType();
+            assertEquals(i == AnalysisFileType.Filetype.INT_OTHER, fileType == File.Type.OTHER);
+        }
+        assertEquals(File.Type.BIONANO_NATIVE,
+                convertFileType(fileTypeConverter, AnalysisFileType.Filetype.BIO_NANO_NATIVE));
+        assertEquals(0, loaderMetrics.getCount(FileTypeConverter.UNMAPPED_FILE_TYPE_METRIC));
+    }
+
+    @Test
+    public void testUnmappedFileTypeIsConvertedToOther() {
+        initializeAnalysisFileType();
+        when(analysisFileType.getFiletype()).thenReturn(null);
+        LoaderMetrics loaderMetrics = new LoaderMetrics();
+        File file = new FileTypeConverter(loaderMetrics).convert(analysisFileType);
+        assertEquals(File.Type.OTHER, file.getType());
+        assertEquals(1, loaderMetrics.getCount(FileTypeConverter.UNMAPPED_FILE_TYPE_METRIC));
+    }
+
+    @Test
+    public void testFileConverterIntoSink() {
+        initializeAnalysisFileType();
+        List<File> files = new ArrayList<>();
+        new FileTypeConverter().convertModels(Arrays.asList(analysisFileType, analysisFileType), files::add);
+        assertEquals(2, files.size());
+        files.forEach(file -> assertAnalysisFileTypeEqualsFile(analysisFileType, file));
+    }
+
+    @Test
+    public void testFileConverterInParallel() {
+        List<AnalysisFileType> analysisFileTypes = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            AnalysisFileType analysisFile = AnalysisFileType.Factory.newInstance();
+            analysisFile.setFilename("file" + i + ".vcf.gz");
+            analysisFile.setFiletype(AnalysisFileType.Filetype.VCF);
+            analysisFile.setChecksum("checksum" + i);
+            analysisFileTypes.add(analysisFile);
+        }
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            List<File> files = new FileTypeConverter().convertModels(analysisFileTypes, forkJoinPool);
+            assertEquals(analysisFileTypes.size(), files.size());
+            for (int i = 0; i < files.size(); i++) {
+                assertAnalysisFileTypeEqualsFile(analysisFileTypes.get(i), files.get(i));
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    private File.Type convertFileType(FileTypeConverter fileTypeConverter, AnalysisFileType.Filetype.Enum filetype) {
+        AnalysisFileType analysisFile = AnalysisFileType.Factory.newInstance();
+        analysisFile.setFiletype(filetype);
+        return fileTypeConverter.convert(analysisFile).getType();
+    }
+
     private void initializeAnalysisFileType() {
         when(analysisFileType.getFilename()).thenReturn("EGAF00001");
         when(analysisFileType.getFiletype()).thenReturn(AnalysisFileType.Filetype.VCF);
@@ -25,18 +25,32 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.ampt2d.metadata.loader.http.CircuitBreaker;
+import uk.ac.ebi.ampt2d.metadata.loader.http.ResilientHttpExecutor;
+import uk.ac.ebi.ampt2d.metadata.loader.http.RetryPolicy;
 import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
 import uk.ac.ebi.ena.sra.xml.AnalysisFileType;
+import uk.ac.ebi.ena.sra.xml.AttributeType;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -44,6 +58,7 @@ public class SraAnalysisDocumentAndFileTypeLoaderTest {
 
     private static final String ANALYSIS_ACCESSION = "ERZ496533";
     private static final String ANALYSIS_INVALID_ACCESSION = "ERZ4965336";
+    private static final String ANALYSIS_FAILING_ACCESSION = "ERZ000503";
     private static final String ANALYSIS_DOCUMENT_XML = "AnalysisDocument.xml";
     private static final String ANALYSIS_DOCUMENT_NOT_FOUND = "AnalysisDocumentNotFound.xml";
 
@@ -86,6 +101,75 @@ public class SraAnalysisDocumentAndFileTypeLoaderTest {
         assertEquals(0, accessionsToAnalyses.size());
     }
 
+    @Test
+    public void testConcurrentAnalysisLoad() {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            SraObjectLoaderByAccession<ANALYSISDocument> concurrentLoader =
+                    new SraAnalysisDocumentLoader(restTemplate, executorService, 2);
+            Map<String, ANALYSISDocument> accessionsToAnalyses = concurrentLoader.getSraObjects(
+                    Arrays.asList(ANALYSIS_INVALID_ACCESSION, ANALYSIS_ACCESSION));
+            assertEquals(1, accessionsToAnalyses.size());
+            assertEquals(ANALYSIS_ACCESSION, accessionsToAnalyses.get(ANALYSIS_ACCESSION).getANALYSIS().getAccession());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentAnalysisLoadIsCapped() throws Exception {
+        String notFoundXml = new String(Files.readAllBytes(Paths.get(getClass().getClassLoader()
+                .getResource(ANALYSIS_DOCUMENT_NOT_FOUND).toURI())));
+        AtomicInteger requestsInFlight = new AtomicInteger();
+        AtomicInteger maxRequestsInFlight = new AtomicInteger();
+        // Each request waits for another one to be in flight, so the requests can only complete in overlapping pairs
+        AtomicInteger overlappingPairs = new AtomicInteger();
+        CyclicBarrier overlap = new CyclicBarrier(2, overlappingPairs::incrementAndGet);
+        List<String> accessions = Arrays.asList("ERZ1", "ERZ2", "ERZ3", "ERZ4", "ERZ5", "ERZ6", "ERZ7", "ERZ8");
+        for (String accession : accessions) {
+            when(restTemplate.exchange(SraAnalysisDocumentLoader.getEnaApiUrl(),
+                    HttpMethod.GET, null, String.class, accession)).thenAnswer(invocation -> {
+                maxRequestsInFlight.accumulateAndGet(requestsInFlight.incrementAndGet(), Math::max);
+                try {
+                    overlap.await(5, TimeUnit.SECONDS);
+                } finally {
+                    requestsInFlight.decrementAndGet();
+                }
+                return new ResponseEntity(notFoundXml, HttpStatus.OK);
+            });
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            new SraAnalysisDocumentLoader(restTemplate, executorService, 2).getSraObjects(accessions);
+        } finally {
+            executorService.shutdown();
+        }
+        assertTrue(maxRequestsInFlight.get() <= 2);
+        assertEquals(accessions.size() / 2, overlappingPairs.get());
+    }
+
+    @Test
+    public void testFailedAnalysisIsReportedWithPartialResult() {
+        when(restTemplate.exchange(SraAnalysisDocumentLoader.getEnaApiUrl(),
+                HttpMethod.GET, null, String.class, ANALYSIS_FAILING_ACCESSION))
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+        SraAnalysisDocumentLoader loader = new SraAnalysisDocumentLoader(restTemplate);
+        loader.setHttpExecutor(new ResilientHttpExecutor(new RetryPolicy(3, Duration.ZERO, Duration.ZERO),
+                new CircuitBreaker()));
+
+        SraObjectLoadResult<ANALYSISDocument> loadResult = loader.loadSraObjects(
+                Arrays.asList(ANALYSIS_FAILING_ACCESSION, ANALYSIS_ACCESSION, ANALYSIS_INVALID_ACCESSION));
+
+        assertEquals(1, loadResult.getSraObjects().size());
+        assertEquals(ANALYSIS_ACCESSION, loadResult.getSraObjects().get(ANALYSIS_ACCESSION).getANALYSIS().getAccession());
+        assertEquals(Arrays.asList(ANALYSIS_FAILING_ACCESSION, ANALYSIS_INVALID_ACCESSION),
+                new ArrayList<>(loadResult.getFailures().keySet()));
+        assertTrue(loadResult.getFailures().get(ANALYSIS_FAILING_ACCESSION) instanceof HttpServerErrorException);
+        verify(restTemplate, times(3)).exchange(SraAnalysisDocumentLoader.getEnaApiUrl(),
+                HttpMethod.GET, null, String.class, ANALYSIS_FAILING_ACCESSION);
+    }
+
     @Test
     public void testAnalysisFileTypeLoad() {
         Map<String, List<AnalysisFileType>> analysisAccessionToFiles =
@@ -108,6 +192,37 @@ public class SraAnalysisDocumentAndFileTypeLoaderTest {
         assertEquals(AnalysisFileType.Filetype.VCF, analysisFile2.getFiletype());
     }
 
+    @Test
+    public void testMultiObjectLoadParsesEachAnalysisOnce() {
+        SraAnalysisFileTypeLoader fileTypeLoader = new SraAnalysisFileTypeLoader(sraObjectLoaderByAccession);
+        SraAnalysisStudyRefLoader studyRefLoader = new SraAnalysisStudyRefLoader(sraObjectLoaderByAccession);
+        SraAnalysisAssemblyLoader assemblyLoader = new SraAnalysisAssemblyLoader(sraObjectLoaderByAccession);
+        SraAnalysisPlatformLoader platformLoader = new SraAnalysisPlatformLoader(sraObjectLoaderByAccession);
+        SraAnalysisAttributeLoader attributeLoader = new SraAnalysisAttributeLoader(sraObjectLoaderByAccession);
+        SraAnalysisMultiObjectLoader multiObjectLoader = new SraAnalysisMultiObjectLoader(sraObjectLoaderByAccession)
+                .register(fileTypeLoader)
+                .register(studyRefLoader)
+                .register(assemblyLoader)
+                .register(platformLoader)
+                .register(attributeLoader);
+
+        SraAnalysisExtractionResult extractionResult = multiObjectLoader.loadSraObjects(
+                Arrays.asList(ANALYSIS_ACCESSION, ANALYSIS_INVALID_ACCESSION));
+
+        assertEquals(2, extractionResult.getSraObjects(fileTypeLoader).get(ANALYSIS_ACCESSION).size());
+        assertEquals("ERP107353",
+                extractionResult.getSraObjects(studyRefLoader).get(ANALYSIS_ACCESSION).get(0).getAccession());
+        assertEquals("GCA_000002305.1", extractionResult.getSraObjects(assemblyLoader).get(ANALYSIS_ACCESSION)
+                .get(0).getSTANDARD().getAccession());
+        assertEquals(Arrays.asList("Sanger sequencing: ABI 310"),
+                extractionResult.getSraObjects(platformLoader).get(ANALYSIS_ACCESSION));
+        List<AttributeType> attributes = extractionResult.getSraObjects(attributeLoader).get(ANALYSIS_ACCESSION);
+        assertEquals("ENA-LAST-UPDATE", attributes.get(1).getTAG());
+        assertEquals(Arrays.asList(ANALYSIS_INVALID_ACCESSION), new ArrayList<>(extractionResult.getFailures().keySet()));
+        verify(restTemplate, times(1)).exchange(SraAnalysisDocumentLoader.getEnaApiUrl(),
+                HttpMethod.GET, null, String.class, ANALYSIS_ACCESSION);
+    }
+
     @Test
     public void testInvalidAnalysisLoadForFiles() {
         Map<String, List<AnalysisFileType>> analysisAccessionToFiles =
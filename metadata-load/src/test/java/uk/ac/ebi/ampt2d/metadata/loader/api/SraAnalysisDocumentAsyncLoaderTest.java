@@ -0,0 +1,183 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import uk.ac.ebi.ampt2d.metadata.loader.http.RetryPolicy;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+import uk.ac.ebi.ena.sra.xml.AnalysisFileType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SraAnalysisDocumentAsyncLoaderTest {
+
+    private static final String ANALYSIS_ACCESSION = "ERZ496533";
+    private static final String ANALYSIS_UNAVAILABLE_ACCESSION = "ERZ000503";
+    private static final String ANALYSIS_DOCUMENT_XML = "AnalysisDocument.xml";
+    private static final String ANALYSIS_DOCUMENT_NOT_FOUND = "AnalysisDocumentNotFound.xml";
+    private static final String VIEW_PATH = "/ena/data/view/";
+    private static final int MAX_REQUESTS_IN_FLIGHT = 8;
+
+    private HttpServer enaStub;
+
+    private ExecutorService enaStubExecutor = Executors.newFixedThreadPool(32);
+
+    private AtomicInteger requestsInFlight = new AtomicInteger();
+
+    private AtomicInteger maxRequestsInFlight = new AtomicInteger();
+
+    private AtomicInteger unavailableRequests = new AtomicInteger();
+
+    private AsyncRestTemplate asyncRestTemplate;
+
+    private SraAnalysisDocumentAsyncLoader asyncLoader;
+
+    @Before
+    public void startEnaStub() throws Exception {
+        enaStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        enaStub.createContext(VIEW_PATH, this::serveTestResource);
+        enaStub.setExecutor(enaStubExecutor);
+        enaStub.start();
+        String enaApiUrl = "http://localhost:" + enaStub.getAddress().getPort() + VIEW_PATH +
+                "{accessionId}&display=xml";
+        asyncRestTemplate = SraAnalysisDocumentAsyncLoader.createAsyncRestTemplate(MAX_REQUESTS_IN_FLIGHT);
+        asyncLoader = new SraAnalysisDocumentAsyncLoader(asyncRestTemplate, enaApiUrl, MAX_REQUESTS_IN_FLIGHT,
+                ForkJoinPool.commonPool());
+        asyncLoader.setRetryPolicy(new RetryPolicy(2, Duration.ofMillis(1), Duration.ofMillis(5)));
+    }
+
+    @After
+    public void stopEnaStub() throws Exception {
+        ((DisposableBean) asyncRestTemplate.getAsyncRequestFactory()).destroy();
+        enaStub.stop(0);
+        enaStubExecutor.shutdown();
+    }
+
+    private void serveTestResource(HttpExchange exchange) throws IOException {
+        maxRequestsInFlight.accumulateAndGet(requestsInFlight.incrementAndGet(), Math::max);
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String accession = path.substring(VIEW_PATH.length(), path.indexOf('&'));
+            if (accession.equals(ANALYSIS_UNAVAILABLE_ACCESSION)) {
+                unavailableRequests.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            Thread.sleep(5);
+            byte[] body = Files.readAllBytes(Paths.get(getClass().getClassLoader().getResource(
+                    accession.equals(ANALYSIS_ACCESSION) ? ANALYSIS_DOCUMENT_XML : ANALYSIS_DOCUMENT_NOT_FOUND)
+                    .toURI()));
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        } catch (Exception exception) {
+            throw new IOException(exception);
+        } finally {
+            requestsInFlight.decrementAndGet();
+        }
+    }
+
+    @Test
+    public void testAsyncAnalysisLoad() {
+        List<String> accessions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            accessions.add("ERZ" + (1000 + i));
+        }
+        accessions.add(50, ANALYSIS_ACCESSION);
+        accessions.add(ANALYSIS_UNAVAILABLE_ACCESSION);
+
+        SraObjectLoadResult<ANALYSISDocument> loadResult = asyncLoader.loadSraObjectsAsync(accessions).join();
+
+        assertEquals(1, loadResult.getSraObjects().size());
+        assertEquals("ERP107353",
+                loadResult.getSraObjects().get(ANALYSIS_ACCESSION).getANALYSIS().getSTUDYREF().getAccession());
+        assertEquals(101, loadResult.getFailures().size());
+        assertTrue(loadResult.getFailures().get(ANALYSIS_UNAVAILABLE_ACCESSION) instanceof HttpServerErrorException);
+        assertEquals(2, unavailableRequests.get());
+        assertTrue(maxRequestsInFlight.get() <= MAX_REQUESTS_IN_FLIGHT);
+    }
+
+    @Test
+    public void testRequestsThatCanNotBeSentFail() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        AsyncRestTemplate failingTemplate = new AsyncRestTemplate() {
+            @Override
+            public <T> ListenableFuture<ResponseEntity<T>> exchange(String url, HttpMethod method,
+                                                                   HttpEntity<?> requestEntity, Class<T> responseType,
+                                                                   Object... uriVariables) {
+                attempts.incrementAndGet();
+                throw new ResourceAccessException("Connection refused");
+            }
+        };
+        SraAnalysisDocumentAsyncLoader failingLoader = new SraAnalysisDocumentAsyncLoader(failingTemplate,
+                "http://localhost/{accessionId}", 2, ForkJoinPool.commonPool());
+        failingLoader.setRetryPolicy(new RetryPolicy(2, Duration.ofMillis(1), Duration.ofMillis(5)));
+        List<String> accessions = Arrays.asList("ERZ1001", "ERZ1002", "ERZ1003", "ERZ1004", "ERZ1005");
+
+        SraObjectLoadResult<ANALYSISDocument> loadResult = failingLoader.loadSraObjectsAsync(accessions)
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, loadResult.getSraObjects().size());
+        assertEquals(5, loadResult.getFailures().size());
+        assertTrue(loadResult.getFailures().get("ERZ1005") instanceof ResourceAccessException);
+        assertEquals(10, attempts.get());
+    }
+
+    @Test
+    public void testAsyncLoaderFeedsFileTypeLoader() {
+        SraObjectLoaderFromAnalysisDocument<AnalysisFileType> fileTypeLoader =
+                new SraAnalysisFileTypeLoader(asyncLoader);
+
+        Map<String, List<AnalysisFileType>> analysisAccessionToFiles =
+                fileTypeLoader.getSraObjectsFromAnalysisDocument(Arrays.asList(ANALYSIS_ACCESSION));
+
+        assertEquals(2, analysisAccessionToFiles.get(ANALYSIS_ACCESSION).size());
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.ampt2d.metadata.loader.http.CircuitBreaker;
+import uk.ac.ebi.ampt2d.metadata.loader.http.ResilientHttpExecutor;
+import uk.ac.ebi.ampt2d.metadata.loader.http.RetryPolicy;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SraAnalysisDocumentBatchLoaderTest {
+
+    private static final String ANALYSIS_ACCESSION = "ERZ496533";
+    private static final String SECOND_ANALYSIS_ACCESSION = "ERZ496534";
+    private static final String ANALYSIS_INVALID_ACCESSION = "ERZ4965336";
+    private static final String ANALYSIS_DOCUMENT_BATCH_XML = "AnalysisDocumentBatch.xml";
+    private static final String ANALYSIS_DOCUMENT_NOT_FOUND = "AnalysisDocumentNotFound.xml";
+    private static final String ANALYSIS_DOCUMENT_BATCH_TRUNCATED_XML = "AnalysisDocumentBatchTruncated.xml";
+    private static final String VIEW_PATH = "/ena/data/view/";
+
+    private HttpServer enaStub;
+
+    private Map<String, String> requestedAccessionsToResources = new HashMap<>();
+
+    private List<String> requestedAccessions = new ArrayList<>();
+
+    private String enaApiUrl;
+
+    @Before
+    public void startEnaStub() throws Exception {
+        requestedAccessionsToResources.put(ANALYSIS_ACCESSION + "," + SECOND_ANALYSIS_ACCESSION,
+                ANALYSIS_DOCUMENT_BATCH_XML);
+        requestedAccessionsToResources.put(ANALYSIS_INVALID_ACCESSION, ANALYSIS_DOCUMENT_NOT_FOUND);
+
+        enaStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        enaStub.createContext(VIEW_PATH, this::serveTestResource);
+        enaStub.start();
+        enaApiUrl = "http://localhost:" + enaStub.getAddress().getPort() + VIEW_PATH + "{accessionId}&display=xml";
+    }
+
+    @After
+    public void stopEnaStub() {
+        enaStub.stop(0);
+    }
+
+    private void serveTestResource(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String accessions = path.substring(VIEW_PATH.length(), path.indexOf('&'));
+        requestedAccessions.add(accessions);
+        byte[] body;
+        try {
+            body = Files.readAllBytes(Paths.get(getClass().getClassLoader()
+                    .getResource(requestedAccessionsToResources.get(accessions)).toURI()));
+        } catch (Exception exception) {
+            throw new IOException(exception);
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    @Test
+    public void testBatchAnalysisLoad() {
+        SraObjectLoaderByAccession<ANALYSISDocument> batchLoader =
+                new SraAnalysisDocumentBatchLoader(new RestTemplate(), enaApiUrl, 2);
+
+        Map<String, ANALYSISDocument> accessionsToAnalyses = batchLoader.getSraObjects(
+                Arrays.asList(ANALYSIS_ACCESSION, SECOND_ANALYSIS_ACCESSION, ANALYSIS_INVALID_ACCESSION));
+
+        assertEquals(Arrays.asList(ANALYSIS_ACCESSION + "," + SECOND_ANALYSIS_ACCESSION, ANALYSIS_INVALID_ACCESSION),
+                requestedAccessions);
+        assertEquals(2, accessionsToAnalyses.size());
+        assertEquals(ANALYSIS_ACCESSION, accessionsToAnalyses.get(ANALYSIS_ACCESSION).getANALYSIS().getAccession());
+        assertEquals("ERP107353",
+                accessionsToAnalyses.get(ANALYSIS_ACCESSION).getANALYSIS().getSTUDYREF().getAccession());
+        assertEquals(SECOND_ANALYSIS_ACCESSION,
+                accessionsToAnalyses.get(SECOND_ANALYSIS_ACCESSION).getANALYSIS().getAccession());
+        assertEquals("ERZ496/ERZ496534/Bailey_ACAN_307.vcf.gz", accessionsToAnalyses.get(SECOND_ANALYSIS_ACCESSION)
+                .getANALYSIS().getFILES().getFILEArray(1).getFilename());
+    }
+
+    @Test
+    public void testBatchAnalysisLoadFeedsFileTypeLoader() {
+        SraObjectLoaderFromAnalysisDocument<?> fileTypeLoader = new SraAnalysisFileTypeLoader(
+                new SraAnalysisDocumentBatchLoader(new RestTemplate(), enaApiUrl, 2));
+
+        Map<String, ? extends List<?>> analysisAccessionToFiles = fileTypeLoader.getSraObjectsFromAnalysisDocument(
+                Arrays.asList(ANALYSIS_ACCESSION, SECOND_ANALYSIS_ACCESSION));
+
+        assertEquals(1, requestedAccessions.size());
+        assertEquals(2, analysisAccessionToFiles.size());
+        assertTrue(analysisAccessionToFiles.values().stream().allMatch(files -> files.size() == 2));
+    }
+
+    @Test
+    public void testInvalidBatchAnalysisLoad() {
+        Map<String, ANALYSISDocument> accessionsToAnalyses = new SraAnalysisDocumentBatchLoader(new RestTemplate(),
+                enaApiUrl, 2).getSraObjects(Arrays.asList(ANALYSIS_INVALID_ACCESSION));
+        assertEquals(0, accessionsToAnalyses.size());
+    }
+
+    @Test
+    public void testTruncatedBatchResponseIsReportedAsFailure() {
+        requestedAccessionsToResources.put(ANALYSIS_ACCESSION + "," + SECOND_ANALYSIS_ACCESSION,
+                ANALYSIS_DOCUMENT_BATCH_TRUNCATED_XML);
+        SraAnalysisDocumentBatchLoader batchLoader = new SraAnalysisDocumentBatchLoader(new RestTemplate(),
+                enaApiUrl, 2);
+        batchLoader.setHttpExecutor(new ResilientHttpExecutor(new RetryPolicy(2, Duration.ZERO, Duration.ZERO),
+                new CircuitBreaker()));
+
+        SraObjectLoadResult<ANALYSISDocument> loadResult = batchLoader.loadSraObjects(
+                Arrays.asList(ANALYSIS_ACCESSION, SECOND_ANALYSIS_ACCESSION));
+
+        assertEquals(2, requestedAccessions.size());
+        assertEquals(Arrays.asList(ANALYSIS_ACCESSION), new ArrayList<>(loadResult.getSraObjects().keySet()));
+        assertEquals(Arrays.asList(SECOND_ANALYSIS_ACCESSION), new ArrayList<>(loadResult.getFailures().keySet()));
+        assertTrue(loadResult.getFailures().get(SECOND_ANALYSIS_ACCESSION) instanceof ResourceAccessException);
+    }
+
+}
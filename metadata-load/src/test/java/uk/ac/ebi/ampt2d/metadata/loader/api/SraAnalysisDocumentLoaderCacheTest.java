@@ -0,0 +1,151 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.ampt2d.metadata.loader.cache.CachedSraResponse;
+import uk.ac.ebi.ampt2d.metadata.loader.cache.FileSystemSraResponseCache;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SraAnalysisDocumentLoaderCacheTest {
+
+    private static final String ANALYSIS_ACCESSION = "ERZ496533";
+    private static final String ANALYSIS_DOCUMENT_XML = "AnalysisDocument.xml";
+    private static final String ETAG = "\"v1\"";
+    private static final Instant NOW = Instant.parse("2018-10-01T10:00:00Z");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private String analysisXml;
+
+    private FileSystemSraResponseCache responseCache;
+
+    private SraAnalysisDocumentLoader sraAnalysisDocumentLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        analysisXml = new String(Files.readAllBytes(Paths.get(getClass().getClassLoader()
+                .getResource(ANALYSIS_DOCUMENT_XML).toURI())));
+        responseCache = new FileSystemSraResponseCache(temporaryFolder.getRoot().toPath());
+        sraAnalysisDocumentLoader = new SraAnalysisDocumentLoader(restTemplate);
+        sraAnalysisDocumentLoader.setResponseCache(responseCache, Duration.ofDays(1));
+        sraAnalysisDocumentLoader.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void testResponseIsRevalidatedWithETag() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(ETAG);
+        when(restTemplate.exchange(eq(SraAnalysisDocumentLoader.getEnaApiUrl()), eq(HttpMethod.GET),
+                isNull(HttpEntity.class), eq(String.class), eq(ANALYSIS_ACCESSION)))
+                .thenReturn(new ResponseEntity<>(analysisXml, headers, HttpStatus.OK));
+        when(restTemplate.exchange(eq(SraAnalysisDocumentLoader.getEnaApiUrl()), eq(HttpMethod.GET),
+                argThat(hasIfNoneMatch(ETAG)), eq(String.class), eq(ANALYSIS_ACCESSION)))
+                .thenReturn(new ResponseEntity<>(HttpStatus.NOT_MODIFIED));
+
+        assertAnalysisLoaded(sraAnalysisDocumentLoader.getSraObjects(Arrays.asList(ANALYSIS_ACCESSION)));
+        assertEquals(ETAG, responseCache.get(ANALYSIS_ACCESSION).getETag());
+
+        assertAnalysisLoaded(sraAnalysisDocumentLoader.getSraObjects(Arrays.asList(ANALYSIS_ACCESSION)));
+        verify(restTemplate, times(1)).exchange(eq(SraAnalysisDocumentLoader.getEnaApiUrl()), eq(HttpMethod.GET),
+                argThat(hasIfNoneMatch(ETAG)), eq(String.class), eq(ANALYSIS_ACCESSION));
+    }
+
+    @Test
+    public void testResponseWithoutValidatorsIsServedUntilExpired() {
+        responseCache.put(ANALYSIS_ACCESSION, new CachedSraResponse(analysisXml, null, null,
+                NOW.minus(Duration.ofHours(1))));
+
+        assertAnalysisLoaded(sraAnalysisDocumentLoader.getSraObjects(Arrays.asList(ANALYSIS_ACCESSION)));
+        verify(restTemplate, times(0)).exchange(any(String.class), any(HttpMethod.class), any(HttpEntity.class),
+                eq(String.class), eq(ANALYSIS_ACCESSION));
+
+        when(restTemplate.exchange(SraAnalysisDocumentLoader.getEnaApiUrl(), HttpMethod.GET, null, String.class,
+                ANALYSIS_ACCESSION)).thenReturn(new ResponseEntity<>(analysisXml, HttpStatus.OK));
+        sraAnalysisDocumentLoader.setClock(Clock.fixed(NOW.plus(Duration.ofDays(2)), ZoneOffset.UTC));
+
+        assertAnalysisLoaded(sraAnalysisDocumentLoader.getSraObjects(Arrays.asList(ANALYSIS_ACCESSION)));
+        verify(restTemplate, times(1)).exchange(SraAnalysisDocumentLoader.getEnaApiUrl(), HttpMethod.GET, null,
+                String.class, ANALYSIS_ACCESSION);
+        assertEquals(NOW.plus(Duration.ofDays(2)), responseCache.get(ANALYSIS_ACCESSION).getFetchedAt());
+    }
+
+    @Test
+    public void testFixtureWithoutPropertiesIsServed() throws Exception {
+        Files.write(temporaryFolder.getRoot().toPath().resolve(ANALYSIS_ACCESSION + ".xml"), analysisXml.getBytes());
+        sraAnalysisDocumentLoader.setResponseCache(responseCache, Duration.ofDays(Integer.MAX_VALUE));
+
+        assertNull(responseCache.get("ERZ000001"));
+        assertNotNull(responseCache.get(ANALYSIS_ACCESSION));
+        assertAnalysisLoaded(sraAnalysisDocumentLoader.getSraObjects(Arrays.asList(ANALYSIS_ACCESSION)));
+    }
+
+    private void assertAnalysisLoaded(Map<String, ANALYSISDocument> accessionsToAnalyses) {
+        assertEquals(1, accessionsToAnalyses.size());
+        assertEquals("ERP107353",
+                accessionsToAnalyses.get(ANALYSIS_ACCESSION).getANALYSIS().getSTUDYREF().getAccession());
+    }
+
+    private static org.hamcrest.Matcher<HttpEntity> hasIfNoneMatch(String eTag) {
+        return new org.hamcrest.CustomMatcher<HttpEntity>("request with If-None-Match " + eTag) {
+            @Override
+            public boolean matches(Object item) {
+                return item instanceof HttpEntity &&
+                        ((HttpEntity<?>) item).getHeaders().getIfNoneMatch().contains(eTag);
+            }
+        };
+    }
+
+}
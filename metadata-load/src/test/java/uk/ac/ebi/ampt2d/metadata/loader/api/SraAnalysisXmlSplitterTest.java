@@ -0,0 +1,99 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.api;
+
+import org.junit.Test;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class SraAnalysisXmlSplitterTest {
+
+    private static final String ANALYSIS_DOCUMENT_BATCH_XML = "AnalysisDocumentBatch.xml";
+    private static final String ANALYSIS_DOCUMENT_NOT_FOUND = "AnalysisDocumentNotFound.xml";
+
+    private SraAnalysisXmlSplitter xmlSplitter = new SraAnalysisXmlSplitter();
+
+    @Test
+    public void testSplitAnalysisDocuments() throws Exception {
+        List<ANALYSISDocument> analysisDocuments = new ArrayList<>();
+        try (InputStream xmlStream = getClass().getClassLoader().getResourceAsStream(ANALYSIS_DOCUMENT_BATCH_XML)) {
+            assertEquals(2, xmlSplitter.split(xmlStream, analysisDocuments::add));
+        }
+
+        assertEquals("ERZ496533", analysisDocuments.get(0).getANALYSIS().getAccession());
+        assertEquals("ERP107353", analysisDocuments.get(0).getANALYSIS().getSTUDYREF().getAccession());
+        assertEquals("ERZ496534", analysisDocuments.get(1).getANALYSIS().getAccession());
+        assertEquals(2, analysisDocuments.get(1).getANALYSIS().getFILES().sizeOfFILEArray());
+    }
+
+    @Test
+    public void testSplitAdjacentAnalysisDocuments() throws Exception {
+        String xmlString = new String(Files.readAllBytes(Paths.get(getClass().getClassLoader()
+                .getResource(ANALYSIS_DOCUMENT_BATCH_XML).toURI())), StandardCharsets.UTF_8)
+                .replaceAll(">\\s+<", "><");
+        List<ANALYSISDocument> analysisDocuments = new ArrayList<>();
+
+        xmlSplitter.split(new ByteArrayInputStream(xmlString.getBytes(StandardCharsets.UTF_8)),
+                analysisDocuments::add);
+
+        assertEquals(2, analysisDocuments.size());
+        assertEquals("ERZ496534", analysisDocuments.get(1).getANALYSIS().getAccession());
+    }
+
+    @Test
+    public void testSplitLargeStream() throws Exception {
+        String xmlString = new String(Files.readAllBytes(Paths.get(getClass().getClassLoader()
+                .getResource(ANALYSIS_DOCUMENT_BATCH_XML).toURI())), StandardCharsets.UTF_8);
+        byte[] analyses = xmlString.substring(xmlString.indexOf("<ANALYSIS "), xmlString.indexOf("</ROOT>"))
+                .getBytes(StandardCharsets.UTF_8);
+        int repetitions = 1000;
+        List<InputStream> parts = new ArrayList<>();
+        parts.add(new ByteArrayInputStream("<ROOT>".getBytes(StandardCharsets.UTF_8)));
+        for (int i = 0; i < repetitions; i++) {
+            parts.add(new ByteArrayInputStream(analyses));
+        }
+        parts.add(new ByteArrayInputStream("</ROOT>".getBytes(StandardCharsets.UTF_8)));
+
+        int[] files = new int[1];
+        int analysisDocuments = xmlSplitter.split(new SequenceInputStream(Collections.enumeration(parts)),
+                analysisDocument -> files[0] += analysisDocument.getANALYSIS().getFILES().sizeOfFILEArray());
+
+        assertEquals(2 * repetitions, analysisDocuments);
+        assertEquals(4 * repetitions, files[0]);
+    }
+
+    @Test
+    public void testSplitNotFoundDocument() throws Exception {
+        try (InputStream xmlStream = getClass().getClassLoader().getResourceAsStream(ANALYSIS_DOCUMENT_NOT_FOUND)) {
+            assertEquals(0, xmlSplitter.split(xmlStream, analysisDocument -> {
+            }));
+        }
+    }
+
+}
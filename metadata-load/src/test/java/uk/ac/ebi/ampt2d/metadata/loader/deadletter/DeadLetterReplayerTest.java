@@ -0,0 +1,128 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.deadletter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraAnalysisDocumentLoader;
+import uk.ac.ebi.ampt2d.metadata.loader.http.CircuitBreaker;
+import uk.ac.ebi.ampt2d.metadata.loader.http.ResilientHttpExecutor;
+import uk.ac.ebi.ampt2d.metadata.loader.http.RetryPolicy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeadLetterReplayerTest {
+
+    private static final String ANALYSIS_ACCESSION = "ERZ496533";
+    private static final String MALFORMED_ACCESSION = "ERZ000001";
+    private static final String UNAVAILABLE_ACCESSION = "ERZ000002";
+    private static final String MALFORMED_XML = "<ANALYSIS accession=\"ERZ000001\">\n<TITLE>truncated";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private String analysisXml;
+
+    private DeadLetterStore deadLetterStore;
+
+    private SraAnalysisDocumentLoader sraAnalysisDocumentLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        analysisXml = new String(Files.readAllBytes(Paths.get(getClass().getClassLoader()
+                .getResource("AnalysisDocument.xml").toURI())));
+        deadLetterStore = new DeadLetterStore(temporaryFolder.getRoot().toPath().resolve("dead-letters.jsonl"));
+        sraAnalysisDocumentLoader = new SraAnalysisDocumentLoader(restTemplate);
+        sraAnalysisDocumentLoader.setHttpExecutor(new ResilientHttpExecutor(
+                new RetryPolicy(1, Duration.ZERO, Duration.ZERO), new CircuitBreaker()));
+        sraAnalysisDocumentLoader.setDeadLetterStore(deadLetterStore);
+        stubResponse(ANALYSIS_ACCESSION, analysisXml);
+        stubResponse(MALFORMED_ACCESSION, MALFORMED_XML);
+        when(restTemplate.exchange(SraAnalysisDocumentLoader.getEnaApiUrl(), HttpMethod.GET, null, String.class,
+                UNAVAILABLE_ACCESSION)).thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    public void testFailuresAreRecordedWithPayload() {
+        sraAnalysisDocumentLoader.getSraObjects(
+                Arrays.asList(MALFORMED_ACCESSION, ANALYSIS_ACCESSION, UNAVAILABLE_ACCESSION));
+
+        List<DeadLetter> deadLetters = deadLetterStore.readAll();
+        assertEquals(2, deadLetters.size());
+        assertEquals(MALFORMED_ACCESSION, deadLetters.get(0).getAccession());
+        assertEquals("org.apache.xmlbeans.XmlException", deadLetters.get(0).getErrorClass());
+        assertEquals(MALFORMED_XML, deadLetters.get(0).getPayload());
+        assertEquals(UNAVAILABLE_ACCESSION, deadLetters.get(1).getAccession());
+        assertEquals(HttpServerErrorException.class.getName(), deadLetters.get(1).getErrorClass());
+        assertNull(deadLetters.get(1).getPayload());
+    }
+
+    @Test
+    public void testReplayOnlyRetriesDeadLetters() throws Exception {
+        sraAnalysisDocumentLoader.getSraObjects(
+                Arrays.asList(MALFORMED_ACCESSION, ANALYSIS_ACCESSION, UNAVAILABLE_ACCESSION));
+        Files.write(deadLetterStore.getFile(), "{\"accession\":\"ERZ0".getBytes(), StandardOpenOption.APPEND);
+        stubResponse(MALFORMED_ACCESSION, analysisXml);
+
+        List<List<String>> replayedAccessions = new ArrayList<>();
+        Set<String> failedAccessions = new DeadLetterReplayer(deadLetterStore).replay(accessions -> {
+            replayedAccessions.add(accessions);
+            sraAnalysisDocumentLoader.getSraObjects(accessions);
+        });
+
+        assertEquals(Collections.singletonList(Arrays.asList(MALFORMED_ACCESSION, UNAVAILABLE_ACCESSION)),
+                replayedAccessions);
+        assertEquals(Collections.singleton(UNAVAILABLE_ACCESSION), failedAccessions);
+        List<DeadLetter> deadLetters = deadLetterStore.readAll();
+        assertEquals(1, deadLetters.size());
+        assertEquals(UNAVAILABLE_ACCESSION, deadLetters.get(0).getAccession());
+    }
+
+    private void stubResponse(String accession, String xml) {
+        when(restTemplate.exchange(SraAnalysisDocumentLoader.getEnaApiUrl(), HttpMethod.GET, null, String.class,
+                accession)).thenReturn(new ResponseEntity<>(xml, HttpStatus.OK));
+    }
+
+}
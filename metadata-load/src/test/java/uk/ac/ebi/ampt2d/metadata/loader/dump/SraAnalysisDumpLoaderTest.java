@@ -0,0 +1,128 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.dump;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraObjectLoadResult;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SraAnalysisDumpLoaderTest {
+
+    private static final String ANALYSIS_DOCUMENT_BATCH_XML = "AnalysisDocumentBatch.xml";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private byte[] dumpXml;
+
+    private Path indexDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        dumpXml = Files.readAllBytes(Paths.get(getClass().getClassLoader()
+                .getResource(ANALYSIS_DOCUMENT_BATCH_XML).toURI()));
+        indexDirectory = temporaryFolder.newFolder("index").toPath();
+    }
+
+    @Test
+    public void testLoadFromPlainDump() throws Exception {
+        Path dumpFile = Files.write(temporaryFolder.getRoot().toPath().resolve("analysis.xml"), dumpXml);
+
+        try (SraAnalysisDumpLoader loader = new SraAnalysisDumpLoader(Collections.singletonList(dumpFile),
+                indexDirectory)) {
+            SraObjectLoadResult<ANALYSISDocument> loadResult = loader.loadSraObjects(
+                    Arrays.asList("ERZ496534", "ERZ000001", "ERZ496533"));
+
+            assertEquals(Arrays.asList("ERZ496534", "ERZ496533"),
+                    Arrays.asList(loadResult.getSraObjects().keySet().toArray()));
+            assertEquals("ERP107353",
+                    loadResult.getSraObjects().get("ERZ496533").getANALYSIS().getSTUDYREF().getAccession());
+            assertEquals(2, loadResult.getSraObjects().get("ERZ496534").getANALYSIS().getFILES().sizeOfFILEArray());
+            assertTrue(loadResult.getFailures().get("ERZ000001") instanceof NoSuchElementException);
+        }
+    }
+
+    @Test
+    public void testLoadFromGzipDumpDirectory() throws Exception {
+        Path dumpDirectory = temporaryFolder.newFolder("dumps").toPath();
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(
+                dumpDirectory.resolve("analysis.xml.gz")))) {
+            output.write(dumpXml);
+        }
+        Files.write(dumpDirectory.resolve("README.txt"), "not a dump".getBytes());
+
+        try (SraAnalysisDumpLoader loader = new SraAnalysisDumpLoader(Collections.singletonList(dumpDirectory),
+                indexDirectory)) {
+            assertEquals(2, loader.getSraObjects(Arrays.asList("ERZ496533", "ERZ496534")).size());
+            assertFalse(loader.contains("ERZ000001"));
+        }
+    }
+
+    @Test
+    public void testIndexIsReusedUntilDumpChanges() throws Exception {
+        Path dumpFile = Files.write(temporaryFolder.getRoot().toPath().resolve("analysis.xml"), dumpXml);
+        AnalysisDumpIndex index = AnalysisDumpIndex.open(dumpFile, indexDirectory);
+        Path indexFile = Files.list(indexDirectory).findFirst().get();
+        FileTime indexTime = FileTime.fromMillis(1000);
+        Files.setLastModifiedTime(indexFile, indexTime);
+
+        AnalysisDumpIndex reusedIndex = AnalysisDumpIndex.open(dumpFile, indexDirectory);
+        assertEquals(indexTime, Files.getLastModifiedTime(indexFile));
+        assertEquals(index.getEntry("ERZ496534").getOffset(), reusedIndex.getEntry("ERZ496534").getOffset());
+
+        byte[] paddedXml = new byte[dumpXml.length + 1];
+        paddedXml[0] = '\n';
+        System.arraycopy(dumpXml, 0, paddedXml, 1, dumpXml.length);
+        Files.write(dumpFile, paddedXml);
+
+        AnalysisDumpIndex rebuiltIndex = AnalysisDumpIndex.open(dumpFile, indexDirectory);
+        assertEquals(index.getEntry("ERZ496534").getOffset() + 1, rebuiltIndex.getEntry("ERZ496534").getOffset());
+    }
+
+    @Test
+    public void testLastDumpWins() throws Exception {
+        Path firstDump = Files.write(temporaryFolder.getRoot().toPath().resolve("first.xml"), dumpXml);
+        String updatedXml = new String(dumpXml, "UTF-8").replace("ERP107353", "ERP000001");
+        Path secondDump = Files.write(temporaryFolder.getRoot().toPath().resolve("second.xml"),
+                updatedXml.getBytes("UTF-8"));
+
+        try (SraAnalysisDumpLoader loader = new SraAnalysisDumpLoader(Arrays.asList(firstDump, secondDump),
+                indexDirectory)) {
+            assertEquals("ERP000001", loader.getSraObjects(Collections.singletonList("ERZ496533"))
+                    .get("ERZ496533").getANALYSIS().getSTUDYREF().getAccession());
+        }
+    }
+
+}
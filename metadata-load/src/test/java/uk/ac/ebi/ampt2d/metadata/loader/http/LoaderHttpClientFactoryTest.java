@@ -0,0 +1,94 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.ampt2d.metadata.loader.metrics.LoaderMetrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class LoaderHttpClientFactoryTest {
+
+    private static final String BODY = "<ROOT><ANALYSIS accession=\"ERZ496533\"/></ROOT>";
+
+    private HttpServer enaStub;
+
+    private Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private LoaderHttpClientFactory httpClientFactory = new LoaderHttpClientFactory();
+
+    @Before
+    public void startEnaStub() throws IOException {
+        enaStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        enaStub.createContext("/", this::serveGzipBody);
+        enaStub.start();
+    }
+
+    @After
+    public void stopEnaStub() throws IOException {
+        httpClientFactory.close();
+        enaStub.stop(0);
+    }
+
+    @Test
+    public void testConnectionIsReusedAndResponseDecompressed() {
+        RestTemplate restTemplate = httpClientFactory.createRestTemplate();
+        String url = "http://localhost:" + enaStub.getAddress().getPort() + "/ena/data/view/{accessionId}";
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(BODY, restTemplate.getForObject(url, String.class, "ERZ49653" + i));
+        }
+
+        assertEquals(1, clientPorts.size());
+        LoaderMetrics loaderMetrics = new LoaderMetrics();
+        httpClientFactory.registerMetrics(loaderMetrics);
+        assertEquals(1, loaderMetrics.metrics().stream()
+                .filter(metric -> metric.getName().equals("gauge.loader.http.pool.available"))
+                .findFirst().get().getValue());
+    }
+
+    private void serveGzipBody(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        ByteArrayOutputStream compressedBody = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(compressedBody)) {
+            gzip.write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] body = compressedBody.toByteArray();
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.http;
+
+import org.junit.Test;
+import uk.ac.ebi.ampt2d.metadata.loader.metrics.LoaderMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private AtomicLong nanoClock = new AtomicLong();
+
+    @Test
+    public void testBurstThenSteadyRate() {
+        RateLimiter rateLimiter = new RateLimiter(10, 3, nanoClock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.reserve());
+        }
+        assertEquals(SECOND / 10, rateLimiter.reserve());
+        assertEquals(2 * SECOND / 10, rateLimiter.reserve());
+
+        nanoClock.addAndGet(10 * SECOND);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.reserve());
+        }
+        assertEquals(SECOND / 10, rateLimiter.reserve());
+        assertEquals(Duration.ofNanos(4 * SECOND / 10), rateLimiter.getThrottledTime());
+    }
+
+    @Test
+    public void testThrottledResponsesSlowDownAndPause() {
+        RateLimiter rateLimiter = new RateLimiter(10, 1, nanoClock::get);
+        LoaderMetrics loaderMetrics = new LoaderMetrics();
+        rateLimiter.registerMetrics(loaderMetrics);
+        assertEquals(0, rateLimiter.reserve());
+
+        rateLimiter.onThrottled(Duration.ofSeconds(2));
+        assertEquals(5.0, rateLimiter.getCurrentRate(), 1e-9);
+        assertEquals(2 * SECOND + SECOND / 5, rateLimiter.reserve());
+        assertEquals(2 * SECOND + 2 * SECOND / 5, rateLimiter.reserve());
+
+        for (int i = 0; i < 16; i++) {
+            rateLimiter.onThrottled(null);
+        }
+        assertEquals(10.0 / 16, rateLimiter.getCurrentRate(), 1e-9);
+
+        for (int i = 0; i < 1000; i++) {
+            rateLimiter.onSuccess();
+        }
+        assertEquals(10.0, rateLimiter.getCurrentRate(), 1e-9);
+        assertEquals(17L, loaderMetrics.metrics().stream()
+                .filter(metric -> metric.getName().equals("gauge." + RateLimiter.THROTTLED_RESPONSES_METRIC))
+                .findFirst().get().getValue());
+    }
+
+}
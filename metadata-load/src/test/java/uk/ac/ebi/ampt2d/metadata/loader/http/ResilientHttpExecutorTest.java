@@ -0,0 +1,135 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.http;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResilientHttpExecutorTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(200);
+
+    private RetryPolicy retryPolicy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5));
+
+    @Test
+    public void testTransientFailuresAreRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        ResilientHttpExecutor httpExecutor = new ResilientHttpExecutor(retryPolicy, new CircuitBreaker());
+
+        String result = httpExecutor.execute("test", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            if (attempts.get() == 2) {
+                throw new ResourceAccessException("Connection reset");
+            }
+            return "body";
+        });
+
+        assertEquals("body", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testClientErrorsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        ResilientHttpExecutor httpExecutor = new ResilientHttpExecutor(retryPolicy,
+                new CircuitBreaker(1, OPEN_DURATION));
+
+        try {
+            httpExecutor.execute("test", () -> {
+                attempts.incrementAndGet();
+                throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+            });
+            fail("A 404 must be thrown");
+        } catch (HttpClientErrorException exception) {
+            assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        }
+        assertEquals(1, attempts.get());
+        assertEquals(CircuitBreaker.State.CLOSED, httpExecutor.getCircuitBreaker().getState());
+    }
+
+    @Test
+    public void testCircuitBreakerPausesRequests() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, OPEN_DURATION);
+        ResilientHttpExecutor httpExecutor = new ResilientHttpExecutor(
+                new RetryPolicy(2, Duration.ZERO, Duration.ZERO), circuitBreaker);
+
+        try {
+            httpExecutor.execute("test", () -> {
+                throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+            });
+            fail("The last failure must be thrown once the attempts are exhausted");
+        } catch (HttpServerErrorException exception) {
+            assertEquals(HttpStatus.BAD_GATEWAY, exception.getStatusCode());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        long start = System.nanoTime();
+        assertEquals("body", httpExecutor.execute("test", () -> "body"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(OPEN_DURATION.minusMillis(20)) >= 0);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testThrottledRequestIsRetriedAfterRetryAfterDelay() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        RateLimiter rateLimiter = new RateLimiter(1000, 10);
+        ResilientHttpExecutor httpExecutor = new ResilientHttpExecutor(
+                new RetryPolicy(2, Duration.ZERO, Duration.ZERO), new CircuitBreaker(), rateLimiter);
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        String result = httpExecutor.execute("test", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers,
+                        null, null);
+            }
+            return "body";
+        });
+
+        assertEquals("body", result);
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofMillis(980)) >= 0);
+        assertEquals(1, rateLimiter.getThrottledResponses());
+        assertTrue(rateLimiter.getThrottledTime().compareTo(Duration.ofMillis(900)) >= 0);
+        assertTrue(rateLimiter.getCurrentRate() < 1000);
+    }
+
+    @Test
+    public void testBackoffIsBounded() {
+        RetryPolicy policy = new RetryPolicy(100, Duration.ofMillis(100), Duration.ofSeconds(1));
+        for (int failedAttempts = 1; failedAttempts < 100; failedAttempts++) {
+            long backoffMillis = policy.getBackoff(failedAttempts).toMillis();
+            assertTrue(backoffMillis >= 0);
+            assertTrue(backoffMillis <= Math.min(1000, 100L << Math.min(failedAttempts - 1, 20)));
+        }
+    }
+
+}
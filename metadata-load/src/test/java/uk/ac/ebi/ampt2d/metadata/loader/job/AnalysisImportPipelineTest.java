@@ -0,0 +1,143 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.job;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.ampt2d.metadata.converter.FileTypeConverter;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraAnalysisDocumentLoader;
+import uk.ac.ebi.ampt2d.metadata.loader.metrics.LoaderMetrics;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FileService;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AnalysisImportPipelineTest {
+
+    private static final String ANALYSIS_ACCESSION = "ERZ496533";
+    private static final String ANALYSIS_INVALID_ACCESSION = "ERZ4965336";
+    private static final String ANALYSIS_DOCUMENT_XML = "AnalysisDocument.xml";
+    private static final String ANALYSIS_DOCUMENT_NOT_FOUND = "AnalysisDocumentNotFound.xml";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private FileService fileService;
+
+    private SraAnalysisDocumentLoader analysisDocumentLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        when(restTemplate.exchange(SraAnalysisDocumentLoader.getEnaApiUrl(), HttpMethod.GET, null, String.class,
+                ANALYSIS_ACCESSION)).thenReturn(new ResponseEntity<>(readResource(ANALYSIS_DOCUMENT_XML),
+                HttpStatus.OK));
+        when(restTemplate.exchange(SraAnalysisDocumentLoader.getEnaApiUrl(), HttpMethod.GET, null, String.class,
+                ANALYSIS_INVALID_ACCESSION)).thenReturn(new ResponseEntity<>(readResource(ANALYSIS_DOCUMENT_NOT_FOUND),
+                HttpStatus.OK));
+        analysisDocumentLoader = new SraAnalysisDocumentLoader(restTemplate);
+    }
+
+    @Test(timeout = 10000)
+    public void testPipelineImportsAllAnalyses() {
+        AtomicInteger savedFiles = new AtomicInteger();
+        when(fileService.upsert(anyListOf(File.class))).thenAnswer(invocation -> {
+            ((Iterable<?>) invocation.getArguments()[0]).forEach(file -> savedFiles.incrementAndGet());
+            return invocation.getArguments()[0];
+        });
+        List<String> accessions = new ArrayList<>(Collections.nCopies(10, ANALYSIS_ACCESSION));
+        accessions.add(5, ANALYSIS_INVALID_ACCESSION);
+        LoaderMetrics loaderMetrics = new LoaderMetrics();
+        AnalysisImportPipeline pipeline = new AnalysisImportPipeline(analysisDocumentLoader, new FileTypeConverter(),
+                fileService, 2, 2, 2, 3);
+        pipeline.setLoaderMetrics(loaderMetrics);
+
+        ImportProgress progress = pipeline.run(accessions);
+
+        assertEquals(10, progress.getImportedAccessions());
+        assertEquals(1, progress.getFailedAccessions());
+        assertEquals(20, progress.getSavedFiles());
+        assertEquals(20, savedFiles.get());
+        assertEquals(11, pipeline.getStages().get(0).getProcessedItems());
+        assertEquals(11, pipeline.getStages().get(1).getProcessedItems());
+        assertEquals(10, pipeline.getStages().get(2).getProcessedItems());
+        assertEquals(1, loaderMetrics.getCount("loader.pipeline.failed"));
+        assertTrue(loaderMetrics.metrics().stream()
+                .anyMatch(metric -> metric.getName().equals("gauge.loader.pipeline.write.queue-depth")));
+    }
+
+    @Test(timeout = 10000)
+    public void testSlowWriterHoldsBackFetching() throws Exception {
+        CountDownLatch writerReleased = new CountDownLatch(1);
+        when(fileService.upsert(anyListOf(File.class))).thenAnswer(invocation -> {
+            writerReleased.await();
+            return invocation.getArguments()[0];
+        });
+        AnalysisImportPipeline pipeline = new AnalysisImportPipeline(analysisDocumentLoader, new FileTypeConverter(),
+                fileService, 2, 2, 2, 2);
+        Thread runner = new Thread(() -> pipeline.run(Collections.nCopies(200, ANALYSIS_ACCESSION)));
+        runner.start();
+
+        Thread.sleep(500);
+        PipelineStage fetchStage = pipeline.getStages().get(0);
+        assertTrue(fetchStage.getProcessedItems() < 20);
+        assertEquals(fetchStage.getQueueCapacity(), fetchStage.getQueueDepth());
+
+        writerReleased.countDown();
+        runner.join();
+        assertEquals(200, pipeline.getStages().get(2).getProcessedItems());
+    }
+
+    @Test(timeout = 10000)
+    public void testWriteFailureStopsPipeline() {
+        when(fileService.upsert(anyListOf(File.class))).thenThrow(new IllegalStateException("Database went away"));
+        AnalysisImportPipeline pipeline = new AnalysisImportPipeline(analysisDocumentLoader, new FileTypeConverter(),
+                fileService, 2, 2, 2, 2);
+        try {
+            pipeline.run(Collections.nCopies(100, ANALYSIS_ACCESSION));
+            fail("The write failure must be thrown");
+        } catch (IllegalStateException exception) {
+            assertEquals("Database went away", exception.getMessage());
+        }
+    }
+
+    private String readResource(String resource) throws Exception {
+        return new String(Files.readAllBytes(Paths.get(getClass().getClassLoader().getResource(resource).toURI())));
+    }
+
+}
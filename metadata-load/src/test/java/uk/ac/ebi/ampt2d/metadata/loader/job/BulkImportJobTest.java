@@ -0,0 +1,158 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.job;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.ac.ebi.ampt2d.metadata.converter.FileTypeConverter;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraAnalysisXmlSplitter;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraObjectLoadResult;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraObjectLoaderByAccession;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.AccessionVersionId;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FileService;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkImportJobTest {
+
+    private static final String ANALYSIS_DOCUMENT_BATCH_XML = "AnalysisDocumentBatch.xml";
+    private static final String ANALYSIS_ACCESSION = "ERZ496533";
+    private static final String SECOND_ANALYSIS_ACCESSION = "ERZ496534";
+    private static final String MISSING_ANALYSIS_ACCESSION = "ERZ000001";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private SraObjectLoaderByAccession<ANALYSISDocument> analysisDocumentLoader;
+
+    @Mock
+    private FileService fileService;
+
+    private Map<String, ANALYSISDocument> analysisDocuments = new HashMap<>();
+
+    private Path accessionsFile;
+
+    private Path checkpointFile;
+
+    @Before
+    public void setUp() throws Exception {
+        try (InputStream xmlStream = getClass().getClassLoader().getResourceAsStream(ANALYSIS_DOCUMENT_BATCH_XML)) {
+            new SraAnalysisXmlSplitter().split(xmlStream, analysisDocument ->
+                    analysisDocuments.put(analysisDocument.getANALYSIS().getAccession(), analysisDocument));
+        }
+        when(analysisDocumentLoader.loadSraObjects(anyListOf(String.class))).thenAnswer(invocation -> {
+            SraObjectLoadResult<ANALYSISDocument> loadResult = new SraObjectLoadResult<>();
+            for (String accession : (List<String>) invocation.getArguments()[0]) {
+                if (analysisDocuments.containsKey(accession)) {
+                    loadResult.addSraObject(accession, analysisDocuments.get(accession));
+                } else {
+                    loadResult.addFailure(accession, new NoSuchElementException(accession));
+                }
+            }
+            return loadResult;
+        });
+
+        accessionsFile = temporaryFolder.getRoot().toPath().resolve("accessions.txt");
+        Files.write(accessionsFile, Arrays.asList("# analyses to import", ANALYSIS_ACCESSION, "",
+                MISSING_ANALYSIS_ACCESSION, SECOND_ANALYSIS_ACCESSION));
+        checkpointFile = temporaryFolder.getRoot().toPath().resolve("accessions.checkpoint");
+    }
+
+    @Test
+    public void testImport() throws Exception {
+        ImportProgress progress = newJob(2).run(accessionsFile);
+
+        assertEquals(3, progress.getTotalAccessions());
+        assertEquals(2, progress.getImportedAccessions());
+        assertEquals(1, progress.getFailedAccessions());
+        assertEquals(4, progress.getSavedFiles());
+        ArgumentCaptor<List> savedFiles = ArgumentCaptor.forClass(List.class);
+        verify(fileService, times(2)).upsert(savedFiles.capture());
+        File firstFile = (File) savedFiles.getAllValues().get(0).get(0);
+        assertEquals("ERZ496/ERZ496533/Bailey_ACAN_306.vcf.gz.tbi", firstFile.getName());
+        assertEquals(File.Type.TABIX, firstFile.getType());
+        assertEquals(new AccessionVersionId("ERZ496/ERZ496533/Bailey_ACAN_306.vcf.gz.tbi", 1),
+                firstFile.getAccessionVersionId());
+
+        ImportCheckpoint checkpoint = new ImportCheckpoint(checkpointFile);
+        assertEquals(3, checkpoint.getCommittedAccessions());
+        assertEquals(SECOND_ANALYSIS_ACCESSION, checkpoint.getLastCommittedAccession());
+    }
+
+    @Test
+    public void testImportResumesAfterLastCommittedChunk() throws Exception {
+        when(fileService.upsert(anyListOf(File.class)))
+                .thenReturn(null)
+                .thenThrow(new IllegalStateException("Database went away"));
+        try {
+            newJob(1).run(accessionsFile);
+            fail("The failed chunk must stop the job");
+        } catch (IllegalStateException exception) {
+            assertEquals("Database went away", exception.getMessage());
+        }
+        assertEquals(ANALYSIS_ACCESSION, new ImportCheckpoint(checkpointFile).getLastCommittedAccession());
+
+        doReturn(null).when(fileService).upsert(anyListOf(File.class));
+        ImportProgress progress = newJob(1).run(accessionsFile);
+
+        assertEquals(1, progress.getSkippedAccessions());
+        assertEquals(1, progress.getImportedAccessions());
+        assertEquals(1, progress.getFailedAccessions());
+        verify(analysisDocumentLoader, times(2)).loadSraObjects(Arrays.asList(MISSING_ANALYSIS_ACCESSION));
+        verify(analysisDocumentLoader, times(1)).loadSraObjects(Arrays.asList(ANALYSIS_ACCESSION));
+        verify(analysisDocumentLoader, times(1)).loadSraObjects(Arrays.asList(SECOND_ANALYSIS_ACCESSION));
+        assertEquals(3, new ImportCheckpoint(checkpointFile).getCommittedAccessions());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testImportRejectsCheckpointOfAnotherFile() throws Exception {
+        new ImportCheckpoint(checkpointFile).save(1, SECOND_ANALYSIS_ACCESSION);
+        newJob(1).run(accessionsFile);
+    }
+
+    private BulkImportJob newJob(int chunkSize) {
+        return new BulkImportJob(analysisDocumentLoader, new FileTypeConverter(), fileService,
+                new ImportCheckpoint(checkpointFile), chunkSize);
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.loader.job;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.ac.ebi.ampt2d.metadata.converter.FileTypeConverter;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraAnalysisXmlSplitter;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraObjectLoadResult;
+import uk.ac.ebi.ampt2d.metadata.loader.api.SraObjectLoaderByAccession;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.AccessionVersionId;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FileService;
+import uk.ac.ebi.ena.sra.xml.ANALYSISDocument;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IncrementalSyncJobTest {
+
+    private static final String ANALYSIS_DOCUMENT_BATCH_XML = "AnalysisDocumentBatch.xml";
+    private static final String UNCHANGED_ANALYSIS_ACCESSION = "ERZ496533";
+    private static final String UPDATED_ANALYSIS_ACCESSION = "ERZ496534";
+    private static final String MISSING_ANALYSIS_ACCESSION = "ERZ000001";
+    private static final String OLD_ANALYSIS_ACCESSION = "ERZ000002";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private SraObjectLoaderByAccession<ANALYSISDocument> analysisDocumentLoader;
+
+    @Mock
+    private FileService fileService;
+
+    private Map<String, ANALYSISDocument> analysisDocuments = new HashMap<>();
+
+    private SyncWatermarkStore watermarkStore;
+
+    private Path discoveryFile;
+
+    private ZonedDateTime unchangedFilesLastModified = ZonedDateTime.of(2018, 3, 8, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Before
+    public void setUp() throws Exception {
+        try (InputStream xmlStream = getClass().getClassLoader().getResourceAsStream(ANALYSIS_DOCUMENT_BATCH_XML)) {
+            new SraAnalysisXmlSplitter().split(xmlStream, analysisDocument ->
+                    analysisDocuments.put(analysisDocument.getANALYSIS().getAccession(), analysisDocument));
+        }
+        when(analysisDocumentLoader.loadSraObjects(anyListOf(String.class))).thenAnswer(invocation -> {
+            SraObjectLoadResult<ANALYSISDocument> loadResult = new SraObjectLoadResult<>();
+            for (String accession : (List<String>) invocation.getArguments()[0]) {
+                if (analysisDocuments.containsKey(accession)) {
+                    loadResult.addSraObject(accession, analysisDocuments.get(accession));
+                } else {
+                    loadResult.addFailure(accession, new NoSuchElementException(accession));
+                }
+            }
+            return loadResult;
+        });
+        // The files of the unchanged analysis were stored the day after its last upstream update
+        when(fileService.findLastModifiedDates(anyCollectionOf(AccessionVersionId.class))).thenAnswer(invocation -> {
+            Map<AccessionVersionId, ZonedDateTime> lastModifiedDates = new HashMap<>();
+            for (AccessionVersionId id : (Collection<AccessionVersionId>) invocation.getArguments()[0]) {
+                if (id.getAccession().contains(UNCHANGED_ANALYSIS_ACCESSION)) {
+                    lastModifiedDates.put(id, unchangedFilesLastModified);
+                }
+            }
+            return lastModifiedDates;
+        });
+
+        watermarkStore = new SyncWatermarkStore(temporaryFolder.getRoot().toPath().resolve("sync.properties"));
+        watermarkStore.saveWatermark(IncrementalSyncJob.ANALYSIS_ENTITY_TYPE, LocalDate.of(2018, 3, 1));
+        discoveryFile = temporaryFolder.getRoot().toPath().resolve("discovery.tsv");
+    }
+
+    @Test
+    public void testOnlyChangedAnalysesAreSynced() throws Exception {
+        Files.write(discoveryFile, Arrays.asList("accession\tlast_updated",
+                OLD_ANALYSIS_ACCESSION + "\t2018-01-01",
+                UNCHANGED_ANALYSIS_ACCESSION + "\t2018-03-07",
+                UPDATED_ANALYSIS_ACCESSION + "\t2018-03-07"));
+
+        ImportProgress progress = newJob().run(discoveryFile);
+
+        assertEquals(3, progress.getTotalAccessions());
+        assertEquals(1, progress.getSkippedAccessions());
+        assertEquals(2, progress.getImportedAccessions());
+        assertEquals(1, progress.getUnchangedAccessions());
+        assertEquals(2, progress.getSavedFiles());
+        verify(analysisDocumentLoader).loadSraObjects(
+                Arrays.asList(UNCHANGED_ANALYSIS_ACCESSION, UPDATED_ANALYSIS_ACCESSION));
+        ArgumentCaptor<List> savedFiles = ArgumentCaptor.forClass(List.class);
+        verify(fileService, times(1)).upsert(savedFiles.capture());
+        assertEquals("ERZ496/ERZ496534/Bailey_ACAN_307.vcf.gz.tbi",
+                ((File) savedFiles.getValue().get(0)).getName());
+        assertEquals(LocalDate.of(2018, 3, 7), new SyncWatermarkStore(temporaryFolder.getRoot().toPath()
+                .resolve("sync.properties")).getWatermark(IncrementalSyncJob.ANALYSIS_ENTITY_TYPE));
+    }
+
+    @Test
+    public void testAnalysisUpdatedOnTheDayItsFilesWereStoredIsSynced() throws Exception {
+        unchangedFilesLastModified = ZonedDateTime.of(2018, 3, 7, 10, 0, 0, 0, ZoneOffset.UTC);
+        Files.write(discoveryFile, Arrays.asList("accession\tlast_updated",
+                UNCHANGED_ANALYSIS_ACCESSION + "\t2018-03-07",
+                UPDATED_ANALYSIS_ACCESSION + "\t2018-03-07"));
+
+        ImportProgress progress = newJob().run(discoveryFile);
+
+        assertEquals(0, progress.getUnchangedAccessions());
+        assertEquals(4, progress.getSavedFiles());
+    }
+
+    @Test
+    public void testWatermarkStopsBeforeFailures() throws Exception {
+        Files.write(discoveryFile, Arrays.asList(MISSING_ANALYSIS_ACCESSION + "\t2018-03-05",
+                UPDATED_ANALYSIS_ACCESSION + "\t2018-03-07"));
+
+        ImportProgress progress = newJob().run(discoveryFile);
+
+        assertEquals(1, progress.getFailedAccessions());
+        assertEquals(LocalDate.of(2018, 3, 5), watermarkStore.getWatermark(IncrementalSyncJob.ANALYSIS_ENTITY_TYPE));
+    }
+
+    private IncrementalSyncJob newJob() {
+        return new IncrementalSyncJob(analysisDocumentLoader, new FileTypeConverter(), fileService, watermarkStore);
+    }
+
+}
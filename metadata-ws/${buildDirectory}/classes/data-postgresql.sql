@@ -0,0 +1,59 @@
+--
+--
+-- Copyright 2018 EMBL - European Bioinformatics Institute
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+--
+-- Every entity takes its ids from its own sequence, allocated in blocks of 50 by the pooled-lo optimizer. Databases
+-- created while the ids came from the shared hibernate_sequence already hold rows with higher ids, so each sequence
+-- is moved past the highest stored id. It never moves a sequence backwards, so it is safe to run on every start.
+SELECT setval('analysis_sequence', GREATEST((SELECT COALESCE(MAX(id), 1) FROM analysis), (SELECT last_value FROM analysis_sequence)));
+SELECT setval('file_sequence', GREATEST((SELECT COALESCE(MAX(id), 1) FROM file), (SELECT last_value FROM file_sequence)));
+SELECT setval('reference_sequence_sequence', GREATEST((SELECT COALESCE(MAX(id), 1) FROM reference_sequence), (SELECT last_value FROM reference_sequence_sequence)));
+SELECT setval('sample_sequence', GREATEST((SELECT COALESCE(MAX(id), 1) FROM sample), (SELECT last_value FROM sample_sequence)));
+SELECT setval('study_sequence', GREATEST((SELECT COALESCE(MAX(id), 1) FROM study), (SELECT last_value FROM study_sequence)));
+SELECT setval('taxonomy_sequence', GREATEST((SELECT COALESCE(MAX(id), 1) FROM taxonomy), (SELECT last_value FROM taxonomy_sequence)));
+SELECT setval('web_resource_sequence', GREATEST((SELECT COALESCE(MAX(id), 1) FROM web_resource), (SELECT last_value FROM web_resource_sequence)));
+--
+-- Studies are looked up by accession ignoring case, latest version first, which the unique (accession, version)
+-- index can not serve. This index answers it by reading a single entry.
+CREATE INDEX IF NOT EXISTS study_lower_accession_version_idx ON study (lower(accession), version DESC);
+--
+-- Exactly one version of every accession is flagged as the latest. Rows stored before the flag existed have none, the
+-- highest version of their accession is flagged once. The partial indexes let the latest versions be listed without
+-- reading the older ones.
+UPDATE analysis SET latest = COALESCE(version = (SELECT MAX(version) FROM analysis other WHERE other.accession = analysis.accession), false) WHERE latest IS NULL;
+UPDATE file SET latest = COALESCE(version = (SELECT MAX(version) FROM file other WHERE other.accession = file.accession), false) WHERE latest IS NULL;
+UPDATE sample SET latest = COALESCE(version = (SELECT MAX(version) FROM sample other WHERE other.accession = sample.accession), false) WHERE latest IS NULL;
+UPDATE study SET latest = COALESCE(version = (SELECT MAX(version) FROM study other WHERE other.accession = study.accession), false) WHERE latest IS NULL;
+CREATE INDEX IF NOT EXISTS analysis_latest_idx ON analysis (id) WHERE latest;
+CREATE INDEX IF NOT EXISTS file_latest_idx ON file (id) WHERE latest;
+CREATE INDEX IF NOT EXISTS sample_latest_idx ON sample (id) WHERE latest;
+CREATE INDEX IF NOT EXISTS study_latest_idx ON study (id) WHERE latest;
+--
+-- Full text indexes for the study text search. The expressions must stay the same as the ones built by
+-- FullTextPostgreSQLDialect, otherwise the searches can not use the indexes.
+CREATE INDEX IF NOT EXISTS study_name_text_idx ON study USING GIN (to_tsvector('english', coalesce(name, '')));
+CREATE INDEX IF NOT EXISTS study_description_text_idx ON study USING GIN (to_tsvector('english', coalesce(description, '')));
+CREATE INDEX IF NOT EXISTS analysis_description_text_idx ON analysis USING GIN (to_tsvector('english', coalesce(description, '')));
+CREATE INDEX IF NOT EXISTS analysis_study_idx ON analysis (study_id);
+--
+-- Trigram indexes for the fuzzy search. They serve both the case insensitive substring match and the word similarity
+-- match built by FullTextPostgreSQLDialect. Creating the extension needs a role allowed to do so, it can also be
+-- created once by an administrator.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS study_name_trgm_idx ON study USING GIN (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS study_description_trgm_idx ON study USING GIN (description gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS study_center_trgm_idx ON study USING GIN (center gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS sample_name_trgm_idx ON sample USING GIN (name gin_trgm_ops);
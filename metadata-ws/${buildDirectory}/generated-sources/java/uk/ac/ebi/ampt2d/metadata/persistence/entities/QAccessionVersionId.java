@@ -0,0 +1,39 @@
+package uk.ac.ebi.ampt2d.metadata.persistence.entities;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.Generated;
+import com.querydsl.core.types.Path;
+
+
+/**
+ * QAccessionVersionId is a Querydsl query type for AccessionVersionId
+ */
+@Generated("com.querydsl.codegen.EmbeddableSerializer")
+public class QAccessionVersionId extends BeanPath<AccessionVersionId> {
+
+    private static final long serialVersionUID = -1910302204L;
+
+    public static final QAccessionVersionId accessionVersionId = new QAccessionVersionId("accessionVersionId");
+
+    public final StringPath accession = createString("accession");
+
+    public final NumberPath<Integer> version = createNumber("version", Integer.class);
+
+    public QAccessionVersionId(String variable) {
+        super(AccessionVersionId.class, forVariable(variable));
+    }
+
+    public QAccessionVersionId(Path<? extends AccessionVersionId> path) {
+        super(path.getType(), path.getMetadata());
+    }
+
+    public QAccessionVersionId(PathMetadata metadata) {
+        super(AccessionVersionId.class, metadata);
+    }
+
+}
+
@@ -0,0 +1,77 @@
+package uk.ac.ebi.ampt2d.metadata.persistence.entities;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.Generated;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.PathInits;
+
+
+/**
+ * QAnalysis is a Querydsl query type for Analysis
+ */
+@Generated("com.querydsl.codegen.EntitySerializer")
+public class QAnalysis extends EntityPathBase<Analysis> {
+
+    private static final long serialVersionUID = -918431023L;
+
+    private static final PathInits INITS = PathInits.DIRECT2;
+
+    public static final QAnalysis analysis = new QAnalysis("analysis");
+
+    public final QAuditable _super = new QAuditable(this);
+
+    public final QAccessionVersionId accessionVersionId;
+
+    public final StringPath description = createString("description");
+
+    public final ListPath<File, QFile> files = this.<File, QFile>createList("files", File.class, QFile.class, PathInits.DIRECT2);
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    //inherited
+    public final DateTimePath<java.time.ZonedDateTime> lastModifiedDate = _super.lastModifiedDate;
+
+    public final BooleanPath latest = createBoolean("latest");
+
+    public final StringPath name = createString("name");
+
+    public final StringPath platform = createString("platform");
+
+    public final ListPath<ReferenceSequence, QReferenceSequence> referenceSequences = this.<ReferenceSequence, QReferenceSequence>createList("referenceSequences", ReferenceSequence.class, QReferenceSequence.class, PathInits.DIRECT2);
+
+    public final ListPath<Sample, QSample> samples = this.<Sample, QSample>createList("samples", Sample.class, QSample.class, PathInits.DIRECT2);
+
+    public final QStudy study;
+
+    public final EnumPath<Analysis.Technology> technology = createEnum("technology", Analysis.Technology.class);
+
+    public final EnumPath<Analysis.Type> type = createEnum("type", Analysis.Type.class);
+
+    public QAnalysis(String variable) {
+        this(Analysis.class, forVariable(variable), INITS);
+    }
+
+    public QAnalysis(Path<? extends Analysis> path) {
+        this(path.getType(), path.getMetadata(), PathInits.getFor(path.getMetadata(), INITS));
+    }
+
+    public QAnalysis(PathMetadata metadata) {
+        this(metadata, PathInits.getFor(metadata, INITS));
+    }
+
+    public QAnalysis(PathMetadata metadata, PathInits inits) {
+        this(Analysis.class, metadata, inits);
+    }
+
+    public QAnalysis(Class<? extends Analysis> type, PathMetadata metadata, PathInits inits) {
+        super(type, metadata, inits);
+        this.accessionVersionId = inits.isInitialized("accessionVersionId") ? new QAccessionVersionId(forProperty("accessionVersionId")) : null;
+        this.study = inits.isInitialized("study") ? new QStudy(forProperty("study"), inits.get("study")) : null;
+    }
+
+}
+
@@ -0,0 +1,42 @@
+package uk.ac.ebi.ampt2d.metadata.persistence.entities;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.Generated;
+import com.querydsl.core.types.Path;
+
+
+/**
+ * QAuditable is a Querydsl query type for Auditable
+ */
+@Generated("com.querydsl.codegen.SupertypeSerializer")
+public class QAuditable extends EntityPathBase<Auditable<?>> {
+
+    private static final long serialVersionUID = -815324576L;
+
+    public static final QAuditable auditable = new QAuditable("auditable");
+
+    public final SimplePath<Object> id = createSimple("id", Object.class);
+
+    public final DateTimePath<java.time.ZonedDateTime> lastModifiedDate = createDateTime("lastModifiedDate", java.time.ZonedDateTime.class);
+
+    @SuppressWarnings({"all", "rawtypes", "unchecked"})
+    public QAuditable(String variable) {
+        super((Class) Auditable.class, forVariable(variable));
+    }
+
+    @SuppressWarnings({"all", "rawtypes", "unchecked"})
+    public QAuditable(Path<? extends Auditable> path) {
+        super((Class) path.getType(), path.getMetadata());
+    }
+
+    @SuppressWarnings({"all", "rawtypes", "unchecked"})
+    public QAuditable(PathMetadata metadata) {
+        super((Class) Auditable.class, metadata);
+    }
+
+}
+
@@ -0,0 +1,66 @@
+package uk.ac.ebi.ampt2d.metadata.persistence.entities;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.Generated;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.PathInits;
+
+
+/**
+ * QFile is a Querydsl query type for File
+ */
+@Generated("com.querydsl.codegen.EntitySerializer")
+public class QFile extends EntityPathBase<File> {
+
+    private static final long serialVersionUID = 420863985L;
+
+    private static final PathInits INITS = PathInits.DIRECT2;
+
+    public static final QFile file = new QFile("file");
+
+    public final QAuditable _super = new QAuditable(this);
+
+    public final QAccessionVersionId accessionVersionId;
+
+    public final StringPath hash = createString("hash");
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    //inherited
+    public final DateTimePath<java.time.ZonedDateTime> lastModifiedDate = _super.lastModifiedDate;
+
+    public final BooleanPath latest = createBoolean("latest");
+
+    public final StringPath name = createString("name");
+
+    public final NumberPath<Long> size = createNumber("size", Long.class);
+
+    public final EnumPath<File.Type> type = createEnum("type", File.Type.class);
+
+    public QFile(String variable) {
+        this(File.class, forVariable(variable), INITS);
+    }
+
+    public QFile(Path<? extends File> path) {
+        this(path.getType(), path.getMetadata(), PathInits.getFor(path.getMetadata(), INITS));
+    }
+
+    public QFile(PathMetadata metadata) {
+        this(metadata, PathInits.getFor(metadata, INITS));
+    }
+
+    public QFile(PathMetadata metadata, PathInits inits) {
+        this(File.class, metadata, inits);
+    }
+
+    public QFile(Class<? extends File> type, PathMetadata metadata, PathInits inits) {
+        super(type, metadata, inits);
+        this.accessionVersionId = inits.isInitialized("accessionVersionId") ? new QAccessionVersionId(forProperty("accessionVersionId")) : null;
+    }
+
+}
+
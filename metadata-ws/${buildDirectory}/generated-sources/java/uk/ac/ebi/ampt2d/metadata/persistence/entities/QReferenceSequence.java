@@ -0,0 +1,51 @@
+package uk.ac.ebi.ampt2d.metadata.persistence.entities;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.Generated;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.PathInits;
+
+
+/**
+ * QReferenceSequence is a Querydsl query type for ReferenceSequence
+ */
+@Generated("com.querydsl.codegen.EntitySerializer")
+public class QReferenceSequence extends EntityPathBase<ReferenceSequence> {
+
+    private static final long serialVersionUID = -1855513641L;
+
+    public static final QReferenceSequence referenceSequence = new QReferenceSequence("referenceSequence");
+
+    public final QAuditable _super = new QAuditable(this);
+
+    public final ListPath<String, StringPath> accessions = this.<String, StringPath>createList("accessions", String.class, StringPath.class, PathInits.DIRECT2);
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    //inherited
+    public final DateTimePath<java.time.ZonedDateTime> lastModifiedDate = _super.lastModifiedDate;
+
+    public final StringPath name = createString("name");
+
+    public final StringPath patch = createString("patch");
+
+    public final EnumPath<ReferenceSequence.Type> type = createEnum("type", ReferenceSequence.Type.class);
+
+    public QReferenceSequence(String variable) {
+        super(ReferenceSequence.class, forVariable(variable));
+    }
+
+    public QReferenceSequence(Path<? extends ReferenceSequence> path) {
+        super(path.getType(), path.getMetadata());
+    }
+
+    public QReferenceSequence(PathMetadata metadata) {
+        super(ReferenceSequence.class, metadata);
+    }
+
+}
+
@@ -0,0 +1,62 @@
+package uk.ac.ebi.ampt2d.metadata.persistence.entities;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.Generated;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.PathInits;
+
+
+/**
+ * QSample is a Querydsl query type for Sample
+ */
+@Generated("com.querydsl.codegen.EntitySerializer")
+public class QSample extends EntityPathBase<Sample> {
+
+    private static final long serialVersionUID = 1088198367L;
+
+    private static final PathInits INITS = PathInits.DIRECT2;
+
+    public static final QSample sample = new QSample("sample");
+
+    public final QAuditable _super = new QAuditable(this);
+
+    public final QAccessionVersionId accessionVersionId;
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    //inherited
+    public final DateTimePath<java.time.ZonedDateTime> lastModifiedDate = _super.lastModifiedDate;
+
+    public final BooleanPath latest = createBoolean("latest");
+
+    public final StringPath name = createString("name");
+
+    public final ListPath<Taxonomy, QTaxonomy> taxonomies = this.<Taxonomy, QTaxonomy>createList("taxonomies", Taxonomy.class, QTaxonomy.class, PathInits.DIRECT2);
+
+    public QSample(String variable) {
+        this(Sample.class, forVariable(variable), INITS);
+    }
+
+    public QSample(Path<? extends Sample> path) {
+        this(path.getType(), path.getMetadata(), PathInits.getFor(path.getMetadata(), INITS));
+    }
+
+    public QSample(PathMetadata metadata) {
+        this(metadata, PathInits.getFor(metadata, INITS));
+    }
+
+    public QSample(PathMetadata metadata, PathInits inits) {
+        this(Sample.class, metadata, inits);
+    }
+
+    public QSample(Class<? extends Sample> type, PathMetadata metadata, PathInits inits) {
+        super(type, metadata, inits);
+        this.accessionVersionId = inits.isInitialized("accessionVersionId") ? new QAccessionVersionId(forProperty("accessionVersionId")) : null;
+    }
+
+}
+
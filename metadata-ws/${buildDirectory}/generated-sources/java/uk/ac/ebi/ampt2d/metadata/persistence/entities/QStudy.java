@@ -0,0 +1,81 @@
+package uk.ac.ebi.ampt2d.metadata.persistence.entities;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.Generated;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.PathInits;
+
+
+/**
+ * QStudy is a Querydsl query type for Study
+ */
+@Generated("com.querydsl.codegen.EntitySerializer")
+public class QStudy extends EntityPathBase<Study> {
+
+    private static final long serialVersionUID = 174223860L;
+
+    private static final PathInits INITS = PathInits.DIRECT2;
+
+    public static final QStudy study = new QStudy("study");
+
+    public final QAuditable _super = new QAuditable(this);
+
+    public final QAccessionVersionId accessionVersionId;
+
+    public final ListPath<Analysis, QAnalysis> analyses = this.<Analysis, QAnalysis>createList("analyses", Analysis.class, QAnalysis.class, PathInits.DIRECT2);
+
+    public final BooleanPath browsable = createBoolean("browsable");
+
+    public final StringPath center = createString("center");
+
+    public final ListPath<Study, QStudy> childStudies = this.<Study, QStudy>createList("childStudies", Study.class, QStudy.class, PathInits.DIRECT2);
+
+    public final BooleanPath deprecated = createBoolean("deprecated");
+
+    public final StringPath description = createString("description");
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    //inherited
+    public final DateTimePath<java.time.ZonedDateTime> lastModifiedDate = _super.lastModifiedDate;
+
+    public final BooleanPath latest = createBoolean("latest");
+
+    public final StringPath name = createString("name");
+
+    public final ListPath<Publication, QPublication> publications = this.<Publication, QPublication>createList("publications", Publication.class, QPublication.class, PathInits.DIRECT2);
+
+    public final DatePath<java.time.LocalDate> releaseDate = createDate("releaseDate", java.time.LocalDate.class);
+
+    public final ListPath<WebResource, QWebResource> resources = this.<WebResource, QWebResource>createList("resources", WebResource.class, QWebResource.class, PathInits.DIRECT2);
+
+    public final QTaxonomy taxonomy;
+
+    public QStudy(String variable) {
+        this(Study.class, forVariable(variable), INITS);
+    }
+
+    public QStudy(Path<? extends Study> path) {
+        this(path.getType(), path.getMetadata(), PathInits.getFor(path.getMetadata(), INITS));
+    }
+
+    public QStudy(PathMetadata metadata) {
+        this(metadata, PathInits.getFor(metadata, INITS));
+    }
+
+    public QStudy(PathMetadata metadata, PathInits inits) {
+        this(Study.class, metadata, inits);
+    }
+
+    public QStudy(Class<? extends Study> type, PathMetadata metadata, PathInits inits) {
+        super(type, metadata, inits);
+        this.accessionVersionId = inits.isInitialized("accessionVersionId") ? new QAccessionVersionId(forProperty("accessionVersionId")) : null;
+        this.taxonomy = inits.isInitialized("taxonomy") ? new QTaxonomy(forProperty("taxonomy")) : null;
+    }
+
+}
+
@@ -0,0 +1,49 @@
+package uk.ac.ebi.ampt2d.metadata.persistence.entities;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.Generated;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.PathInits;
+
+
+/**
+ * QTaxonomy is a Querydsl query type for Taxonomy
+ */
+@Generated("com.querydsl.codegen.EntitySerializer")
+public class QTaxonomy extends EntityPathBase<Taxonomy> {
+
+    private static final long serialVersionUID = -156509370L;
+
+    public static final QTaxonomy taxonomy = new QTaxonomy("taxonomy");
+
+    public final QAuditable _super = new QAuditable(this);
+
+    public final ListPath<Taxonomy, QTaxonomy> ancestors = this.<Taxonomy, QTaxonomy>createList("ancestors", Taxonomy.class, QTaxonomy.class, PathInits.DIRECT2);
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    //inherited
+    public final DateTimePath<java.time.ZonedDateTime> lastModifiedDate = _super.lastModifiedDate;
+
+    public final StringPath name = createString("name");
+
+    public final NumberPath<Long> taxonomyId = createNumber("taxonomyId", Long.class);
+
+    public QTaxonomy(String variable) {
+        super(Taxonomy.class, forVariable(variable));
+    }
+
+    public QTaxonomy(Path<? extends Taxonomy> path) {
+        super(path.getType(), path.getMetadata());
+    }
+
+    public QTaxonomy(PathMetadata metadata) {
+        super(Taxonomy.class, metadata);
+    }
+
+}
+
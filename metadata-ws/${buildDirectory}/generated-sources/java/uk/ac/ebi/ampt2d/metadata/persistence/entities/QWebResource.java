@@ -0,0 +1,46 @@
+package uk.ac.ebi.ampt2d.metadata.persistence.entities;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.Generated;
+import com.querydsl.core.types.Path;
+
+
+/**
+ * QWebResource is a Querydsl query type for WebResource
+ */
+@Generated("com.querydsl.codegen.EntitySerializer")
+public class QWebResource extends EntityPathBase<WebResource> {
+
+    private static final long serialVersionUID = -1586907283L;
+
+    public static final QWebResource webResource = new QWebResource("webResource");
+
+    public final QAuditable _super = new QAuditable(this);
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    //inherited
+    public final DateTimePath<java.time.ZonedDateTime> lastModifiedDate = _super.lastModifiedDate;
+
+    public final StringPath resourceUrl = createString("resourceUrl");
+
+    public final EnumPath<WebResource.Type> type = createEnum("type", WebResource.Type.class);
+
+    public QWebResource(String variable) {
+        super(WebResource.class, forVariable(variable));
+    }
+
+    public QWebResource(Path<? extends WebResource> path) {
+        super(path.getType(), path.getMetadata());
+    }
+
+    public QWebResource(PathMetadata metadata) {
+        super(WebResource.class, metadata);
+    }
+
+}
+
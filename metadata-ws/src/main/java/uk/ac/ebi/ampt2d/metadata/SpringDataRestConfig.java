@@ -31,6 +31,7 @@ import org.springframework.validation.Validator;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+import uk.ac.ebi.ampt2d.metadata.aop.LatestVersionAspect;
 import uk.ac.ebi.ampt2d.metadata.aop.StudyDeprecationAspect;
 import uk.ac.ebi.ampt2d.metadata.aop.StudyReleaseDateAspect;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.Analysis;
@@ -42,8 +43,19 @@ import uk.ac.ebi.ampt2d.metadata.persistence.entities.Study;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.Taxonomy;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.WebResource;
 import uk.ac.ebi.ampt2d.metadata.persistence.idconverter.CustomBackendIdConverter;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.FileRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.BulkImportService;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.BulkImportServiceImpl;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FileService;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FileServiceImpl;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FuzzyTextSearchEngine;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.LikeFuzzyTextSearchEngine;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.LikeStudyTextSearchEngine;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.PostgreSQLFullTextStudyTextSearchEngine;
 import uk.ac.ebi.ampt2d.metadata.persistence.services.StudyService;
 import uk.ac.ebi.ampt2d.metadata.persistence.services.StudyServiceImpl;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.StudyTextSearchEngine;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.TrigramFuzzyTextSearchEngine;
 import uk.ac.ebi.ampt2d.metadata.rest.assemblers.GenericResourceAssembler;
 import uk.ac.ebi.ampt2d.metadata.rest.controllers.AnalysisRestController;
 import uk.ac.ebi.ampt2d.metadata.rest.controllers.ReferenceSequenceRestController;
@@ -116,6 +128,56 @@ public class SpringDataRestConfig {
         return new StudyServiceImpl();
     }
 
+    /**
+     * Inject the StudyTextSearchEngine bean selected by "endpoints.studies.text-search.engine"
+     *
+     * "like" matches substrings on any database without an index, "postgresql" uses PostgreSQL full text search
+     * and needs the FullTextPostgreSQLDialect
+     *
+     * @return StudyTextSearchEngine
+     */
+    @Bean
+    @ConditionalOnProperty(name = "endpoints.studies.text-search.engine", havingValue = "postgresql")
+    public StudyTextSearchEngine postgreSQLFullTextStudyTextSearchEngine() {
+        return new PostgreSQLFullTextStudyTextSearchEngine();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "endpoints.studies.text-search.engine", havingValue = "like", matchIfMissing = true)
+    public StudyTextSearchEngine likeStudyTextSearchEngine() {
+        return new LikeStudyTextSearchEngine();
+    }
+
+    /**
+     * Inject the FuzzyTextSearchEngine bean selected by "endpoints.fuzzy-search.engine"
+     *
+     * "like" matches substrings on any database without an index, "trigram" also matches misspelt terms with the
+     * pg_trgm extension and needs the FullTextPostgreSQLDialect
+     *
+     * @return FuzzyTextSearchEngine
+     */
+    @Bean
+    @ConditionalOnProperty(name = "endpoints.fuzzy-search.engine", havingValue = "trigram")
+    public FuzzyTextSearchEngine trigramFuzzyTextSearchEngine() {
+        return new TrigramFuzzyTextSearchEngine();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "endpoints.fuzzy-search.engine", havingValue = "like", matchIfMissing = true)
+    public FuzzyTextSearchEngine likeFuzzyTextSearchEngine() {
+        return new LikeFuzzyTextSearchEngine();
+    }
+
+    @Bean
+    public FileService fileService(FileRepository fileRepository) {
+        return new FileServiceImpl(fileRepository);
+    }
+
+    @Bean
+    public BulkImportService bulkImportService() {
+        return new BulkImportServiceImpl();
+    }
+
     @Bean
     public GenericResourceAssembler<Analysis, AnalysisResource> analysisResourceAssembler() {
         return new GenericResourceAssembler<Analysis, AnalysisResource>(AnalysisRestController.class, AnalysisResource.class);
@@ -136,6 +198,19 @@ public class SpringDataRestConfig {
         return new GenericResourceAssembler<Sample, SampleResource>(SampleRestController.class, SampleResource.class);
     }
 
+    /**
+     * Inject LatestVersionAspect bean
+     *
+     * The LatestVersionAspect flags the latest version of every accession whenever a versioned entity is saved or
+     * deleted
+     *
+     * @return LatestVersionAspect
+     */
+    @Bean
+    public LatestVersionAspect latestVersionAspect() {
+        return new LatestVersionAspect();
+    }
+
     /**
      * Inject StudyDeprecationAspect bean
      *
@@ -20,11 +20,14 @@ package uk.ac.ebi.ampt2d.metadata;
 import com.fasterxml.classmate.TypeResolver;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.context.request.async.DeferredResult;
@@ -137,15 +140,46 @@ public class SwaggerConfig {
     }
 
     private AlternateTypeRule[] getSubstitutionRules() {
-        AlternateTypeRule[] alternateTypeRules = new AlternateTypeRule[2];
+        AlternateTypeRule[] alternateTypeRules = new AlternateTypeRule[3];
         alternateTypeRules[0] = newRule(typeResolver.resolve(DeferredResult.class,
                 typeResolver.resolve(ResponseEntity.class, WildcardType.class)),
                 typeResolver.resolve(WildcardType.class));
         alternateTypeRules[1] = newRule(typeResolver.resolve(Iterable.class, WildcardType.class),
                 typeResolver.resolve(List.class, WildcardType.class));
+        // Takes precedence over the undocumented Pageable substitute of springfox-data-rest
+        alternateTypeRules[2] = newRule(typeResolver.resolve(Pageable.class),
+                typeResolver.resolve(PageableParameters.class), Ordered.HIGHEST_PRECEDENCE);
         return alternateTypeRules;
     }
 
+    /**
+     * Documents the query parameters a Pageable argument of a controller method is resolved from
+     */
+    static class PageableParameters {
+
+        private Integer page;
+
+        private Integer size;
+
+        private List<String> sort;
+
+        @ApiParam(value = "Page number, starting from 0", example = "0")
+        public Integer getPage() {
+            return page;
+        }
+
+        @ApiParam(value = "Page size, larger sizes are capped to the maximum page size", example = "20")
+        public Integer getSize() {
+            return size;
+        }
+
+        @ApiParam(value = "Sorting criteria in the form property[,asc|desc], may be repeated", example = "name,asc")
+        public List<String> getSort() {
+            return sort;
+        }
+
+    }
+
     @Bean
     UiConfiguration uiConfig() {
         return UiConfigurationBuilder.builder()
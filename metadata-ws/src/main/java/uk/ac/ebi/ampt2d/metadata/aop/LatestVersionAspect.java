@@ -0,0 +1,243 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.Hibernate;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.AbstractRepositoryMetadata;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.Versioned;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.io.Serializable;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * An @Aspect for keeping the latest flag of versioned entities up to date
+ *
+ * Exactly one stored version of every accession is flagged as the latest, so listing the latest versions is a filter
+ * on the flag instead of a comparison with every other version of the same accession. Accessions are compared
+ * ignoring case, like the accession searches do.
+ *
+ * The stored latest versions are locked while the flag is moved, so concurrent saves of the same accession are
+ * serialised. The first versions of a new accession have nothing to lock, on PostgreSQL the unique index on the
+ * flagged accessions created by db/migrations/003-latest-version-flag.sql rejects the second one.
+ */
+@Aspect
+public class LatestVersionAspect {
+
+    /**
+     * Maximum number of accessions in a single IN clause when looking up the stored latest versions
+     */
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * An @Around advice for CrudRepository.save(..) method execution
+     *
+     * If the saved entities are versioned, it flags the highest version of every saved accession as the latest and
+     * clears the flag of the version that was the latest until then. The cleared flags are written before the join
+     * point method is called, within the same transaction, so that no accession ever has two flagged versions.
+     *
+     * @param proceedingJoinPoint
+     * @return the return object from join point method execution
+     * @throws Throwable
+     */
+    @Around("execution(* org.springframework.data.repository.CrudRepository.save(..))")
+    public Object updateLatestVersionAdviceSave(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+        List<Versioned> entities = getVersionedEntities(proceedingJoinPoint.getArgs()[0]);
+        if (entities.isEmpty()) {
+            return proceedingJoinPoint.proceed();
+        }
+
+        return proceedInTransaction(() -> {
+            entities.stream()
+                    .collect(Collectors.groupingBy(Hibernate::getClass))
+                    .forEach(this::updateLatestFlags);
+            return proceedingJoinPoint.proceed();
+        });
+    }
+
+    /**
+     * An @Around advice for CrudRepository.delete(..) method execution
+     *
+     * If the repository stores versioned entities and a deleted entity was the latest version of its accession, it
+     * flags the highest remaining version as the latest, within the same transaction as the join point method
+     * execution.
+     *
+     * @param proceedingJoinPoint
+     * @return the return object from join point method execution
+     * @throws Throwable
+     */
+    @Around("execution(* org.springframework.data.repository.CrudRepository.delete(..))")
+    public Object updateLatestVersionAdviceDelete(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+        Class<?> domainType = getDomainType(proceedingJoinPoint.getThis());
+        if (domainType == null || !Versioned.class.isAssignableFrom(domainType)) {
+            return proceedingJoinPoint.proceed();
+        }
+
+        return proceedInTransaction(() -> {
+            Object argument = proceedingJoinPoint.getArgs()[0];
+            if (argument instanceof Serializable && !(argument instanceof Versioned)) {
+                argument = entityManager.find(domainType, argument);
+            }
+            List<Versioned> latestEntities = getVersionedEntities(argument).stream()
+                    .filter(Versioned::isLatest)
+                    .collect(Collectors.toList());
+
+            Object result = proceedingJoinPoint.proceed();
+            latestEntities.forEach(this::flagHighestRemainingVersion);
+            return result;
+        });
+    }
+
+    private void updateLatestFlags(Class<?> entityType, List<Versioned> entities) {
+        Map<String, Versioned> latestByAccession = new HashMap<>();
+        List<Versioned> storedLatestEntities = findStoredLatestEntities(entityType, entities.stream()
+                .map(LatestVersionAspect::getAccessionKey)
+                .distinct()
+                .collect(Collectors.toList()));
+        storedLatestEntities.forEach(stored -> latestByAccession.put(getAccessionKey(stored), stored));
+
+        for (Versioned entity : entities) {
+            String accessionKey = getAccessionKey(entity);
+            Versioned latest = latestByAccession.get(accessionKey);
+            if (latest == null || entity.getAccessionVersionId().getVersion() >=
+                    latest.getAccessionVersionId().getVersion()) {
+                latestByAccession.put(accessionKey, entity);
+            }
+        }
+
+        storedLatestEntities.forEach(stored ->
+                stored.setLatest(latestByAccession.get(getAccessionKey(stored)) == stored));
+        if (!storedLatestEntities.isEmpty()) {
+            entityManager.flush();
+        }
+        entities.forEach(entity -> entity.setLatest(latestByAccession.get(getAccessionKey(entity)) == entity));
+    }
+
+    /**
+     * @param accessionKeys lower case accessions
+     * @return the stored latest versions of the accessions, locked until the end of the transaction
+     */
+    @SuppressWarnings("unchecked")
+    private List<Versioned> findStoredLatestEntities(Class<?> entityType, List<String> accessionKeys) {
+        String query = "select entity from " + entityManager.getMetamodel().entity(entityType).getName() +
+                " entity where lower(entity.accessionVersionId.accession) in :accessions and entity.latest = true";
+        List<Versioned> storedLatestEntities = new ArrayList<>();
+        for (int from = 0; from < accessionKeys.size(); from += LOOKUP_CHUNK_SIZE) {
+            storedLatestEntities.addAll(entityManager.createQuery(query)
+                    .setParameter("accessions",
+                            accessionKeys.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, accessionKeys.size())))
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList());
+        }
+        return storedLatestEntities;
+    }
+
+    private void flagHighestRemainingVersion(Versioned deletedEntity) {
+        String query = "select entity from " +
+                entityManager.getMetamodel().entity(Hibernate.getClass(deletedEntity)).getName() +
+                " entity where lower(entity.accessionVersionId.accession) = :accession " +
+                "order by entity.accessionVersionId.version desc";
+        entityManager.createQuery(query)
+                .setParameter("accession", getAccessionKey(deletedEntity))
+                .setMaxResults(1)
+                .getResultList()
+                .forEach(entity -> ((Versioned) entity).setLatest(true));
+    }
+
+    /**
+     * @return the versioned entities among the method argument, which is either an entity or an Iterable of
+     * entities. Entities without an accession and version are left out, they have no other versions.
+     */
+    private static List<Versioned> getVersionedEntities(Object argument) {
+        Iterable<?> candidates = (argument instanceof Iterable) ? (Iterable<?>) argument :
+                Collections.singletonList(argument);
+        List<Versioned> entities = new ArrayList<>();
+        for (Object candidate : candidates) {
+            if (candidate instanceof Versioned && ((Versioned) candidate).getAccessionVersionId() != null &&
+                    ((Versioned) candidate).getAccessionVersionId().getAccession() != null &&
+                    ((Versioned) candidate).getAccessionVersionId().getVersion() != null) {
+                entities.add((Versioned) candidate);
+            }
+        }
+        return entities;
+    }
+
+    private static String getAccessionKey(Versioned entity) {
+        return entity.getAccessionVersionId().getAccession().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the type of the entities stored by the repository behind the proxy, or null if it can not be resolved
+     */
+    private static Class<?> getDomainType(Object repositoryProxy) {
+        if (!(repositoryProxy instanceof Advised)) {
+            return null;
+        }
+        for (Class<?> repositoryInterface : ((Advised) repositoryProxy).getProxiedInterfaces()) {
+            if (Repository.class.isAssignableFrom(repositoryInterface) &&
+                    repositoryInterface.getAnnotation(NoRepositoryBean.class) == null) {
+                return AbstractRepositoryMetadata.getMetadata(repositoryInterface).getDomainType();
+            }
+        }
+        return null;
+    }
+
+    private Object proceedInTransaction(JoinPointExecution execution) throws Throwable {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            try {
+                return execution.proceed();
+            } catch (RuntimeException | Error exception) {
+                throw exception;
+            } catch (Throwable throwable) {
+                throw new UndeclaredThrowableException(throwable);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface JoinPointExecution {
+
+        Object proceed() throws Throwable;
+
+    }
+
+}
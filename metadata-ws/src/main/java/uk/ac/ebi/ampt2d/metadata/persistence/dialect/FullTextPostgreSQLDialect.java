@@ -0,0 +1,89 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.dialect;
+
+import org.hibernate.dialect.PostgreSQL82Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.dialect.function.StandardSQLFunction;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * PostgreSQL dialect with the full text search functions used by the study text search and the pg_trgm functions used
+ * by the fuzzy search. The expressions match the GIN indexes created by the scripts in db/migrations, any change must
+ * be made in both places.
+ *
+ * It needs PostgreSQL 9.6 or later, the phrase queries built by the study text search use the {@code <->} operator.
+ */
+public class FullTextPostgreSQLDialect extends PostgreSQL82Dialect {
+
+    /**
+     * Text search configuration, it decides how the documents and the queries are split into normalised words
+     */
+    public static final String TEXT_SEARCH_CONFIGURATION = "english";
+
+    /**
+     * text_matches(document, query) tells whether the text document matches the tsquery
+     */
+    public static final String TEXT_MATCHES = "text_matches";
+
+    /**
+     * text_rank(name, description, query) ranks how well a name and description match the tsquery, the name weighing
+     * more than the description
+     */
+    public static final String TEXT_RANK = "text_rank";
+
+    /**
+     * text_contains(text, pattern) tells whether the text contains the LIKE pattern, ignoring case
+     */
+    public static final String TEXT_CONTAINS = "text_contains";
+
+    /**
+     * text_resembles(text, term) tells whether a part of the text is more similar to the term than the
+     * pg_trgm.word_similarity_threshold of the session
+     */
+    public static final String TEXT_RESEMBLES = "text_resembles";
+
+    /**
+     * text_similarity(text, term) measures, between 0 and 1, how similar the closest part of the text is to the term
+     */
+    public static final String TEXT_SIMILARITY = "text_similarity";
+
+    public FullTextPostgreSQLDialect() {
+        super();
+        registerFunction(TEXT_MATCHES, new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+                "(" + toTextVector("?1") + " @@ " + toTextQuery("?2") + ")"));
+        registerFunction(TEXT_RANK, new SQLFunctionTemplate(StandardBasicTypes.FLOAT,
+                "ts_rank(setweight(" + toTextVector("?1") + ", 'A') || setweight(" + toTextVector("?2") + ", 'B'), " +
+                        toTextQuery("?3") + ")"));
+        registerFunction(TEXT_CONTAINS, new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+                "(?1 ilike ('%' || ?2 || '%'))"));
+        registerFunction(TEXT_RESEMBLES, new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN, "(?2 <% ?1)"));
+        registerFunction(TEXT_SIMILARITY, new SQLFunctionTemplate(StandardBasicTypes.FLOAT,
+                "word_similarity(?2, coalesce(?1, ''))"));
+        registerFunction("greatest", new StandardSQLFunction("greatest"));
+    }
+
+    private static String toTextVector(String document) {
+        return "to_tsvector('" + TEXT_SEARCH_CONFIGURATION + "', coalesce(" + document + ", ''))";
+    }
+
+    private static String toTextQuery(String query) {
+        return "to_tsquery('" + TEXT_SEARCH_CONFIGURATION + "', " + query + ")";
+    }
+
+}
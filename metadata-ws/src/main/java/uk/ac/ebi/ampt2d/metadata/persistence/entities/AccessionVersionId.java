@@ -24,6 +24,7 @@ import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
+import java.util.Objects;
 
 @Embeddable
 public class AccessionVersionId implements Serializable {
@@ -60,14 +61,14 @@ public class AccessionVersionId implements Serializable {
 
         AccessionVersionId accessionVersionId = (AccessionVersionId) o;
 
-        if (getVersion() != accessionVersionId.getVersion()) return false;
+        if (!Objects.equals(getVersion(), accessionVersionId.getVersion())) return false;
         return getAccession() != null ? getAccession().equals(accessionVersionId.getAccession()) : accessionVersionId.getAccession() == null;
     }
 
     @Override
     public int hashCode() {
         int result = getAccession() != null ? getAccession().hashCode() : 0;
-        result = 31 * result + getVersion();
+        result = 31 * result + Objects.hashCode(getVersion());
         return result;
     }
 
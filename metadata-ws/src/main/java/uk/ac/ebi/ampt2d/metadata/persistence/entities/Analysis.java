@@ -19,6 +19,8 @@ package uk.ac.ebi.ampt2d.metadata.persistence.entities;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModelProperty;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.validator.constraints.NotBlank;
 
 import javax.persistence.Column;
@@ -27,7 +29,6 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
@@ -40,7 +41,7 @@ import java.util.List;
 
 @Entity
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = {"accession", "version"}))
-public class Analysis extends Auditable<Long> {
+public class Analysis extends Auditable<Long> implements Versioned {
 
     public enum Type {
 
@@ -75,7 +76,13 @@ public class Analysis extends Auditable<Long> {
     @ApiModelProperty(position = 1, value = "Analysis auto generated id", required = true, readOnly = true)
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "analysis_sequence")
+    @GenericGenerator(name = "analysis_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "analysis_sequence"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private long id;
 
     @ApiModelProperty(position = 2)
@@ -129,6 +136,11 @@ public class Analysis extends Auditable<Long> {
     @Column(nullable = false)
     private String platform;
 
+    @ApiModelProperty(position = 10, readOnly = true, notes = "Whether this is the latest version of the accession")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column
+    private boolean latest;
+
     @ManyToMany
     private List<Sample> samples;
 
@@ -140,12 +152,46 @@ public class Analysis extends Auditable<Long> {
         return id;
     }
 
+    @Override
     public AccessionVersionId getAccessionVersionId() {
         return accessionVersionId;
     }
 
+    @Override
+    public boolean isLatest() {
+        return latest;
+    }
+
+    @Override
+    public void setLatest(boolean latest) {
+        this.latest = latest;
+    }
+
     public List<ReferenceSequence> getReferenceSequences() {
         return referenceSequences;
     }
 
+    /**
+     * Copies the name, description, study, reference sequences, technology, type and platform of another version of
+     * this analysis. The samples and files of this analysis are kept.
+     *
+     * @return true if any of them changed
+     */
+    public boolean updateFrom(Analysis analysis) {
+        if (name.equals(analysis.name) && description.equals(analysis.description) &&
+                isSameEntity(study, analysis.study) &&
+                areSameEntities(referenceSequences, analysis.referenceSequences) &&
+                technology == analysis.technology && type == analysis.type && platform.equals(analysis.platform)) {
+            return false;
+        }
+        this.name = analysis.name;
+        this.description = analysis.description;
+        this.study = analysis.study;
+        this.referenceSequences = analysis.referenceSequences;
+        this.technology = analysis.technology;
+        this.type = analysis.type;
+        this.platform = analysis.platform;
+        return true;
+    }
+
 }
\ No newline at end of file
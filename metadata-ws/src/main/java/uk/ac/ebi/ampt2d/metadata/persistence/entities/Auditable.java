@@ -24,6 +24,9 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @MappedSuperclass
 @EntityListeners(AuditingEntityListener.class)
@@ -42,4 +45,25 @@ public abstract class Auditable<ID> {
     }
 
     public abstract ID getId();
+
+    /**
+     * @return true if both are null or both are the same stored entity
+     */
+    static boolean isSameEntity(Auditable<?> entity, Auditable<?> otherEntity) {
+        if (entity == null || otherEntity == null) {
+            return entity == otherEntity;
+        }
+        return Objects.equals(entity.getId(), otherEntity.getId());
+    }
+
+    /**
+     * @return true if both are null or both list the same stored entities in the same order
+     */
+    static boolean areSameEntities(List<? extends Auditable<?>> entities, List<? extends Auditable<?>> otherEntities) {
+        if (entities == null || otherEntities == null) {
+            return entities == otherEntities;
+        }
+        return entities.stream().map(Auditable::getId).collect(Collectors.toList())
+                .equals(otherEntities.stream().map(Auditable::getId).collect(Collectors.toList()));
+    }
 }
@@ -19,6 +19,8 @@ package uk.ac.ebi.ampt2d.metadata.persistence.entities;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModelProperty;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Column;
 import javax.persistence.Embedded;
@@ -26,7 +28,6 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
@@ -36,7 +37,7 @@ import javax.validation.constraints.Size;
 
 @Entity
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = {"accession", "version"}))
-public class File extends Auditable<Long> {
+public class File extends Auditable<Long> implements Versioned {
 
     public enum Type {
 
@@ -48,7 +49,13 @@ public class File extends Auditable<Long> {
     @ApiModelProperty(position = 1, value = "File auto generated id", required = true, readOnly = true)
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "file_sequence")
+    @GenericGenerator(name = "file_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "file_sequence"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private Long id;
 
     @ApiModelProperty(position = 2)
@@ -81,6 +88,11 @@ public class File extends Auditable<Long> {
     @Column(nullable = false)
     private Type type;
 
+    @ApiModelProperty(position = 7, readOnly = true, notes = "Whether this is the latest version of the accession")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column
+    private boolean latest;
+
     File() {}
 
     public File(String hash, String name, String type) {
@@ -102,10 +114,21 @@ public class File extends Auditable<Long> {
         return id;
     }
 
+    @Override
     public AccessionVersionId getAccessionVersionId() {
         return accessionVersionId;
     }
 
+    @Override
+    public boolean isLatest() {
+        return latest;
+    }
+
+    @Override
+    public void setLatest(boolean latest) {
+        this.latest = latest;
+    }
+
     public String getName() {
         return name;
     }
@@ -121,4 +144,20 @@ public class File extends Auditable<Long> {
     public Type getType() {
         return type;
     }
+
+    /**
+     * Copies the hash, name, size and type of another version of this file
+     *
+     * @return true if any of them changed
+     */
+    public boolean updateFrom(File file) {
+        if (hash.equals(file.hash) && name.equals(file.name) && size == file.size && type == file.type) {
+            return false;
+        }
+        this.hash = file.hash;
+        this.name = file.name;
+        this.size = file.size;
+        this.type = file.type;
+        return true;
+    }
 }
@@ -19,13 +19,14 @@ package uk.ac.ebi.ampt2d.metadata.persistence.entities;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModelProperty;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Column;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.ManyToMany;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
@@ -36,12 +37,18 @@ import java.util.List;
 
 @Entity
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = {"accession", "version"}))
-public class Sample extends Auditable<Long> {
+public class Sample extends Auditable<Long> implements Versioned {
 
     @ApiModelProperty(position = 1, value = "Sample auto generated id", required = true, readOnly = true)
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "sample_sequence")
+    @GenericGenerator(name = "sample_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "sample_sequence"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private long id;
 
     @ApiModelProperty(position = 2)
@@ -64,20 +71,56 @@ public class Sample extends Auditable<Long> {
     @Size(min = 1)
     private List<Taxonomy> taxonomies;
 
+    @ApiModelProperty(position = 5, readOnly = true, notes = "Whether this is the latest version of the accession")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column
+    private boolean latest;
+
     Sample() {
     }
 
+    public Sample(AccessionVersionId accessionVersionId, String name, List<Taxonomy> taxonomies) {
+        this.accessionVersionId = accessionVersionId;
+        this.name = name;
+        this.taxonomies = taxonomies;
+    }
+
     @Override
     public Long getId() {
         return id;
     }
 
+    @Override
     public AccessionVersionId getAccessionVersionId() {
         return accessionVersionId;
     }
 
+    @Override
+    public boolean isLatest() {
+        return latest;
+    }
+
+    @Override
+    public void setLatest(boolean latest) {
+        this.latest = latest;
+    }
+
     public List<Taxonomy> getTaxonomies() {
         return taxonomies;
     }
 
+    /**
+     * Copies the name and taxonomies of another version of this sample
+     *
+     * @return true if any of them changed
+     */
+    public boolean updateFrom(Sample sample) {
+        if (name.equals(sample.name) && areSameEntities(taxonomies, sample.taxonomies)) {
+            return false;
+        }
+        this.name = sample.name;
+        this.taxonomies = sample.taxonomies;
+        return true;
+    }
+
 }
@@ -19,16 +19,20 @@ package uk.ac.ebi.ampt2d.metadata.persistence.entities;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModelProperty;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.validator.constraints.NotBlank;
 
 import javax.persistence.Column;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
@@ -39,12 +43,25 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = Study.WITH_TAXONOMY, attributeNodes = @NamedAttributeNode("taxonomy"))
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = {"accession", "version"}))
-public class Study extends Auditable<Long> {
+public class Study extends Auditable<Long> implements Versioned {
+
+    /**
+     * Fetch plan for study lookups. The child studies are batch fetched instead, joining them would return a study
+     * once per child and can not be combined with paging
+     */
+    public static final String WITH_TAXONOMY = "Study.withTaxonomy";
 
     @ApiModelProperty(position = 1, value = "Study auto generated id", required = true, readOnly = true)
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "study_sequence")
+    @GenericGenerator(name = "study_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "study_sequence"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     @Id
     private long id;
 
@@ -98,26 +115,59 @@ public class Study extends Auditable<Long> {
     @ApiModelProperty(position = 10)
     @JsonProperty
     @OneToMany
+    @BatchSize(size = 50)
     private List<Study> childStudies;
 
+    @ApiModelProperty(position = 11, readOnly = true, notes = "Whether this is the latest version of the accession")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column
+    private boolean latest;
+
     @OneToMany(mappedBy = "study")
+    @BatchSize(size = 50)
     private List<Analysis> analyses;
 
     @OneToMany
+    @BatchSize(size = 50)
     private List<WebResource> resources;
 
     @ManyToMany
+    @BatchSize(size = 50)
     private List<Publication> publications;
 
+    Study() {
+    }
+
+    public Study(AccessionVersionId accessionVersionId, String name, String description, String center,
+                 LocalDate releaseDate, Taxonomy taxonomy) {
+        this.accessionVersionId = accessionVersionId;
+        this.name = name;
+        this.description = description;
+        this.center = center;
+        this.releaseDate = releaseDate;
+        this.taxonomy = taxonomy;
+    }
+
     @Override
     public Long getId() {
         return id;
     }
 
+    @Override
     public AccessionVersionId getAccessionVersionId() {
         return accessionVersionId;
     }
 
+    @Override
+    public boolean isLatest() {
+        return latest;
+    }
+
+    @Override
+    public void setLatest(boolean latest) {
+        this.latest = latest;
+    }
+
     public boolean isDeprecated() {
         return deprecated;
     }
@@ -19,11 +19,13 @@ package uk.ac.ebi.ampt2d.metadata.persistence.entities;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModelProperty;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToMany;
 import javax.validation.constraints.Min;
@@ -37,7 +39,13 @@ public class Taxonomy extends Auditable<Long> {
     @ApiModelProperty(position = 1, value = "Taxonomy auto generated id", required = true, readOnly = true)
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "taxonomy_sequence")
+    @GenericGenerator(name = "taxonomy_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "taxonomy_sequence"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private long id;
 
     @ApiModelProperty(position = 2, example = "1")
@@ -54,9 +62,18 @@ public class Taxonomy extends Auditable<Long> {
     private String name;
 
     @ManyToMany
+    @BatchSize(size = 50)
     @JsonProperty
     private List<Taxonomy> ancestors;
 
+    Taxonomy() {
+    }
+
+    public Taxonomy(long taxonomyId, String name) {
+        this.taxonomyId = taxonomyId;
+        this.name = name;
+    }
+
     public Long getId() {
         return id;
     }
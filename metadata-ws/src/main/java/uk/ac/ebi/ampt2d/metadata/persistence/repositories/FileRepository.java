@@ -18,6 +18,8 @@
 package uk.ac.ebi.ampt2d.metadata.persistence.repositories;
 
 import io.swagger.annotations.ApiOperation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.querydsl.QueryDslPredicateExecutor;
 import org.springframework.data.querydsl.binding.QuerydslBinderCustomizer;
 import org.springframework.data.querydsl.binding.QuerydslBindings;
@@ -41,4 +43,8 @@ public interface FileRepository extends PagingAndSortingRepository<File, Long>,
     @RestResource(path = "/accession")
     List<File> findFirstByAccessionVersionId_AccessionOrderByAccessionVersionId_VersionDesc
             (@Param("accession") String accession);
+
+    @ApiOperation(value = "Get the latest version of every File")
+    @RestResource(path = "/latest")
+    Page<File> findByLatestIsTrue(Pageable pageable);
 }
@@ -17,7 +17,11 @@
  */
 package uk.ac.ebi.ampt2d.metadata.persistence.repositories;
 
+import com.querydsl.core.types.Predicate;
 import io.swagger.annotations.ApiOperation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.querydsl.QueryDslPredicateExecutor;
 import org.springframework.data.querydsl.binding.QuerydslBinderCustomizer;
 import org.springframework.data.querydsl.binding.QuerydslBindings;
@@ -33,7 +37,7 @@ import java.util.List;
 
 @RepositoryRestResource
 public interface StudyRepository extends PagingAndSortingRepository<Study, Long>,
-        QueryDslPredicateExecutor<Study>, QuerydslBinderCustomizer<QStudy> {
+        QueryDslPredicateExecutor<Study>, QuerydslBinderCustomizer<QStudy>, StudyRepositoryCustom {
 
     default void customize(QuerydslBindings bindings, QStudy study) {
         bindings.bind(study.analyses.any().referenceSequences.any().name,
@@ -41,6 +45,14 @@ public interface StudyRepository extends PagingAndSortingRepository<Study, Long>
                 .first((path, value) -> path.equalsIgnoreCase(value));
     }
 
+    @Override
+    @EntityGraph(Study.WITH_TAXONOMY)
+    Iterable<Study> findAll(Predicate predicate);
+
+    @Override
+    @EntityGraph(Study.WITH_TAXONOMY)
+    Page<Study> findAll(Predicate predicate, Pageable pageable);
+
     @ApiOperation(value = "Get the latest version of Study based on accession")
     @RestResource(path = "/accession")
     List<Study> findFirstByAccessionVersionId_AccessionOrderByAccessionVersionId_VersionDesc
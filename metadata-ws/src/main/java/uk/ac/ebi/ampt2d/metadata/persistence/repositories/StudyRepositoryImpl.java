@@ -0,0 +1,49 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.repositories;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.data.jpa.repository.EntityGraph;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QStudy;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.Study;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+public class StudyRepositoryImpl implements StudyRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Study> findAll(Predicate predicate, long limit, OrderSpecifier<?>... orders) {
+        QStudy study = QStudy.study;
+        return new JPAQuery<Study>(entityManager)
+                .select(study)
+                .from(study)
+                .where(predicate)
+                .orderBy(orders)
+                .limit(limit)
+                .setHint(EntityGraph.EntityGraphType.FETCH.getKey(), entityManager.getEntityGraph(Study.WITH_TAXONOMY))
+                .fetch();
+    }
+
+}
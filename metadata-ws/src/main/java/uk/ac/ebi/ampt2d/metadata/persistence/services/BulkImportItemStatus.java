@@ -0,0 +1,88 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of a single item of a bulk import
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkImportItemStatus {
+
+    public enum Status {
+
+        /**
+         * A new entity was stored
+         */
+        CREATED,
+
+        /**
+         * The item matched a stored entity and changed its content, which was written
+         */
+        UPDATED,
+
+        /**
+         * The item matched a stored entity with the same content, nothing was written
+         */
+        UNCHANGED,
+
+        /**
+         * The item could not be read or did not pass validation, nothing was stored
+         */
+        INVALID,
+
+        /**
+         * The item was valid but could not be stored, for example because it duplicates a stored accession
+         */
+        FAILED
+
+    }
+
+    private int index;
+
+    private Status status;
+
+    private Long id;
+
+    private String message;
+
+    BulkImportItemStatus(int index, Status status, Long id, String message) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+}
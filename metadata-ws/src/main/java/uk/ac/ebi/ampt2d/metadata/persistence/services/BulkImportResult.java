@@ -0,0 +1,59 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import, one status per item in the order the items were read
+ */
+public class BulkImportResult {
+
+    private List<BulkImportItemStatus> items = new ArrayList<>();
+
+    void add(BulkImportItemStatus itemStatus) {
+        items.add(itemStatus);
+    }
+
+    public List<BulkImportItemStatus> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    public long getCreated() {
+        return count(BulkImportItemStatus.Status.CREATED);
+    }
+
+    public long getUpdated() {
+        return count(BulkImportItemStatus.Status.UPDATED);
+    }
+
+    public long getUnchanged() {
+        return count(BulkImportItemStatus.Status.UNCHANGED);
+    }
+
+    public long getRejected() {
+        return items.size() - getCreated() - getUpdated() - getUnchanged();
+    }
+
+    private long count(BulkImportItemStatus.Status status) {
+        return items.stream().filter(item -> item.getStatus() == status).count();
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import java.io.InputStream;
+
+public interface BulkImportService {
+
+    /**
+     * Media type of newline delimited JSON, one item per line
+     */
+    String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    /**
+     * Upserts the samples of a JSON array or of newline delimited JSON objects, each in the same form as a POST to
+     * /samples. Every sample is validated like a single POST and the valid ones are written in batched transactions. A
+     * sample matching a stored accession and version updates it instead of failing, or leaves it unchanged if they
+     * have the same content.
+     *
+     * @return the outcome of every sample in the order they were read
+     */
+    BulkImportResult upsertSamples(InputStream items);
+
+    /**
+     * Upserts the analyses of a JSON array or of newline delimited JSON objects like {@link #upsertSamples}. The
+     * samples and files of an updated analysis are kept.
+     */
+    BulkImportResult upsertAnalyses(InputStream items);
+
+    /**
+     * Upserts the files of a JSON array or of newline delimited JSON objects like {@link #upsertSamples}, the same
+     * way {@link FileService#upsert} does.
+     */
+    BulkImportResult upsertFiles(InputStream items);
+
+}
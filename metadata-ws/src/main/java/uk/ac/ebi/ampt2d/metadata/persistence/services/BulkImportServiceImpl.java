@@ -0,0 +1,307 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.rest.core.RepositoryConstraintViolationException;
+import org.springframework.data.rest.core.event.AfterCreateEvent;
+import org.springframework.data.rest.core.event.BeforeCreateEvent;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.AccessionVersionId;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.Analysis;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.Auditable;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QAnalysis;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QFile;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QSample;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.Sample;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.Versioned;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.AnalysisRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.FileRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.SampleRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the items one at a time and handles them in chunks. The items of a chunk are deserialized with the Spring Data
+ * REST object mapper, so associations are given as URLs like in a single POST, and validated by publishing the same
+ * {@link BeforeCreateEvent} the repository endpoints publish. The valid items of a chunk are written in a single
+ * transaction. If that transaction fails they are written again one per transaction, so only the offending items are
+ * rejected.
+ */
+public class BulkImportServiceImpl implements BulkImportService {
+
+    /**
+     * Maximum number of items validated and written in a single transaction
+     */
+    private static final int CHUNK_SIZE = 500;
+
+    /**
+     * The Spring Data REST object mapper, which resolves the URLs of associated entities
+     */
+    @Autowired
+    @Qualifier("objectMapper")
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private SampleRepository sampleRepository;
+
+    @Autowired
+    private AnalysisRepository analysisRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Override
+    public BulkImportResult upsertSamples(InputStream items) {
+        QSample sample = QSample.sample;
+        return importItems(items, Sample.class, samples -> upsert(samples,
+                accessions -> sampleRepository.findAll(sample.accessionVersionId.accession.in(accessions)),
+                Sample::updateFrom, samplesToSave -> sampleRepository.save(samplesToSave)));
+    }
+
+    @Override
+    public BulkImportResult upsertAnalyses(InputStream items) {
+        QAnalysis analysis = QAnalysis.analysis;
+        return importItems(items, Analysis.class, analyses -> upsert(analyses,
+                accessions -> analysisRepository.findAll(analysis.accessionVersionId.accession.in(accessions)),
+                Analysis::updateFrom, analysesToSave -> analysisRepository.save(analysesToSave)));
+    }
+
+    @Override
+    public BulkImportResult upsertFiles(InputStream items) {
+        QFile file = QFile.file;
+        return importItems(items, File.class, files -> upsert(files,
+                accessions -> fileRepository.findAll(file.accessionVersionId.accession.in(accessions)),
+                File::updateFrom, filesToSave -> fileRepository.save(filesToSave)));
+    }
+
+    /**
+     * Saves the entities without a stored accession and version and updates the stored ones from the others, the same
+     * way {@link FileService#upsert} does for files
+     *
+     * @param storedEntitiesFinder looks up the stored entities of the given accessions
+     * @param updater copies an entity into the stored one and returns true if anything changed
+     * @return the stored entity of every given entity, in the same order
+     */
+    private <T extends Auditable<Long> & Versioned> List<StoredItem<T>> upsert(
+            List<T> entities, Function<List<String>, Iterable<T>> storedEntitiesFinder, BiPredicate<T, T> updater,
+            Consumer<List<T>> saver) {
+        List<String> accessions = entities.stream()
+                .map(Versioned::getAccessionVersionId)
+                .filter(accessionVersionId -> accessionVersionId != null)
+                .map(AccessionVersionId::getAccession)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<AccessionVersionId, T> storedEntities = new HashMap<>();
+        if (!accessions.isEmpty()) {
+            storedEntitiesFinder.apply(accessions).forEach(storedEntity ->
+                    storedEntities.put(storedEntity.getAccessionVersionId(), storedEntity));
+        }
+
+        List<StoredItem<T>> result = new ArrayList<>(entities.size());
+        Set<T> entitiesToSave = new LinkedHashSet<>();
+        for (T entity : entities) {
+            AccessionVersionId accessionVersionId = entity.getAccessionVersionId();
+            T storedEntity = (accessionVersionId == null) ? null : storedEntities.get(accessionVersionId);
+            if (storedEntity == null) {
+                entitiesToSave.add(entity);
+                if (accessionVersionId != null) {
+                    storedEntities.put(accessionVersionId, entity);
+                }
+                result.add(new StoredItem<>(entity, true));
+            } else {
+                boolean changed = updater.test(storedEntity, entity);
+                if (changed) {
+                    entitiesToSave.add(storedEntity);
+                }
+                result.add(new StoredItem<>(storedEntity, changed));
+            }
+        }
+        if (!entitiesToSave.isEmpty()) {
+            saver.accept(new ArrayList<>(entitiesToSave));
+        }
+        return result;
+    }
+
+    /**
+     * @param writer stores the given entities in the current transaction and returns the stored entity of each of
+     * them, the same instance for a created entity and the matching stored one otherwise
+     */
+    private <T extends Auditable<Long>> BulkImportResult importItems(InputStream items, Class<T> type,
+                                                                      Function<List<T>, List<StoredItem<T>>> writer) {
+        BulkImportResult result = new BulkImportResult();
+        ObjectReader entityReader = objectMapper.readerFor(type);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<JsonNode> chunk = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+        try (MappingIterator<JsonNode> nodes = objectMapper.readerFor(JsonNode.class).readValues(items)) {
+            while (nodes.hasNextValue()) {
+                chunk.add(nodes.nextValue());
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, index, entityReader, transactionTemplate, writer).forEach(result::add);
+                    index += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (IOException exception) {
+            importChunk(chunk, index, entityReader, transactionTemplate, writer).forEach(result::add);
+            result.add(new BulkImportItemStatus(index + chunk.size(), BulkImportItemStatus.Status.INVALID, null,
+                    "Malformed input, the remaining items were not read: " + exception.getMessage()));
+            return result;
+        }
+        importChunk(chunk, index, entityReader, transactionTemplate, writer).forEach(result::add);
+        return result;
+    }
+
+    private <T extends Auditable<Long>> List<BulkImportItemStatus> importChunk(
+            List<JsonNode> chunk, int firstIndex, ObjectReader entityReader, TransactionTemplate transactionTemplate,
+            Function<List<T>, List<StoredItem<T>>> writer) {
+        BulkImportItemStatus[] statuses = new BulkImportItemStatus[chunk.size()];
+        List<Integer> validPositions = new ArrayList<>();
+        List<T> validEntities = new ArrayList<>();
+        for (int position = 0; position < chunk.size(); position++) {
+            try {
+                T entity = readAndValidate(entityReader, chunk.get(position));
+                validPositions.add(position);
+                validEntities.add(entity);
+            } catch (IOException | RuntimeException exception) {
+                statuses[position] = new BulkImportItemStatus(firstIndex + position,
+                        BulkImportItemStatus.Status.INVALID, null, getMessage(exception));
+            }
+        }
+
+        if (validEntities.isEmpty()) {
+            return Arrays.asList(statuses);
+        }
+        try {
+            List<StoredItem<T>> storedItems = transactionTemplate.execute(status -> writer.apply(validEntities));
+            for (int i = 0; i < validPositions.size(); i++) {
+                int position = validPositions.get(i);
+                statuses[position] = getStatus(firstIndex + position, validEntities.get(i), storedItems.get(i));
+            }
+        } catch (RuntimeException chunkException) {
+            for (int position : validPositions) {
+                statuses[position] = importItem(chunk.get(position), firstIndex + position, entityReader,
+                        transactionTemplate, writer);
+            }
+        }
+
+        // The entity manager may outlive the transactions, keep it from accumulating every entity written
+        entityManager.clear();
+        return Arrays.asList(statuses);
+    }
+
+    private <T extends Auditable<Long>> BulkImportItemStatus importItem(JsonNode node, int index,
+                                                                      ObjectReader entityReader,
+                                                                      TransactionTemplate transactionTemplate,
+                                                                      Function<List<T>, List<StoredItem<T>>> writer) {
+        try {
+            T entity = readAndValidate(entityReader, node);
+            StoredItem<T> storedItem = transactionTemplate.execute(status ->
+                    writer.apply(Collections.singletonList(entity))).get(0);
+            return getStatus(index, entity, storedItem);
+        } catch (IOException | RuntimeException exception) {
+            return new BulkImportItemStatus(index, BulkImportItemStatus.Status.FAILED, null, getMessage(exception));
+        }
+    }
+
+    private <T> T readAndValidate(ObjectReader entityReader, JsonNode node) throws IOException {
+        T entity = entityReader.readValue(node);
+        eventPublisher.publishEvent(new BeforeCreateEvent(entity));
+        return entity;
+    }
+
+    private <T extends Auditable<Long>> BulkImportItemStatus getStatus(int index, T entity, StoredItem<T> storedItem) {
+        T storedEntity = storedItem.entity;
+        if (storedEntity == entity) {
+            eventPublisher.publishEvent(new AfterCreateEvent(storedEntity));
+            return new BulkImportItemStatus(index, BulkImportItemStatus.Status.CREATED, storedEntity.getId(), null);
+        }
+        BulkImportItemStatus.Status status = storedItem.written ? BulkImportItemStatus.Status.UPDATED :
+                BulkImportItemStatus.Status.UNCHANGED;
+        return new BulkImportItemStatus(index, status, storedEntity.getId(), null);
+    }
+
+    private static String getMessage(Exception exception) {
+        if (exception instanceof RepositoryConstraintViolationException) {
+            return ((RepositoryConstraintViolationException) exception).getErrors().getAllErrors().stream()
+                    .map(BulkImportServiceImpl::getMessage)
+                    .collect(Collectors.joining(", "));
+        }
+        return NestedExceptionUtils.getMostSpecificCause(exception).getMessage();
+    }
+
+    private static String getMessage(ObjectError error) {
+        if (error instanceof FieldError) {
+            return ((FieldError) error).getField() + " " + error.getDefaultMessage();
+        }
+        return error.getDefaultMessage();
+    }
+
+    /**
+     * The stored entity of an item and whether the item was written to it
+     */
+    private static class StoredItem<T> {
+
+        private final T entity;
+
+        private final boolean written;
+
+        StoredItem(T entity, boolean written) {
+            this.entity = entity;
+            this.written = written;
+        }
+
+    }
+
+}
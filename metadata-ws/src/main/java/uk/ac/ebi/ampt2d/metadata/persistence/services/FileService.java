@@ -0,0 +1,44 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.AccessionVersionId;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface FileService {
+
+    /**
+     * Saves files keyed on their accession and version: new keys are inserted, stored files whose content changed are
+     * updated and unchanged files are not written at all. Files without an accession are always inserted.
+     *
+     * @return the stored files in the order of the given files, one per accession and version
+     */
+    List<File> upsert(List<File> files);
+
+    /**
+     * @return the last modification date of the stored files among the given accessions and versions, files that are
+     * not stored are left out
+     */
+    Map<AccessionVersionId, ZonedDateTime> findLastModifiedDates(Collection<AccessionVersionId> accessionVersionIds);
+
+}
@@ -0,0 +1,118 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.AccessionVersionId;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QFile;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.FileRepository;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class FileServiceImpl implements FileService {
+
+    /**
+     * Maximum number of accessions in a single IN clause when looking up stored files
+     */
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private FileRepository fileRepository;
+
+    public FileServiceImpl(FileRepository fileRepository) {
+        this.fileRepository = fileRepository;
+    }
+
+    @Override
+    @Transactional
+    public List<File> upsert(List<File> files) {
+        Map<AccessionVersionId, File> storedFiles = findStoredFiles(files.stream()
+                .map(File::getAccessionVersionId)
+                .filter(accessionVersionId -> accessionVersionId != null)
+                .collect(Collectors.toSet()));
+        Map<AccessionVersionId, File> upsertedFiles = new LinkedHashMap<>();
+        List<File> result = new ArrayList<>(files.size());
+        List<File> filesToSave = new ArrayList<>();
+        for (File file : files) {
+            AccessionVersionId accessionVersionId = file.getAccessionVersionId();
+            if (accessionVersionId == null) {
+                filesToSave.add(file);
+                result.add(file);
+                continue;
+            }
+            if (upsertedFiles.containsKey(accessionVersionId)) {
+                continue;
+            }
+            File storedFile = storedFiles.get(accessionVersionId);
+            if (storedFile == null) {
+                filesToSave.add(file);
+                upsertedFiles.put(accessionVersionId, file);
+                result.add(file);
+            } else {
+                if (storedFile.updateFrom(file)) {
+                    filesToSave.add(storedFile);
+                }
+                upsertedFiles.put(accessionVersionId, storedFile);
+                result.add(storedFile);
+            }
+        }
+        if (!filesToSave.isEmpty()) {
+            fileRepository.save(filesToSave);
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<AccessionVersionId, ZonedDateTime> findLastModifiedDates(
+            Collection<AccessionVersionId> accessionVersionIds) {
+        Map<AccessionVersionId, ZonedDateTime> lastModifiedDates = new HashMap<>();
+        findStoredFiles(new HashSet<>(accessionVersionIds)).forEach((accessionVersionId, storedFile) ->
+                lastModifiedDates.put(accessionVersionId, storedFile.getLastModifiedDate()));
+        return lastModifiedDates;
+    }
+
+    private Map<AccessionVersionId, File> findStoredFiles(Set<AccessionVersionId> accessionVersionIds) {
+        List<String> accessions = accessionVersionIds.stream()
+                .map(AccessionVersionId::getAccession)
+                .distinct()
+                .collect(Collectors.toList());
+
+        QFile file = QFile.file;
+        Map<AccessionVersionId, File> storedFiles = new HashMap<>();
+        for (int from = 0; from < accessions.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = accessions.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, accessions.size()));
+            for (File storedFile : fileRepository.findAll(file.accessionVersionId.accession.in(chunk))) {
+                if (accessionVersionIds.contains(storedFile.getAccessionVersionId())) {
+                    storedFiles.put(storedFile.getAccessionVersionId(), storedFile);
+                }
+            }
+        }
+        return storedFiles;
+    }
+
+}
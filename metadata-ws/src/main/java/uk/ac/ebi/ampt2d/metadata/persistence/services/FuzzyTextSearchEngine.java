@@ -0,0 +1,50 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import com.querydsl.core.types.dsl.StringExpression;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.querydsl.QueryDslPredicateExecutor;
+
+/**
+ * Finds the entities whose text fields contain the search term or closely resemble it, tolerating typos. The search
+ * runs through the given repository, so the filters applied to its findAll methods still apply.
+ */
+public interface FuzzyTextSearchEngine {
+
+    float DEFAULT_THRESHOLD = 0.3f;
+
+    /**
+     * @param threshold similarity, between 0 and 1, a field must exceed to match without containing the search term
+     * @param fields text fields of the entity, a match in any of them is enough
+     * @return the matching entities, ordered from the closest match when the request does not sort them
+     */
+    <T> Page<T> search(QueryDslPredicateExecutor<T> repository, String searchTerm, float threshold, Pageable pageable,
+                       StringExpression... fields);
+
+    /**
+     * @throws IllegalArgumentException if the threshold is not between 0 and 1
+     */
+    static void checkThreshold(float threshold) {
+        if (!(threshold >= 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("The similarity threshold must be between 0 and 1");
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.dsl.StringExpression;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.querydsl.QueryDslPredicateExecutor;
+
+/**
+ * Matches the search term as a case insensitive substring. It works on any database but can not measure similarity,
+ * so the threshold is ignored, misspelt terms do not match and the results keep the database order.
+ */
+public class LikeFuzzyTextSearchEngine implements FuzzyTextSearchEngine {
+
+    @Override
+    public <T> Page<T> search(QueryDslPredicateExecutor<T> repository, String searchTerm, float threshold,
+                              Pageable pageable, StringExpression... fields) {
+        FuzzyTextSearchEngine.checkThreshold(threshold);
+
+        BooleanBuilder predicate = new BooleanBuilder();
+        for (StringExpression field : fields) {
+            predicate.or(field.containsIgnoreCase(searchTerm));
+        }
+        return repository.findAll(predicate, pageable);
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Sort;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QStudy;
+
+/**
+ * Matches the search term as a case insensitive substring. It works on any database but can not use an index, so
+ * every search scans the studies and their analyses.
+ */
+public class LikeStudyTextSearchEngine implements StudyTextSearchEngine {
+
+    @Override
+    public Predicate matches(String searchTerm) {
+        QStudy study = QStudy.study;
+        return study.name.containsIgnoreCase(searchTerm)
+                .or(study.description.containsIgnoreCase(searchTerm))
+                .or(study.analyses.any().description.containsIgnoreCase(searchTerm));
+    }
+
+    @Override
+    public Sort relevance(String searchTerm) {
+        return null;
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAExpressions;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.querydsl.QSort;
+import uk.ac.ebi.ampt2d.metadata.persistence.dialect.FullTextPostgreSQLDialect;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QAnalysis;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QStudy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches the search term with PostgreSQL full text search, served by the GIN indexes created by
+ * db/migrations/004-study-text-search.sql. It needs the {@link FullTextPostgreSQLDialect} and PostgreSQL 9.6 or later.
+ *
+ * The words of the search term must all match, a quoted sequence of words matches as a phrase and a word ending with
+ * {@code *} matches as a prefix. Unless the request sorts them, the matching studies are ordered by relevance, a
+ * match in the name weighing more than a match in the description.
+ */
+public class PostgreSQLFullTextStudyTextSearchEngine implements StudyTextSearchEngine {
+
+    private static final Pattern SEARCH_TERM_PART = Pattern.compile("\"([^\"]*)\"?|([^\\s\"]+)");
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    @Override
+    public Predicate matches(String searchTerm) {
+        String textQuery = toTextQuery(searchTerm);
+        if (textQuery.isEmpty()) {
+            return new BooleanBuilder();
+        }
+
+        QStudy study = QStudy.study;
+        QAnalysis analysis = QAnalysis.analysis;
+        return textMatches(study.name, textQuery)
+                .or(textMatches(study.description, textQuery))
+                .or(JPAExpressions.selectOne()
+                        .from(analysis)
+                        .where(analysis.study.eq(study), textMatches(analysis.description, textQuery))
+                        .exists());
+    }
+
+    @Override
+    public Sort relevance(String searchTerm) {
+        String textQuery = toTextQuery(searchTerm);
+        if (textQuery.isEmpty()) {
+            return null;
+        }
+
+        QStudy study = QStudy.study;
+        return new QSort(new OrderSpecifier<>(Order.DESC,
+                Expressions.numberTemplate(Float.class, FullTextPostgreSQLDialect.TEXT_RANK + "({0}, {1}, {2})",
+                        study.name, study.description, ConstantImpl.create(textQuery))));
+    }
+
+    /**
+     * Converts a search term to the PostgreSQL tsquery syntax, dropping every character that is not part of a word so
+     * that no search term makes the query invalid
+     *
+     * @return the tsquery, empty if the search term has no words
+     */
+    public static String toTextQuery(String searchTerm) {
+        List<String> parts = new ArrayList<>();
+        Matcher part = SEARCH_TERM_PART.matcher(searchTerm == null ? "" : searchTerm);
+        while (part.find()) {
+            if (part.group(1) != null) {
+                List<String> phrase = words(part.group(1));
+                if (!phrase.isEmpty()) {
+                    parts.add(phrase.size() == 1 ? phrase.get(0) : "(" + String.join(" <-> ", phrase) + ")");
+                }
+            } else {
+                List<String> words = words(part.group(2));
+                if (!words.isEmpty()) {
+                    String prefix = part.group(2).endsWith("*") ? ":*" : "";
+                    words.set(words.size() - 1, words.get(words.size() - 1) + prefix);
+                    parts.addAll(words);
+                }
+            }
+        }
+        return String.join(" & ", parts);
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        Matcher word = WORD.matcher(text);
+        while (word.find()) {
+            words.add(word.group());
+        }
+        return words;
+    }
+
+    private static BooleanExpression textMatches(Expression<String> document, String textQuery) {
+        return Expressions.booleanTemplate(FullTextPostgreSQLDialect.TEXT_MATCHES + "({0}, {1}) = true", document,
+                ConstantImpl.create(textQuery));
+    }
+
+}
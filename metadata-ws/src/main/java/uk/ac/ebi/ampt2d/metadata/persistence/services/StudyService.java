@@ -18,6 +18,8 @@
 package uk.ac.ebi.ampt2d.metadata.persistence.services;
 
 import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.Study;
 
 import java.time.LocalDate;
@@ -31,15 +33,19 @@ public interface StudyService {
 
     List<Study> findStudiesByPredicate(Predicate predicate);
 
+    Page<Study> findStudiesByPredicate(Predicate predicate, Pageable pageable);
+
     Study findStudyByAccession(String accession);
 
-    List<Study> findStudiesByReleaseDate(LocalDate from, LocalDate to);
+    Page<Study> findStudiesByReleaseDate(LocalDate from, LocalDate to, Pageable pageable);
+
+    Page<Study> findStudiesByTextSearch(String searchTerm, Pageable pageable);
 
-    List<Study> findStudiesByTextSearch(String searchTerm);
+    Page<Study> findStudiesByFuzzySearch(String searchTerm, float threshold, Pageable pageable);
 
-    List<Study> findStudiesByTaxonomyId(long id);
+    Page<Study> findStudiesByTaxonomyId(long id, Pageable pageable);
 
-    List<Study> findStudiesByTaxonomyName(String name);
+    Page<Study> findStudiesByTaxonomyName(String name, Pageable pageable);
 
     List<Study> findLinkedStudies(long id);
 
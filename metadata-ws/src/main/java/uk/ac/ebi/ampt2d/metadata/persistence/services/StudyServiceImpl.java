@@ -18,15 +18,20 @@
 package uk.ac.ebi.ampt2d.metadata.persistence.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Predicate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.QStudy;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.Study;
 import uk.ac.ebi.ampt2d.metadata.persistence.repositories.StudyRepository;
 
 import java.time.LocalDate;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -34,12 +39,20 @@ import java.util.stream.Collectors;
 
 public class StudyServiceImpl implements StudyService {
 
+    private static final OrderSpecifier<Integer> LATEST_VERSION = QStudy.study.accessionVersionId.version.desc();
+
     @Autowired
     private StudyRepository studyRepository;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private StudyTextSearchEngine studyTextSearchEngine;
+
+    @Autowired
+    private FuzzyTextSearchEngine fuzzyTextSearchEngine;
+
     @Override
     public Study findOneStudyByPredicate(Predicate predicate) {
         return studyRepository.findOne(predicate);
@@ -57,56 +70,66 @@ public class StudyServiceImpl implements StudyService {
         return (List<Study>) studyRepository.findAll(predicate);
     }
 
+    @Override
+    public Page<Study> findStudiesByPredicate(Predicate predicate, Pageable pageable) {
+        return studyRepository.findAll(predicate, pageable);
+    }
+
     @Override
     public Study findStudyByAccession(String accession) {
         QStudy study = QStudy.study;
         Predicate predicate = study.accessionVersionId.accession.equalsIgnoreCase(accession);
-
-        List<Study> studies = findStudiesByPredicate(predicate);
-
-        studies.sort((new Comparator<Study>() {
-            @Override
-            public int compare(Study o1, Study o2) {
-                return o1.getAccessionVersionId().getVersion() - o2.getAccessionVersionId().getVersion();
-            }
-        }).reversed());
+        List<Study> studies = studyRepository.findAll(predicate, 1, LATEST_VERSION);
 
         return studies.isEmpty() ? null : studies.get(0);
     }
 
     @Override
-    public List<Study> findStudiesByReleaseDate(LocalDate from, LocalDate to) {
+    public Page<Study> findStudiesByReleaseDate(LocalDate from, LocalDate to, Pageable pageable) {
         QStudy study = QStudy.study;
         Predicate predicate = study.releaseDate.between(from, to);
 
-        return findStudiesByPredicate(predicate);
+        return findStudiesByPredicate(predicate, pageable);
     }
 
     @Override
-    public List<Study> findStudiesByTextSearch(String searchTerm) {
-        QStudy study = QStudy.study;
-        Predicate predicate = study.name.containsIgnoreCase(searchTerm).
-                or(study.description.containsIgnoreCase(searchTerm));
+    public Page<Study> findStudiesByTextSearch(String searchTerm, Pageable pageable) {
+        Predicate predicate = studyTextSearchEngine.matches(searchTerm);
 
-        return findStudiesByPredicate(predicate);
+        Sort relevance = studyTextSearchEngine.relevance(searchTerm);
+        if (pageable.getSort() != null || relevance == null) {
+            return findStudiesByPredicate(predicate, pageable);
+        }
+
+        // The relevance is an expression, not a property the paging links could sort by, keep it out of the page
+        Page<Study> studies = findStudiesByPredicate(predicate,
+                new PageRequest(pageable.getPageNumber(), pageable.getPageSize(), relevance));
+        return new PageImpl<>(studies.getContent(), pageable, studies.getTotalElements());
+    }
+
+    @Override
+    public Page<Study> findStudiesByFuzzySearch(String searchTerm, float threshold, Pageable pageable) {
+        QStudy study = QStudy.study;
+        return fuzzyTextSearchEngine.search(studyRepository, searchTerm, threshold, pageable,
+                study.name, study.description, study.center);
     }
 
     @Override
-    public List<Study> findStudiesByTaxonomyId(long id) {
+    public Page<Study> findStudiesByTaxonomyId(long id, Pageable pageable) {
         QStudy study = QStudy.study;
         Predicate predicate = study.taxonomy.taxonomyId.eq(id).
                 or(study.taxonomy.ancestors.any().taxonomyId.eq(id));
 
-        return findStudiesByPredicate(predicate);
+        return findStudiesByPredicate(predicate, pageable);
     }
 
     @Override
-    public List<Study> findStudiesByTaxonomyName(String name) {
+    public Page<Study> findStudiesByTaxonomyName(String name, Pageable pageable) {
         QStudy study = QStudy.study;
         Predicate predicate = study.taxonomy.name.equalsIgnoreCase(name).
                 or(study.taxonomy.ancestors.any().name.equalsIgnoreCase(name));
 
-        return findStudiesByPredicate(predicate);
+        return findStudiesByPredicate(predicate, pageable);
     }
 
     @Override
@@ -0,0 +1,122 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.StringExpression;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.querydsl.QSort;
+import org.springframework.data.querydsl.QueryDslPredicateExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.ampt2d.metadata.persistence.dialect.FullTextPostgreSQLDialect;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matches the search term with the pg_trgm extension, served by the trigram GIN indexes created by
+ * db/migrations/005-fuzzy-search.sql. It needs the {@link FullTextPostgreSQLDialect}.
+ *
+ * A field matches when it contains the search term, ignoring case, or when one of its words or word sequences is
+ * more similar to the search term than the threshold, so misspelt terms still match. The threshold is set as the
+ * pg_trgm.word_similarity_threshold of the transaction running the search, which lets the index apply it. Unless the
+ * request sorts them, the matching entities are ordered by the similarity of their closest field.
+ */
+public class TrigramFuzzyTextSearchEngine implements FuzzyTextSearchEngine {
+
+    private static final String SET_THRESHOLD =
+            "SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public <T> Page<T> search(QueryDslPredicateExecutor<T> repository, String searchTerm, float threshold,
+                              Pageable pageable, StringExpression... fields) {
+        FuzzyTextSearchEngine.checkThreshold(threshold);
+
+        BooleanBuilder predicate = new BooleanBuilder();
+        List<NumberExpression<Float>> similarities = new ArrayList<>();
+        for (StringExpression field : fields) {
+            predicate.or(textFunction(FullTextPostgreSQLDialect.TEXT_CONTAINS, field, toLikePattern(searchTerm)))
+                    .or(textFunction(FullTextPostgreSQLDialect.TEXT_RESEMBLES, field, searchTerm));
+            similarities.add(Expressions.numberTemplate(Float.class,
+                    FullTextPostgreSQLDialect.TEXT_SIMILARITY + "({0}, {1})", field, ConstantImpl.create(searchTerm)));
+        }
+        if (pageable.getSort() != null || similarities.isEmpty()) {
+            return search(repository, predicate, threshold, pageable);
+        }
+        // The similarity is an expression, not a property the paging links could sort by, keep it out of the page
+        Page<T> entities = search(repository, predicate, threshold, new PageRequest(pageable.getPageNumber(),
+                pageable.getPageSize(), new QSort(new OrderSpecifier<>(Order.DESC, closest(similarities)))));
+        return new PageImpl<>(entities.getContent(), pageable, entities.getTotalElements());
+    }
+
+    private <T> Page<T> search(QueryDslPredicateExecutor<T> repository, Predicate predicate, float threshold,
+                               Pageable pageable) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> {
+            entityManager.createNativeQuery(SET_THRESHOLD)
+                    .setParameter("threshold", Float.toString(threshold))
+                    .getSingleResult();
+            return repository.findAll(predicate, pageable);
+        });
+    }
+
+    /**
+     * Escapes the LIKE wildcards of the search term, so that it only matches itself
+     */
+    static String toLikePattern(String searchTerm) {
+        return searchTerm.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static BooleanExpression textFunction(String function, Expression<String> text, String argument) {
+        return Expressions.booleanTemplate(function + "({0}, {1}) = true", text, ConstantImpl.create(argument));
+    }
+
+    private static NumberExpression<Float> closest(List<NumberExpression<Float>> similarities) {
+        if (similarities.size() == 1) {
+            return similarities.get(0);
+        }
+        StringBuilder template = new StringBuilder("greatest(");
+        for (int i = 0; i < similarities.size(); i++) {
+            template.append(i == 0 ? "" : ", ").append('{').append(i).append('}');
+        }
+        return Expressions.numberTemplate(Float.class, template.append(')').toString(), similarities.toArray());
+    }
+
+}
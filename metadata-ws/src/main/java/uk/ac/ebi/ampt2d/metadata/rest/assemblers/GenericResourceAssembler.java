@@ -18,9 +18,12 @@
 package uk.ac.ebi.ampt2d.metadata.rest.assemblers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.data.rest.webmvc.mapping.LinkCollector;
 import org.springframework.data.rest.webmvc.support.RepositoryEntityLinks;
+import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.Resources;
 import org.springframework.hateoas.core.EmbeddedWrappers;
@@ -63,6 +66,20 @@ public class GenericResourceAssembler<ENTITY extends Auditable, RESOURCE extends
         return new Resources<RESOURCE>(resourceList, getDefaultSelfLink());
     }
 
+    /**
+     * @return the entities of the page with the page metadata and the links to the first, previous, next and last
+     * pages of the current request. The links are built from the request URI rather than from the controller method,
+     * which would drop the query parameters not bound with @RequestParam.
+     */
+    public PagedResources<?> toPagedResources(Class<ENTITY> type, Page<ENTITY> page,
+                                              PagedResourcesAssembler<ENTITY> pagedResourcesAssembler) {
+        if (!page.hasContent()) {
+            return pagedResourcesAssembler.toEmptyResource(page, type, getDefaultSelfLink());
+        }
+
+        return pagedResourcesAssembler.toResource(page, this, getDefaultSelfLink());
+    }
+
     private Link getDefaultSelfLink() {
         return new Link(ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString());
     }
@@ -23,22 +23,29 @@ import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.querydsl.binding.QuerydslPredicate;
 import org.springframework.data.rest.webmvc.RepositoryLinksResource;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.ResourceProcessor;
-import org.springframework.hateoas.Resources;
 import org.springframework.hateoas.mvc.ControllerLinkBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.Analysis;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QAnalysis;
 import uk.ac.ebi.ampt2d.metadata.persistence.repositories.AnalysisRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.BulkImportResult;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.BulkImportService;
 import uk.ac.ebi.ampt2d.metadata.rest.assemblers.GenericResourceAssembler;
 import uk.ac.ebi.ampt2d.metadata.rest.resources.AnalysisResource;
 
-import java.util.List;
+import java.io.InputStream;
 
 @RestController
 @Api(tags = "Analysis Entity")
@@ -48,6 +55,9 @@ public class AnalysisRestController implements ResourceProcessor<RepositoryLinks
     @Autowired
     private AnalysisRepository analysisRepository;
 
+    @Autowired
+    private BulkImportService bulkImportService;
+
     @Autowired
     private GenericResourceAssembler<Analysis, AnalysisResource> resourceAssembler;
 
@@ -65,14 +75,50 @@ public class AnalysisRestController implements ResourceProcessor<RepositoryLinks
     @RequestMapping(method = RequestMethod.GET, path = "search", produces = "application/json")
     @ResponseBody
     @SuppressWarnings("unchecked")
-    public ResponseEntity<Resources<AnalysisResource>> search(@QuerydslPredicate(root = Analysis.class) Predicate predicate) {
-        List<Analysis> analyses = (List<Analysis>) analysisRepository.findAll(predicate);
+    public ResponseEntity<PagedResources<AnalysisResource>> search(@QuerydslPredicate(root = Analysis.class) Predicate predicate,
+            Pageable pageable, PagedResourcesAssembler<Analysis> pagedResourcesAssembler) {
+        Page<Analysis> analyses = analysisRepository.findAll(predicate, pageable);
+
+        PagedResources<AnalysisResource> resources = (PagedResources<AnalysisResource>) resourceAssembler.toPagedResources(
+                Analysis.class, analyses, pagedResourcesAssembler);
+
+        return ResponseEntity.ok(resources);
+    }
+
+    @ApiOperation(value = "Get a filtered list of the latest versions of analyses based on filtering criteria")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "type", value = "Analysis's type", dataType = "string",
+                    paramType = "query", example = "CASE_CONTROL",
+                    allowableValues = "CASE_CONTROL,CONTROL_SET,CASE_SET,COLLECTION,TUMOR,MATCHED_NORMAL"),
+            @ApiImplicitParam(name = "platform", value = "Analysis's Platform", dataType = "string",
+                    paramType = "query", example = "Illumina"),
+            @ApiImplicitParam(name = "technology", value = "Analysis's Technoloy", dataType = "string",
+                    paramType = "query", example = "GWAS",
+                    allowableValues = "GWAS,EXOME_SEQUENCING,GENOTYPING,ARRAY,CURATION")
+    })
+    @RequestMapping(method = RequestMethod.GET, path = "search/latest", produces = "application/json")
+    @ResponseBody
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<PagedResources<AnalysisResource>> searchLatest(@QuerydslPredicate(root = Analysis.class) Predicate predicate,
+            Pageable pageable, PagedResourcesAssembler<Analysis> pagedResourcesAssembler) {
+        Page<Analysis> analyses = analysisRepository.findAll(QAnalysis.analysis.latest.isTrue().and(predicate), pageable);
 
-        Resources<AnalysisResource> resources = (Resources<AnalysisResource>) resourceAssembler.toResources(Analysis.class, analyses);
+        PagedResources<AnalysisResource> resources = (PagedResources<AnalysisResource>) resourceAssembler.toPagedResources(
+                Analysis.class, analyses, pagedResourcesAssembler);
 
         return ResponseEntity.ok(resources);
     }
 
+    @ApiOperation(value = "Create or update analyses in bulk from a JSON array or newline delimited JSON, each " +
+            "analysis in the same form as a POST to /analyses. An analysis with a stored accession and version " +
+            "updates the stored one, keeping its samples and files. Returns the status of every analysis.")
+    @RequestMapping(method = RequestMethod.POST, path = "bulk", produces = "application/json",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, BulkImportService.NDJSON_MEDIA_TYPE})
+    @ResponseBody
+    public ResponseEntity<BulkImportResult> upsertAnalyses(InputStream items) {
+        return ResponseEntity.ok(bulkImportService.upsertAnalyses(items));
+    }
+
     @Override
     public RepositoryLinksResource process(RepositoryLinksResource resource) {
         resource.add(ControllerLinkBuilder.linkTo(AnalysisRestController.class).slash("/search").withRel("analyses"));
@@ -0,0 +1,52 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.rest.controllers;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.BulkImportResult;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.BulkImportService;
+
+import java.io.InputStream;
+
+@RestController
+@Api(tags = "File Entity")
+@RequestMapping(path = "files")
+public class FileRestController {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @ApiOperation(value = "Create or update files in bulk from a JSON array or newline delimited JSON, each file in " +
+            "the same form as a POST to /files. A file with a stored accession and version updates the stored one. " +
+            "Returns the status of every file.")
+    @RequestMapping(method = RequestMethod.POST, path = "bulk", produces = "application/json",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, BulkImportService.NDJSON_MEDIA_TYPE})
+    @ResponseBody
+    public ResponseEntity<BulkImportResult> upsertFiles(InputStream items) {
+        return ResponseEntity.ok(bulkImportService.upsertFiles(items));
+    }
+
+}
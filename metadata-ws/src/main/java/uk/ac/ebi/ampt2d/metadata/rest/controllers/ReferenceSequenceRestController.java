@@ -23,10 +23,13 @@ import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.querydsl.binding.QuerydslPredicate;
 import org.springframework.data.rest.webmvc.RepositoryLinksResource;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.ResourceProcessor;
-import org.springframework.hateoas.Resources;
 import org.springframework.hateoas.mvc.ControllerLinkBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -38,7 +41,6 @@ import uk.ac.ebi.ampt2d.metadata.persistence.repositories.ReferenceSequenceRepos
 import uk.ac.ebi.ampt2d.metadata.rest.assemblers.GenericResourceAssembler;
 import uk.ac.ebi.ampt2d.metadata.rest.resources.ReferenceSequenceResource;
 
-import java.util.List;
 
 @RestController
 @Api(tags = "ReferenceSequence Entity")
@@ -62,10 +64,12 @@ public class ReferenceSequenceRestController implements ResourceProcessor<Reposi
     @RequestMapping(method = RequestMethod.GET, path = "search", produces = "application/json")
     @ResponseBody
     @SuppressWarnings("unchecked")
-    public ResponseEntity<Resources<ReferenceSequenceResource>> search(@QuerydslPredicate(root = ReferenceSequence.class) Predicate predicate) {
-        List<ReferenceSequence> referenceSequences = (List<ReferenceSequence>) referenceSequenceRepository.findAll(predicate);
+    public ResponseEntity<PagedResources<ReferenceSequenceResource>> search(@QuerydslPredicate(root = ReferenceSequence.class) Predicate predicate,
+            Pageable pageable, PagedResourcesAssembler<ReferenceSequence> pagedResourcesAssembler) {
+        Page<ReferenceSequence> referenceSequences = referenceSequenceRepository.findAll(predicate, pageable);
 
-        Resources<ReferenceSequenceResource> resources = (Resources<ReferenceSequenceResource>) resourceAssembler.toResources(ReferenceSequence.class, referenceSequences);
+        PagedResources<ReferenceSequenceResource> resources = (PagedResources<ReferenceSequenceResource>) resourceAssembler.toPagedResources(
+                ReferenceSequence.class, referenceSequences, pagedResourcesAssembler);
 
         return ResponseEntity.ok(resources);
     }
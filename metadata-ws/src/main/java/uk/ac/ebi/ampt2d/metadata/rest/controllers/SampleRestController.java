@@ -23,22 +23,31 @@ import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.querydsl.binding.QuerydslPredicate;
 import org.springframework.data.rest.webmvc.RepositoryLinksResource;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.ResourceProcessor;
-import org.springframework.hateoas.Resources;
 import org.springframework.hateoas.mvc.ControllerLinkBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QSample;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.Sample;
 import uk.ac.ebi.ampt2d.metadata.persistence.repositories.SampleRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.BulkImportResult;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.BulkImportService;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FuzzyTextSearchEngine;
 import uk.ac.ebi.ampt2d.metadata.rest.assemblers.GenericResourceAssembler;
 import uk.ac.ebi.ampt2d.metadata.rest.resources.SampleResource;
 
-import java.util.List;
+import java.io.InputStream;
 
 @RestController
 @Api(tags = "Sample Entity")
@@ -48,6 +57,12 @@ public class SampleRestController implements ResourceProcessor<RepositoryLinksRe
     @Autowired
     private SampleRepository sampleRepository;
 
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private FuzzyTextSearchEngine fuzzyTextSearchEngine;
+
     @Autowired
     private GenericResourceAssembler<Sample, SampleResource> resourceAssembler;
 
@@ -61,14 +76,69 @@ public class SampleRestController implements ResourceProcessor<RepositoryLinksRe
     @RequestMapping(method = RequestMethod.GET, path = "search", produces = "application/json")
     @ResponseBody
     @SuppressWarnings("unchecked")
-    public ResponseEntity<Resources<SampleResource>> search(@QuerydslPredicate(root = Sample.class) Predicate predicate) {
-        List<Sample> samples = (List<Sample>) sampleRepository.findAll(predicate);
+    public ResponseEntity<PagedResources<SampleResource>> search(@QuerydslPredicate(root = Sample.class) Predicate predicate,
+            Pageable pageable, PagedResourcesAssembler<Sample> pagedResourcesAssembler) {
+        Page<Sample> samples = sampleRepository.findAll(predicate, pageable);
 
-        Resources<SampleResource> resources = (Resources<SampleResource>) resourceAssembler.toResources(Sample.class, samples);
+        PagedResources<SampleResource> resources = (PagedResources<SampleResource>) resourceAssembler.toPagedResources(
+                Sample.class, samples, pagedResourcesAssembler);
 
         return ResponseEntity.ok(resources);
     }
 
+    @ApiOperation(value = "Get a filtered list of the latest versions of samples based on taxonomy name/id")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "taxonomies.name", value = "Sample's taxonomy name", dataType = "string",
+                    paramType = "query", example = "Homo Sapiens"),
+            @ApiImplicitParam(name = "taxonomies.id", value = "Sample's taxonomy id", dataType = "long",
+                    paramType = "query", example = "9606")
+    })
+    @RequestMapping(method = RequestMethod.GET, path = "search/latest", produces = "application/json")
+    @ResponseBody
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<PagedResources<SampleResource>> searchLatest(@QuerydslPredicate(root = Sample.class) Predicate predicate,
+            Pageable pageable, PagedResourcesAssembler<Sample> pagedResourcesAssembler) {
+        Page<Sample> samples = sampleRepository.findAll(QSample.sample.latest.isTrue().and(predicate), pageable);
+
+        PagedResources<SampleResource> resources = (PagedResources<SampleResource>) resourceAssembler.toPagedResources(
+                Sample.class, samples, pagedResourcesAssembler);
+
+        return ResponseEntity.ok(resources);
+    }
+
+    @ApiOperation(value = "Get the list of samples whose name contains the search term or, with the trigram search " +
+            "engine, resembles it closely enough to tolerate typos. Unsorted results are ordered from the closest match.")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "searchTerm", value = "search term", dataType = "string", required = true,
+                    paramType = "query", example = "sampel"),
+            @ApiImplicitParam(name = "threshold", value = "Similarity between 0 and 1 the name must exceed to match " +
+                    "without containing the search term", dataType = "float", paramType = "query", example = "0.3")
+    })
+    @RequestMapping(method = RequestMethod.GET, path = "search/fuzzy", produces = "application/json")
+    @ResponseBody
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<PagedResources<SampleResource>> searchFuzzy(@RequestParam String searchTerm,
+            @RequestParam(defaultValue = "" + FuzzyTextSearchEngine.DEFAULT_THRESHOLD) float threshold,
+            Pageable pageable, PagedResourcesAssembler<Sample> pagedResourcesAssembler) {
+        Page<Sample> samples = fuzzyTextSearchEngine.search(sampleRepository, searchTerm, threshold, pageable,
+                QSample.sample.name);
+
+        PagedResources<SampleResource> resources = (PagedResources<SampleResource>) resourceAssembler.toPagedResources(
+                Sample.class, samples, pagedResourcesAssembler);
+
+        return ResponseEntity.ok(resources);
+    }
+
+    @ApiOperation(value = "Create or update samples in bulk from a JSON array or newline delimited JSON, each " +
+            "sample in the same form as a POST to /samples. A sample with a stored accession and version updates " +
+            "the stored one. Returns the status of every sample.")
+    @RequestMapping(method = RequestMethod.POST, path = "bulk", produces = "application/json",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, BulkImportService.NDJSON_MEDIA_TYPE})
+    @ResponseBody
+    public ResponseEntity<BulkImportResult> upsertSamples(InputStream items) {
+        return ResponseEntity.ok(bulkImportService.upsertSamples(items));
+    }
+
     @Override
     public RepositoryLinksResource process(RepositoryLinksResource resource) {
         resource.add(ControllerLinkBuilder.linkTo(SampleRestController.class).slash("/search").withRel("samples"));
@@ -24,9 +24,13 @@ import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.querydsl.binding.QuerydslPredicate;
 import org.springframework.data.rest.webmvc.RepositoryLinksResource;
+import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.ResourceProcessor;
 import org.springframework.hateoas.Resources;
@@ -39,7 +43,9 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QStudy;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.Study;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FuzzyTextSearchEngine;
 import uk.ac.ebi.ampt2d.metadata.persistence.services.StudyService;
 import uk.ac.ebi.ampt2d.metadata.rest.assemblers.GenericResourceAssembler;
 import uk.ac.ebi.ampt2d.metadata.rest.resources.StudyResource;
@@ -70,10 +76,34 @@ public class StudyRestController implements ResourceProcessor<RepositoryLinksRes
     @RequestMapping(method = RequestMethod.GET, path = "search", produces = "application/json")
     @ResponseBody
     @SuppressWarnings("unchecked")
-    public ResponseEntity<Resources<StudyResource>> search(@QuerydslPredicate(root = Study.class) Predicate predicate) {
-        List<Study> studies = studyService.findStudiesByPredicate(predicate);
+    public ResponseEntity<PagedResources<StudyResource>> search(@QuerydslPredicate(root = Study.class) Predicate predicate,
+            Pageable pageable, PagedResourcesAssembler<Study> pagedResourcesAssembler) {
+        Page<Study> studies = studyService.findStudiesByPredicate(predicate, pageable);
 
-        Resources<StudyResource> resources = (Resources<StudyResource>) resourceAssembler.toResources(Study.class, studies);
+        PagedResources<StudyResource> resources = (PagedResources<StudyResource>) resourceAssembler.toPagedResources(
+                Study.class, studies, pagedResourcesAssembler);
+
+        return ResponseEntity.ok(resources);
+    }
+
+    @ApiOperation(value = "Get a filtered list of the latest versions of studies based on filtering criteria")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "analyses.referenceSequence.name", value = "Reference Sequence's name", dataType = "string",
+                    paramType = "query", example = "grch37"),
+            @ApiImplicitParam(name = "analyses.referenceSequence.patch", value = "Reference Sequence's patch number", dataType = "string",
+                    paramType = "query", example = "p2"),
+            @ApiImplicitParam(name = "analyses.type", value = "Analysis's type", dataType = "string",
+                    paramType = "query", example = "CASE_CONTROL")
+    })
+    @RequestMapping(method = RequestMethod.GET, path = "search/latest", produces = "application/json")
+    @ResponseBody
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<PagedResources<StudyResource>> searchLatest(@QuerydslPredicate(root = Study.class) Predicate predicate,
+            Pageable pageable, PagedResourcesAssembler<Study> pagedResourcesAssembler) {
+        Page<Study> studies = studyService.findStudiesByPredicate(QStudy.study.latest.isTrue().and(predicate), pageable);
+
+        PagedResources<StudyResource> resources = (PagedResources<StudyResource>) resourceAssembler.toPagedResources(
+                Study.class, studies, pagedResourcesAssembler);
 
         return ResponseEntity.ok(resources);
     }
@@ -105,13 +135,15 @@ public class StudyRestController implements ResourceProcessor<RepositoryLinksRes
     @RequestMapping(method = RequestMethod.GET, path = "search/release-date", produces = "application/json")
     @ResponseBody
     @SuppressWarnings("unchecked")
-    public ResponseEntity<Resources<StudyResource>> findStudiesByReleaseDate(
+    public ResponseEntity<PagedResources<StudyResource>> findStudiesByReleaseDate(
             @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Pageable pageable, PagedResourcesAssembler<Study> pagedResourcesAssembler) {
 
-        List<Study> studies = studyService.findStudiesByReleaseDate(from, to);
+        Page<Study> studies = studyService.findStudiesByReleaseDate(from, to, pageable);
 
-        Resources<StudyResource> resources = (Resources<StudyResource>) resourceAssembler.toResources(Study.class, studies);
+        PagedResources<StudyResource> resources = (PagedResources<StudyResource>) resourceAssembler.toPagedResources(
+                Study.class, studies, pagedResourcesAssembler);
 
         return ResponseEntity.ok(resources);
     }
@@ -121,10 +153,12 @@ public class StudyRestController implements ResourceProcessor<RepositoryLinksRes
     @RequestMapping(method = RequestMethod.GET, path = "search/taxonomy-id", produces = "application/json")
     @ResponseBody
     @SuppressWarnings("unchecked")
-    public ResponseEntity<Resources<StudyResource>> findStudiesByTaxonomyId(long id) {
-        List<Study> studies = studyService.findStudiesByTaxonomyId(id);
+    public ResponseEntity<PagedResources<StudyResource>> findStudiesByTaxonomyId(long id, Pageable pageable,
+            PagedResourcesAssembler<Study> pagedResourcesAssembler) {
+        Page<Study> studies = studyService.findStudiesByTaxonomyId(id, pageable);
 
-        Resources<StudyResource> resources = (Resources<StudyResource>) resourceAssembler.toResources(Study.class, studies);
+        PagedResources<StudyResource> resources = (PagedResources<StudyResource>) resourceAssembler.toPagedResources(
+                Study.class, studies, pagedResourcesAssembler);
 
         return ResponseEntity.ok(resources);
     }
@@ -134,23 +168,52 @@ public class StudyRestController implements ResourceProcessor<RepositoryLinksRes
     @RequestMapping(method = RequestMethod.GET, path = "search/taxonomy-name", produces = "application/json")
     @ResponseBody
     @SuppressWarnings("unchecked")
-    public ResponseEntity<Resources<StudyResource>> findStudiesByTaxonomyName(String name) {
-        List<Study> studies = studyService.findStudiesByTaxonomyName(name);
+    public ResponseEntity<PagedResources<StudyResource>> findStudiesByTaxonomyName(String name, Pageable pageable,
+            PagedResourcesAssembler<Study> pagedResourcesAssembler) {
+        Page<Study> studies = studyService.findStudiesByTaxonomyName(name, pageable);
 
-        Resources<StudyResource> resources = (Resources<StudyResource>) resourceAssembler.toResources(Study.class, studies);
+        PagedResources<StudyResource> resources = (PagedResources<StudyResource>) resourceAssembler.toPagedResources(
+                Study.class, studies, pagedResourcesAssembler);
 
         return ResponseEntity.ok(resources);
     }
 
-    @ApiOperation(value = "studySearch")
+    @ApiOperation(value = "Get the list of studies whose name, description or analysis descriptions match a text " +
+            "search. With the full text search engine, quoted words match as a phrase and a word ending with * as a " +
+            "prefix, and unsorted results are ordered by relevance.")
     @ApiParam(name = "searchTerm", value = "search term", type = "string", required = true, example = "human")
     @RequestMapping(method = RequestMethod.GET, path = "search/text", produces = "application/json")
     @ResponseBody
     @SuppressWarnings("unchecked")
-    public ResponseEntity<Resources<StudyResource>> getStudies(String searchTerm) {
-        List<Study> studies = studyService.findStudiesByTextSearch(searchTerm);
+    public ResponseEntity<PagedResources<StudyResource>> getStudies(String searchTerm, Pageable pageable,
+            PagedResourcesAssembler<Study> pagedResourcesAssembler) {
+        Page<Study> studies = studyService.findStudiesByTextSearch(searchTerm, pageable);
 
-        Resources<StudyResource> resources = (Resources<StudyResource>) resourceAssembler.toResources(Study.class, studies);
+        PagedResources<StudyResource> resources = (PagedResources<StudyResource>) resourceAssembler.toPagedResources(
+                Study.class, studies, pagedResourcesAssembler);
+
+        return ResponseEntity.ok(resources);
+    }
+
+    @ApiOperation(value = "Get the list of studies whose name, description or center contain the search term or, " +
+            "with the trigram search engine, resemble it closely enough to tolerate typos. Unsorted results are " +
+            "ordered from the closest match.")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "searchTerm", value = "search term", dataType = "string", required = true,
+                    paramType = "query", example = "humna"),
+            @ApiImplicitParam(name = "threshold", value = "Similarity between 0 and 1 a field must exceed to match " +
+                    "without containing the search term", dataType = "float", paramType = "query", example = "0.3")
+    })
+    @RequestMapping(method = RequestMethod.GET, path = "search/fuzzy", produces = "application/json")
+    @ResponseBody
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<PagedResources<StudyResource>> findStudiesByFuzzySearch(@RequestParam String searchTerm,
+            @RequestParam(defaultValue = "" + FuzzyTextSearchEngine.DEFAULT_THRESHOLD) float threshold,
+            Pageable pageable, PagedResourcesAssembler<Study> pagedResourcesAssembler) {
+        Page<Study> studies = studyService.findStudiesByFuzzySearch(searchTerm, threshold, pageable);
+
+        PagedResources<StudyResource> resources = (PagedResources<StudyResource>) resourceAssembler.toPagedResources(
+                Study.class, studies, pagedResourcesAssembler);
 
         return ResponseEntity.ok(resources);
     }
@@ -200,6 +263,7 @@ public class StudyRestController implements ResourceProcessor<RepositoryLinksRes
         resource.add(ControllerLinkBuilder.linkTo(StudyRestController.class).slash("/search/accession").withRel("studies"));
         resource.add(ControllerLinkBuilder.linkTo(StudyRestController.class).slash("/search/release-date").withRel("studies"));
         resource.add(ControllerLinkBuilder.linkTo(StudyRestController.class).slash("/search/text").withRel("studies"));
+        resource.add(ControllerLinkBuilder.linkTo(StudyRestController.class).slash("/search/fuzzy").withRel("studies"));
         resource.add(ControllerLinkBuilder.linkTo(StudyRestController.class).slash("/search/taxonomy-id").withRel("studies"));
         resource.add(ControllerLinkBuilder.linkTo(StudyRestController.class).slash("/search/taxonomy-name").withRel("studies"));
         return resource;
@@ -0,0 +1,36 @@
+--
+--
+-- Copyright 2018 EMBL - European Bioinformatics Institute
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+--
+-- Every entity takes its ids from its own sequence, allocated in blocks of 50 by the pooled-lo optimizer. Databases
+-- created while the ids came from the shared hibernate_sequence have none of these sequences, so schema validation
+-- fails until they exist. Each sequence starts past the highest id already stored in its table.
+--
+-- Run once, before the first start of a version using these sequences.
+CREATE SEQUENCE IF NOT EXISTS analysis_sequence INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS file_sequence INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS reference_sequence_sequence INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS sample_sequence INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS study_sequence INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS taxonomy_sequence INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS web_resource_sequence INCREMENT BY 50;
+SELECT setval('analysis_sequence', (SELECT COALESCE(MAX(id), 0) + 1 FROM analysis), false);
+SELECT setval('file_sequence', (SELECT COALESCE(MAX(id), 0) + 1 FROM file), false);
+SELECT setval('reference_sequence_sequence', (SELECT COALESCE(MAX(id), 0) + 1 FROM reference_sequence), false);
+SELECT setval('sample_sequence', (SELECT COALESCE(MAX(id), 0) + 1 FROM sample), false);
+SELECT setval('study_sequence', (SELECT COALESCE(MAX(id), 0) + 1 FROM study), false);
+SELECT setval('taxonomy_sequence', (SELECT COALESCE(MAX(id), 0) + 1 FROM taxonomy), false);
+SELECT setval('web_resource_sequence', (SELECT COALESCE(MAX(id), 0) + 1 FROM web_resource), false);
@@ -0,0 +1,20 @@
+--
+--
+-- Copyright 2018 EMBL - European Bioinformatics Institute
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+--
+-- Studies are looked up by accession ignoring case, latest version first, which the unique (accession, version)
+-- index can not serve. This index answers it by reading a single entry.
+CREATE INDEX IF NOT EXISTS study_lower_accession_version_idx ON study (lower(accession), version DESC);
@@ -0,0 +1,39 @@
+--
+--
+-- Copyright 2018 EMBL - European Bioinformatics Institute
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+--
+-- Exactly one version of every accession is flagged as the latest, accessions being compared ignoring case. Rows
+-- stored before the flag existed are flagged once, the highest version of every accession and, among the versions
+-- only differing in case, the last stored one.
+ALTER TABLE analysis ADD COLUMN IF NOT EXISTS latest boolean NOT NULL DEFAULT false;
+ALTER TABLE file ADD COLUMN IF NOT EXISTS latest boolean NOT NULL DEFAULT false;
+ALTER TABLE sample ADD COLUMN IF NOT EXISTS latest boolean NOT NULL DEFAULT false;
+ALTER TABLE study ADD COLUMN IF NOT EXISTS latest boolean NOT NULL DEFAULT false;
+UPDATE analysis SET latest = COALESCE(id = (SELECT other.id FROM analysis other WHERE lower(other.accession) = lower(analysis.accession) ORDER BY other.version DESC, other.id DESC LIMIT 1), false);
+UPDATE file SET latest = COALESCE(id = (SELECT other.id FROM file other WHERE lower(other.accession) = lower(file.accession) ORDER BY other.version DESC, other.id DESC LIMIT 1), false);
+UPDATE sample SET latest = COALESCE(id = (SELECT other.id FROM sample other WHERE lower(other.accession) = lower(sample.accession) ORDER BY other.version DESC, other.id DESC LIMIT 1), false);
+UPDATE study SET latest = COALESCE(id = (SELECT other.id FROM study other WHERE lower(other.accession) = lower(study.accession) ORDER BY other.version DESC, other.id DESC LIMIT 1), false);
+--
+-- The partial indexes let the latest versions be listed without reading the older ones. The unique ones also keep
+-- concurrent saves of the first versions of an accession from flagging two of them.
+CREATE INDEX IF NOT EXISTS analysis_latest_idx ON analysis (id) WHERE latest;
+CREATE INDEX IF NOT EXISTS file_latest_idx ON file (id) WHERE latest;
+CREATE INDEX IF NOT EXISTS sample_latest_idx ON sample (id) WHERE latest;
+CREATE INDEX IF NOT EXISTS study_latest_idx ON study (id) WHERE latest;
+CREATE UNIQUE INDEX IF NOT EXISTS analysis_latest_accession_idx ON analysis (lower(accession)) WHERE latest;
+CREATE UNIQUE INDEX IF NOT EXISTS file_latest_accession_idx ON file (lower(accession)) WHERE latest;
+CREATE UNIQUE INDEX IF NOT EXISTS sample_latest_accession_idx ON sample (lower(accession)) WHERE latest;
+CREATE UNIQUE INDEX IF NOT EXISTS study_latest_accession_idx ON study (lower(accession)) WHERE latest;
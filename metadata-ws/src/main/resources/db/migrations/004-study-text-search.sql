@@ -0,0 +1,23 @@
+--
+--
+-- Copyright 2018 EMBL - European Bioinformatics Institute
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+--
+-- Full text indexes for the study text search. The expressions must stay the same as the ones built by
+-- FullTextPostgreSQLDialect, otherwise the searches can not use the indexes. PostgreSQL 9.6 or later is needed.
+CREATE INDEX IF NOT EXISTS study_name_text_idx ON study USING GIN (to_tsvector('english', coalesce(name, '')));
+CREATE INDEX IF NOT EXISTS study_description_text_idx ON study USING GIN (to_tsvector('english', coalesce(description, '')));
+CREATE INDEX IF NOT EXISTS analysis_description_text_idx ON analysis USING GIN (to_tsvector('english', coalesce(description, '')));
+CREATE INDEX IF NOT EXISTS analysis_study_idx ON analysis (study_id);
@@ -0,0 +1,27 @@
+--
+--
+-- Copyright 2018 EMBL - European Bioinformatics Institute
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+--
+-- Trigram indexes for the fuzzy search. They serve both the case insensitive substring match and the word similarity
+-- match built by FullTextPostgreSQLDialect. Only needed with endpoints.fuzzy-search.engine=trigram.
+--
+-- Creating the extension needs a role allowed to do so, usually a database administrator rather than the role of the
+-- application. The extension must be created in every database the application uses.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS study_name_trgm_idx ON study USING GIN (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS study_description_trgm_idx ON study USING GIN (description gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS study_center_trgm_idx ON study USING GIN (center gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS sample_name_trgm_idx ON sample USING GIN (name gin_trgm_ops);
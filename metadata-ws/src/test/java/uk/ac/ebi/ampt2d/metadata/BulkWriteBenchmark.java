@@ -0,0 +1,117 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.AccessionVersionId;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.Sample;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.Taxonomy;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.FileRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.SampleRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.TaxonomyRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FileService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures how many rows per second are written when loading files and samples in bulk.
+ *
+ * It is not part of the regular test run. Run it with {@code mvn test -Dtest=BulkWriteBenchmark}, optionally with
+ * {@code -Dbenchmark.rows=1000000} and the {@code spring.datasource.*} properties of a PostgreSQL database, which is
+ * where the pooled sequences and JDBC batching make the difference.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class BulkWriteBenchmark {
+
+    private static final Logger BENCHMARK_LOGGER = Logger.getLogger(BulkWriteBenchmark.class.getName());
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 100000);
+
+    private static final int ROWS_PER_TRANSACTION = Integer.getInteger("benchmark.rowsPerTransaction", 1000);
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private SampleRepository sampleRepository;
+
+    @Autowired
+    private TaxonomyRepository taxonomyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void loadFiles() {
+        long storedFiles = fileRepository.count();
+
+        measure("File", index -> new File(new AccessionVersionId("BENCHF" + index, 1), "hash" + index,
+                "file_" + index, index, File.Type.VCF), fileService::upsert);
+
+        assertEquals(storedFiles + ROWS, fileRepository.count());
+    }
+
+    @Test
+    public void loadSamples() {
+        long storedSamples = sampleRepository.count();
+        List<Taxonomy> taxonomies = Collections.singletonList(
+                taxonomyRepository.save(new Taxonomy(9606, "Homo sapiens")));
+
+        measure("Sample", index -> new Sample(new AccessionVersionId("BENCHS" + index, 1), "sample_" + index,
+                taxonomies), sampleRepository::save);
+
+        assertEquals(storedSamples + ROWS, sampleRepository.count());
+    }
+
+    private <T> void measure(String entityName, IntFunction<T> entityFactory, Consumer<List<T>> writer) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long start = System.nanoTime();
+        for (int from = 0; from < ROWS; from += ROWS_PER_TRANSACTION) {
+            List<T> entities = new ArrayList<>(ROWS_PER_TRANSACTION);
+            for (int index = from; index < Math.min(from + ROWS_PER_TRANSACTION, ROWS); index++) {
+                entities.add(entityFactory.apply(index));
+            }
+            transactionTemplate.execute(status -> {
+                writer.accept(entities);
+                return null;
+            });
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        BENCHMARK_LOGGER.info(String.format("Loaded %d %s rows in %.1f s, %.0f rows/s", ROWS, entityName, seconds,
+                ROWS / seconds));
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.AccessionVersionId;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QStudy;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.Study;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.Taxonomy;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.StudyRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.TaxonomyRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.StudyService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures how long it takes to find the latest version of a study when every accession has many versions.
+ *
+ * It is not part of the regular test run. Run it with {@code mvn test -Dtest=LatestVersionBenchmark}, optionally
+ * with {@code -Dbenchmark.accessions=1000 -Dbenchmark.versions=100} and the {@code spring.datasource.*} properties of
+ * a PostgreSQL database, where the lookup is served by the index on {@code lower(accession)}. The lookup is compared
+ * with loading every version and sorting them in memory.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class LatestVersionBenchmark {
+
+    private static final Logger BENCHMARK_LOGGER = Logger.getLogger(LatestVersionBenchmark.class.getName());
+
+    private static final int ACCESSIONS = Integer.getInteger("benchmark.accessions", 200);
+
+    private static final int VERSIONS = Integer.getInteger("benchmark.versions", 100);
+
+    private static final int LOOKUPS = Integer.getInteger("benchmark.lookups", 2000);
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private StudyRepository studyRepository;
+
+    @Autowired
+    private TaxonomyRepository taxonomyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void findLatestVersion() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Taxonomy taxonomy = taxonomyRepository.save(new Taxonomy(9606, "Homo sapiens"));
+        LocalDate releaseDate = LocalDate.now().minusDays(1);
+        for (int accession = 0; accession < ACCESSIONS; accession++) {
+            List<Study> studies = new ArrayList<>(VERSIONS);
+            for (int version = 1; version <= VERSIONS; version++) {
+                studies.add(new Study(new AccessionVersionId("BENCHST" + accession, version), "study " + accession,
+                        "version " + version + " of study " + accession, "EBI", releaseDate, taxonomy));
+            }
+            transactionTemplate.execute(status -> studyRepository.save(studies));
+        }
+
+        measure("database", accession -> studyService.findStudyByAccession(accession));
+        measure("in memory", accession -> studyService.findStudiesByPredicate(
+                QStudy.study.accessionVersionId.accession.equalsIgnoreCase(accession)).stream()
+                .max(Comparator.comparing(study -> study.getAccessionVersionId().getVersion()))
+                .orElse(null));
+    }
+
+    private void measure(String lookupName, Function<String, Study> lookup) {
+        Random random = new Random(0);
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            Study study = lookup.apply("benchst" + random.nextInt(ACCESSIONS));
+            assertEquals(VERSIONS, study.getAccessionVersionId().getVersion().intValue());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        BENCHMARK_LOGGER.info(String.format("%d %s lookups of the latest of %d versions in %.1f s, %.0f lookups/s",
+                LOOKUPS, lookupName, VERSIONS, seconds, LOOKUPS / seconds));
+    }
+
+}
@@ -17,6 +17,9 @@
  */
 package uk.ac.ebi.ampt2d.metadata;
 
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,9 +34,13 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.AccessionVersionId;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.Analysis;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.File;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QAnalysis;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QSample;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QStudy;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.ReferenceSequence;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.Sample;
 import uk.ac.ebi.ampt2d.metadata.persistence.entities.WebResource;
@@ -44,16 +51,21 @@ import uk.ac.ebi.ampt2d.metadata.persistence.repositories.SampleRepository;
 import uk.ac.ebi.ampt2d.metadata.persistence.repositories.StudyRepository;
 import uk.ac.ebi.ampt2d.metadata.persistence.repositories.TaxonomyRepository;
 import uk.ac.ebi.ampt2d.metadata.persistence.repositories.WebResourceRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.FileService;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.StudyService;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
@@ -93,6 +105,15 @@ public class MetadataApplicationTest {
     @Autowired
     private WebResourceRepository webResourceRepository;
 
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private JacksonTester<ReferenceSequence> testReferenceSequenceJson;
 
@@ -526,6 +547,48 @@ public class MetadataApplicationTest {
                         "When multiple reference sequence URLs are provided, all of them should point to gene sequences"));
     }
 
+    @Test
+    public void bulkUpsertAnalysesFromNdjson() throws Exception {
+        String referenceSequenceUrl = postTestReferenceSequence("GRCh37", "p2",
+                Arrays.asList("GCA_000001405.3", "GCF_000001405.14"));
+        String studyUrl = postTestStudy("EGAS0001", 1, "test_human_study");
+        String analysis = "{ " +
+                "\"accessionVersionId\":{ \"accession\": \"%s\",\"version\":  1 }," +
+                "\"name\": \"test_human_analysis\"," +
+                "\"description\": \"Nothing important\"," +
+                "\"study\": \"" + studyUrl + "\"," +
+                "\"referenceSequences\": %s," +
+                "\"technology\": \"GWAS\"," +
+                "\"type\": \"CASE_CONTROL\"," +
+                "\"platform\": \"Illumina\"" +
+                "}";
+
+        mockMvc.perform(post("/analyses/bulk")
+                .contentType("application/x-ndjson")
+                .content(String.format(analysis, "EGAA0001", "[\"" + referenceSequenceUrl + "\"]") + "\n" +
+                        String.format(analysis, "EGAA0002", "[]") + "\n" +
+                        String.format(analysis, "EGAA0003", "[\"" + referenceSequenceUrl + "\"]") + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[1].status").value("INVALID"))
+                .andExpect(jsonPath("$.items[1].message").value("An analysis must be mapped against one or more reference sequences"))
+                .andExpect(jsonPath("$.items[2].status").value("CREATED"));
+
+        mockMvc.perform(post("/analyses/bulk")
+                .contentType("application/x-ndjson")
+                .content(String.format(analysis, "EGAA0003", "[\"" + referenceSequenceUrl + "\"]")
+                        .replace("Nothing important", "Updated description") + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(0))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("UPDATED"));
+
+        assertEquals(2, analysisRepository.count());
+        assertEquals(1, analysisRepository.count(QAnalysis.analysis.description.eq("Updated description")));
+    }
+
     private String postTestAnalysis(String accession, List<String> referenceSequenceList, String studyUrl) throws Exception {
         return postTestAnalysis(accession, referenceSequenceList, studyUrl, Analysis.Technology.GWAS, Analysis.Type.CASE_CONTROL, "Illumina");
 
@@ -571,6 +634,76 @@ public class MetadataApplicationTest {
         return mvcResult.getResponse().getHeader("Location");
     }
 
+    @Test
+    public void upsertFiles() throws Exception {
+        fileService.upsert(Arrays.asList(
+                new File(new AccessionVersionId("EGAF0001", 1), "asd123", "test_file", 100, File.Type.TSV),
+                new File(new AccessionVersionId("EGAF0002", 1), "asd124", "test_file_2", 200, File.Type.VCF)));
+        ZonedDateTime unchangedLastModified = fileRepository
+                .findFirstByAccessionVersionId_AccessionOrderByAccessionVersionId_VersionDesc("EGAF0002").get(0)
+                .getLastModifiedDate();
+
+        List<File> files = fileService.upsert(Arrays.asList(
+                new File(new AccessionVersionId("EGAF0001", 1), "asd125", "test_file", 150, File.Type.TSV),
+                new File(new AccessionVersionId("EGAF0002", 1), "asd124", "test_file_2", 200, File.Type.VCF),
+                new File(new AccessionVersionId("EGAF0001", 2), "asd126", "test_file", 300, File.Type.TSV)));
+
+        assertEquals(3, files.size());
+        assertEquals(3, fileRepository.count());
+        File updatedFile = fileRepository.findOne(files.get(0).getId());
+        assertEquals("asd125", updatedFile.getHash());
+        assertEquals(150, updatedFile.getSize());
+        assertEquals(unchangedLastModified, fileRepository.findOne(files.get(1).getId()).getLastModifiedDate());
+        assertEquals(Integer.valueOf(2), fileRepository
+                .findFirstByAccessionVersionId_AccessionOrderByAccessionVersionId_VersionDesc("EGAF0001").get(0)
+                .getAccessionVersionId().getVersion());
+
+        Map<AccessionVersionId, ZonedDateTime> lastModifiedDates = fileService.findLastModifiedDates(Arrays.asList(
+                new AccessionVersionId("EGAF0002", 1), new AccessionVersionId("EGAF0002", 2)));
+        assertEquals(1, lastModifiedDates.size());
+        assertEquals(unchangedLastModified, lastModifiedDates.get(new AccessionVersionId("EGAF0002", 1)));
+    }
+
+    @Test
+    public void bulkUpsertFiles() throws Exception {
+        fileService.upsert(Arrays.asList(
+                new File(new AccessionVersionId("EGAF0001", 1), "asd123", "test_file", 100, File.Type.TSV)));
+
+        mockMvc.perform(post("/files/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(testListJson.write(Arrays.asList(
+                        new File(new AccessionVersionId("EGAF0001", 1), "asd125", "test_file", 150, File.Type.TSV),
+                        new File(new AccessionVersionId("EGAF0002", 1), "asd124", "test_file_2", 200, File.Type.VCF),
+                        new File(new AccessionVersionId("EGAF0003", 1), "asd126", "", 300, File.Type.VCF)))
+                        .getJson()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$.items[1].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[2].status").value("INVALID"));
+
+        assertEquals(2, fileRepository.count());
+        File updatedFile = fileRepository
+                .findFirstByAccessionVersionId_AccessionOrderByAccessionVersionId_VersionDesc("EGAF0001").get(0);
+        assertEquals("asd125", updatedFile.getHash());
+
+        mockMvc.perform(post("/files/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(testListJson.write(Arrays.asList(
+                        new File(new AccessionVersionId("EGAF0001", 1), "asd125", "test_file", 150, File.Type.TSV)))
+                        .getJson()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(0))
+                .andExpect(jsonPath("$.unchanged").value(1))
+                .andExpect(jsonPath("$.rejected").value(0))
+                .andExpect(jsonPath("$.items[0].status").value("UNCHANGED"))
+                .andExpect(jsonPath("$.items[0].id").value(updatedFile.getId().intValue()));
+        assertEquals(updatedFile.getLastModifiedDate(), fileRepository.findOne(updatedFile.getId())
+                .getLastModifiedDate());
+    }
+
     @Test
     public void postSample() throws Exception {
         List<String> taxonomyUrlList = new ArrayList<String>();
@@ -781,6 +914,71 @@ public class MetadataApplicationTest {
                 .andExpect(jsonPath("exception").value("uk.ac.ebi.ampt2d.metadata.exceptionhandling.InvalidTaxonomyException"));
     }
 
+    @Test
+    public void bulkUpsertSamples() throws Exception {
+        String taxonomyUrl = postTestTaxonomy(1, "Species1");
+        String sample = "{ " +
+                "\"accessionVersionId\":{ \"accession\": \"%s\",\"version\": 1}," +
+                "\"name\": \"%s\"," +
+                "\"taxonomies\": %s" +
+                "}";
+
+        mockMvc.perform(post("/samples/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" +
+                        String.format(sample, "EGAN0001", "test sample", "[\"" + taxonomyUrl + "\"]") + "," +
+                        String.format(sample, "EGAN0002", "test sample", "[]") + "," +
+                        String.format(sample, "EGAN0003", "test sample", "[\"" + taxonomyUrl + "\"]") + "," +
+                        String.format(sample, "EGAN0001", "test sample", "[\"" + taxonomyUrl + "\"]") +
+                        "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.updated").value(0))
+                .andExpect(jsonPath("$.unchanged").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[1].status").value("INVALID"))
+                .andExpect(jsonPath("$.items[1].message").value("A sample must have at least one taxonomy"))
+                .andExpect(jsonPath("$.items[2].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[3].status").value("UNCHANGED"));
+
+        mockMvc.perform(post("/samples/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" +
+                        String.format(sample, "EGAN0003", "renamed sample", "[\"" + taxonomyUrl + "\"]") +
+                        "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("UPDATED"));
+
+        assertEquals(2, sampleRepository.count());
+        mockMvc.perform(get("/samples/search?taxonomies.name=Species1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..samples.length()").value(2));
+        assertEquals(1, sampleRepository.count(QSample.sample.name.eq("renamed sample")
+                .and(QSample.sample.accessionVersionId.accession.eq("EGAN0003"))));
+    }
+
+    @Test
+    public void followPagingLinksOfFilteredSearch() throws Exception {
+        String taxonomyUrl1 = postTestTaxonomy(1, "Species1");
+        String taxonomyUrl2 = postTestTaxonomy(2, "Species2");
+        postTestSample("EGAN0001", "testSample1", Arrays.asList(taxonomyUrl1));
+        postTestSample("EGAN0002", "testSample2", Arrays.asList(taxonomyUrl2));
+        postTestSample("EGAN0003", "testSample3", Arrays.asList(taxonomyUrl1));
+
+        String firstPage = mockMvc.perform(get("/samples/search?taxonomies.name=Species1&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page.totalElements").value(2))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get(JsonPath.<String>read(firstPage, "$._links.next.href")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..samples.length()").value(1))
+                .andExpect(jsonPath("$.page.number").value(1))
+                .andExpect(jsonPath("$.page.totalElements").value(2));
+    }
+
     private String postTestSample(String accession, String name) throws Exception {
         List<String> taxonomyUrlList = new ArrayList<String>();
         String taxonomyUrl = postTestTaxonomy(1, "Species1");
@@ -1281,6 +1479,52 @@ public class MetadataApplicationTest {
                 .andExpect(jsonPath("$..studies.length()").value(0));
     }
 
+    @Test
+    public void searchStudyByAnalysisDescription() throws Exception {
+        String referenceSequenceUrl = postTestReferenceSequence("GRCh37", "p2",
+                Arrays.asList("GCA_000001405.3", "GCF_000001405.14"));
+        String taxonomyUrl = postTestTaxonomy();
+        String studyUrl = postTestStudy("EGAS0001", 1, "test human study based on GRCh37", taxonomyUrl);
+        postTestStudy("EGAS0002", 1, "test human study based on GRCh37", taxonomyUrl);
+        String analysisUrl = postTestAnalysis("EGAA0001", Arrays.asList(referenceSequenceUrl), studyUrl);
+
+        mockMvc.perform(patch(analysisUrl)
+                .content("{\"description\": \"Genotypes of monozygotic twins\"}"))
+                .andExpect(status().is2xxSuccessful());
+
+        mockMvc.perform(get("/studies/search/text").param("searchTerm", "Twins"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(1))
+                .andExpect(jsonPath("$..studies[0]..study.href").value(studyUrl));
+    }
+
+    @Test
+    public void searchStudyAndSampleByFuzzySearch() throws Exception {
+        String taxonomyUrl = postTestTaxonomy();
+        String diabetesStudyUrl = postTestStudy("EGAS0001", 1, "Exome sequencing of diabetes", taxonomyUrl);
+        postTestStudy("EGAS0002", 1, "Genome of monozygotic twins", taxonomyUrl);
+        postTestStudy("EGAS0003", 1, "Deprecated study of diabetes", taxonomyUrl, true);
+        String sampleUrl = postTestSample("EGAN0001", "Blood sample of a 50% responder",
+                Arrays.asList(taxonomyUrl));
+
+        mockMvc.perform(get("/studies/search/fuzzy").param("searchTerm", "DIABETES"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(1))
+                .andExpect(jsonPath("$..studies[0]..study.href").value(diabetesStudyUrl));
+        mockMvc.perform(get("/studies/search/fuzzy").param("searchTerm", "ebi").param("threshold", "0.9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(2));
+        mockMvc.perform(get("/samples/search/fuzzy").param("searchTerm", "50% resp"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..samples.length()").value(1))
+                .andExpect(jsonPath("$..samples[0]..sample.href").value(sampleUrl));
+
+        mockMvc.perform(get("/studies/search/fuzzy").param("searchTerm", "diabetes").param("threshold", "1.5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/samples/search/fuzzy"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void searchStudyByAccession() throws Exception {
         String taxonomyUrl = postTestTaxonomy();
@@ -1300,6 +1544,62 @@ public class MetadataApplicationTest {
                 .andExpect(jsonPath("$.accessionVersionId.version").value(3));
         mockMvc.perform(get("/studies/search/accession").param("accession", "EGAS0003"))
                 .andExpect(status().isNotFound());
+
+        String testStudy4 = postTestStudy("EGAS0001", 10, "test human study based on GRCh38", taxonomyUrl);
+        mockMvc.perform(get("/studies/search/accession").param("accession", "egas0001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..study.href").value(testStudy4))
+                .andExpect(jsonPath("$.accessionVersionId.version").value(10));
+
+        // The latest version and its taxonomy are read by a single statement, no count is run
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertEquals(Integer.valueOf(10), studyService.findStudyByAccession("EGAS0001").getAccessionVersionId()
+                .getVersion());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void searchLatestVersions() throws Exception {
+        String taxonomyUrl = postTestTaxonomy();
+        postTestStudy("EGAS0001", 1, "test human study based on GRCh37", taxonomyUrl);
+        String testStudy3 = postTestStudy("EGAS0001", 3, "test human study based on GRCh38", taxonomyUrl);
+        String testStudy2 = postTestStudy("EGAS0001", 2, "test human study based on GRCh38", taxonomyUrl);
+        String otherStudy = postTestStudy("EGAS0002", 1, "test human study based on GRCh38", taxonomyUrl);
+
+        mockMvc.perform(get("/studies/search/latest"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(2))
+                .andExpect(jsonPath("$..studies[*]..study.href", hasItems(testStudy3, otherStudy)));
+        mockMvc.perform(get(testStudy2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.latest").value(false));
+        mockMvc.perform(get(testStudy3))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.latest").value(true));
+
+        String lowerCaseStudy = postTestStudy("egas0002", 2, "test human study based on GRCh38", taxonomyUrl);
+        mockMvc.perform(get("/studies/search/latest"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(2))
+                .andExpect(jsonPath("$..studies[*]..study.href", hasItems(testStudy3, lowerCaseStudy)));
+        mockMvc.perform(get(otherStudy))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.latest").value(false));
+
+        String testFile1 = postTestFile("EGAF0001", 1);
+        String testFile2 = postTestFile("EGAF0001", 2);
+        mockMvc.perform(get("/files/search/latest"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..files.length()").value(1))
+                .andExpect(jsonPath("$..files[0]..file.href").value(testFile2));
+
+        mockMvc.perform(delete(testFile2))
+                .andExpect(status().is2xxSuccessful());
+        mockMvc.perform(get("/files/search/latest"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..files.length()").value(1))
+                .andExpect(jsonPath("$..files[0]..file.href").value(testFile1));
     }
 
     @Test
@@ -1867,6 +2167,77 @@ public class MetadataApplicationTest {
                 .andExpect(jsonPath("$..studies.length()").value(0));
     }
 
+    @Test
+    public void searchSamplesByPagingAndSorting() throws Exception {
+        List<String> taxonomyUrlList = Arrays.asList(postTestTaxonomy(1, "Species1"));
+        String sampleUrlB = postTestSample("EGAN0001", "test sample B", taxonomyUrlList);
+        String sampleUrlA = postTestSample("EGAN0002", "test sample A", taxonomyUrlList);
+
+        mockMvc.perform(get("/samples/search?taxonomies.name=Species1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..samples.length()").value(2))
+                .andExpect(jsonPath("$.page.size").value(20))
+                .andExpect(jsonPath("$.page.totalElements").value(2))
+                .andExpect(jsonPath("$.page.totalPages").value(1));
+        mockMvc.perform(get("/samples/search?taxonomies.name=Species1&size=1&sort=name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..samples.length()").value(1))
+                .andExpect(jsonPath("$..samples[0]..sample.href").value(sampleUrlA))
+                .andExpect(jsonPath("$.page.totalPages").value(2))
+                .andExpect(jsonPath("$._links.next.href").exists());
+        mockMvc.perform(get("/samples/search?taxonomies.name=Species1&size=1&page=1&sort=name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..samples[0]..sample.href").value(sampleUrlB))
+                .andExpect(jsonPath("$._links.prev.href").exists());
+        mockMvc.perform(get("/samples/search?taxonomies.name=Species1&page=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..samples.length()").value(0));
+        mockMvc.perform(get("/samples/search?taxonomies.name=Species1&size=5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page.size").value(1000));
+    }
+
+    @Test
+    public void searchStudiesByTaxonomyNameWithPaging() throws Exception {
+        String taxonomyUrl = postTestTaxonomy(9606, "Homo sapiens");
+        postTestStudy("EGAS0001", 1, "test human B", taxonomyUrl);
+        String humanStudyUrlA = postTestStudy("EGAS0002", 1, "test human A", taxonomyUrl);
+
+        mockMvc.perform(get("/studies/search/taxonomy-name?name=Homo sapiens&size=1&sort=name,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(1))
+                .andExpect(jsonPath("$..studies[0]..study.href").value(humanStudyUrlA))
+                .andExpect(jsonPath("$.page.totalElements").value(2))
+                .andExpect(jsonPath("$._links.next.href").exists());
+    }
+
+    @Test
+    public void searchStudiesInFixedNumberOfStatements() throws Exception {
+        String ancestorUrl = postTestTaxonomy(1, "Ancestor");
+        for (int i = 1; i <= 3; i++) {
+            postTestStudy("EGAS000" + i, 1, "test study " + i,
+                    postTestTaxonomy(100 + i, "Species" + i, Arrays.asList(ancestorUrl)));
+        }
+        long statementsForThreeStudies = countStatements(get("/studies/search"), 3);
+        long statementsForPageOfTwoStudies = countStatements(get("/studies/search?size=2&page=0"), 2);
+
+        for (int i = 4; i <= 9; i++) {
+            postTestStudy("EGAS000" + i, 1, "test study " + i,
+                    postTestTaxonomy(100 + i, "Species" + i, Arrays.asList(ancestorUrl)));
+        }
+        assertEquals(statementsForThreeStudies, countStatements(get("/studies/search"), 9));
+        assertEquals(statementsForPageOfTwoStudies, countStatements(get("/studies/search?size=4&page=1"), 4));
+    }
+
+    private long countStatements(MockHttpServletRequestBuilder request, int expectedStudies) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(expectedStudies));
+        return statistics.getPrepareStatementCount();
+    }
+
     @Test
     public void findLinkedStudies() throws Exception {
         String testTaxonomy = postTestTaxonomy(9606, "Homo sapiens");
@@ -1881,6 +2252,7 @@ public class MetadataApplicationTest {
                         testListJson.write(Arrays.asList(testStudy2, testStudy3)).getJson() +
                         "}"))
                 .andExpect(status().is2xxSuccessful());
+        assertEquals(1, studyService.findStudiesByPredicate(QStudy.study.childStudies.isNotEmpty()).size());
         mockMvc.perform(get(testStudy1 + "/linkedStudies"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$..studies").isArray())
@@ -2017,4 +2389,19 @@ public class MetadataApplicationTest {
                 .andExpect(jsonPath("$..samples").isArray())
                 .andExpect(jsonPath("$..samples.length()").value(0));
     }
+
+    @Test
+    public void documentPagingParametersOfSearchEndpoints() throws Exception {
+        for (String path : Arrays.asList("/studies/search", "/samples/search/fuzzy", "/analyses/search/latest")) {
+            String parameters = "$.paths['" + path + "'].get.parameters";
+            mockMvc.perform(get("/v2/api-docs"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath(parameters + "[?(@.name == 'page')].description")
+                            .value("Page number, starting from 0"))
+                    .andExpect(jsonPath(parameters + "[?(@.name == 'size')].description")
+                            .value("Page size, larger sizes are capped to the maximum page size"))
+                    .andExpect(jsonPath(parameters + "[?(@.name == 'sort')].in").value("query"))
+                    .andExpect(jsonPath(parameters + "[?(@.name == 'pageNumber')]").isEmpty());
+        }
+    }
 }
@@ -0,0 +1,234 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.SampleRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.StudyRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.TaxonomyRepository;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the PostgreSQL full text search and the trigram fuzzy search against PostgreSQL, since H2 has neither. It is
+ * skipped unless a database is given:
+ *
+ * mvn test -Dtest=PostgreSQLSearchTest -Dmetadata.test.postgresql.url=jdbc:postgresql://localhost/metadata_test
+ * -Dmetadata.test.postgresql.username=... -Dmetadata.test.postgresql.password=...
+ *
+ * The tables of that database are dropped and created again, then every script of db/migrations is run, so its user
+ * must be allowed to create the pg_trgm extension unless it already exists. It is the only test of both engines, run
+ * it before enabling either of them.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=${metadata.test.postgresql.url:}",
+        "spring.datasource.username=${metadata.test.postgresql.username:postgres}",
+        "spring.datasource.password=${metadata.test.postgresql.password:}",
+        "spring.datasource.data=classpath:db/migrations/*.sql",
+        "spring.jpa.database-platform=uk.ac.ebi.ampt2d.metadata.persistence.dialect.FullTextPostgreSQLDialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "endpoints.studies.text-search.engine=postgresql",
+        "endpoints.fuzzy-search.engine=trigram"
+})
+@AutoConfigureMockMvc
+public class PostgreSQLSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SampleRepository sampleRepository;
+
+    @Autowired
+    private StudyRepository studyRepository;
+
+    @Autowired
+    private TaxonomyRepository taxonomyRepository;
+
+    @BeforeClass
+    public static void requirePostgreSQL() {
+        Assume.assumeNotNull(System.getProperty("metadata.test.postgresql.url"));
+    }
+
+    @Before
+    public void cleanDatabases() {
+        sampleRepository.deleteAll();
+        studyRepository.deleteAll();
+        taxonomyRepository.deleteAll();
+    }
+
+    @Test
+    public void searchStudiesByText() throws Exception {
+        String taxonomyUrl = postTestTaxonomy();
+        String exomeStudyUrl = postTestStudy("EGAS0001", "Exome sequencing of diabetes", taxonomyUrl);
+        String twinsStudyUrl = postTestStudy("EGAS0002", "Type 2 diabetic twins", taxonomyUrl);
+        String siblingsStudyUrl = postTestStudy("EGAS0003", "Genome of monozygotic siblings",
+                "Exome of siblings", taxonomyUrl);
+
+        mockMvc.perform(get("/studies/search/text").param("searchTerm", "diabetes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(2));
+        mockMvc.perform(get("/studies/search/text").param("searchTerm", "exome"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(2))
+                .andExpect(jsonPath("$..studies[0]..study.href").value(exomeStudyUrl))
+                .andExpect(jsonPath("$..studies[1]..study.href").value(siblingsStudyUrl));
+        mockMvc.perform(get("/studies/search/text").param("searchTerm", "exome twins"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(0));
+        mockMvc.perform(get("/studies/search/text").param("searchTerm", "\"diabetic twins\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(1))
+                .andExpect(jsonPath("$..studies[0]..study.href").value(twinsStudyUrl));
+        mockMvc.perform(get("/studies/search/text").param("searchTerm", "\"twins diabetic\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(0));
+        mockMvc.perform(get("/studies/search/text").param("searchTerm", "monozyg*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(1))
+                .andExpect(jsonPath("$..studies[0]..study.href").value(siblingsStudyUrl));
+        mockMvc.perform(get("/studies/search/text").param("searchTerm", "monozyg"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(0));
+        mockMvc.perform(get("/studies/search/text").param("searchTerm", "diabetes & (!"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(2));
+
+        String firstPage = mockMvc.perform(get("/studies/search/text?searchTerm=diabetes&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.next.href", not(containsString("sort="))))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(get(JsonPath.<String>read(firstPage, "$._links.next.href")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(1))
+                .andExpect(jsonPath("$.page.totalElements").value(2));
+    }
+
+    @Test
+    public void searchStudiesWithTypos() throws Exception {
+        String taxonomyUrl = postTestTaxonomy();
+        String exomeStudyUrl = postTestStudy("EGAS0001", "Exome sequencing of diabetes", taxonomyUrl);
+        String twinsStudyUrl = postTestStudy("EGAS0002", "Type 2 diabetic twins", taxonomyUrl);
+        postTestStudy("EGAS0003", "Genome of monozygotic siblings", taxonomyUrl);
+
+        mockMvc.perform(get("/studies/search/fuzzy").param("searchTerm", "diabtes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(2))
+                .andExpect(jsonPath("$..studies[0]..study.href").value(exomeStudyUrl))
+                .andExpect(jsonPath("$..studies[1]..study.href").value(twinsStudyUrl));
+        mockMvc.perform(get("/studies/search/fuzzy").param("searchTerm", "diabtes").param("threshold", "0.6"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(1))
+                .andExpect(jsonPath("$..studies[0]..study.href").value(exomeStudyUrl));
+        mockMvc.perform(get("/studies/search/fuzzy").param("searchTerm", "ozygo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(1));
+        mockMvc.perform(get("/studies/search/fuzzy").param("searchTerm", "European Bioinformatic"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(3));
+
+        String firstPage = mockMvc.perform(get("/studies/search/fuzzy?searchTerm=diabtes&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies[0]..study.href").value(exomeStudyUrl))
+                .andExpect(jsonPath("$._links.next.href", not(containsString("sort="))))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(get(JsonPath.<String>read(firstPage, "$._links.next.href")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..studies.length()").value(1))
+                .andExpect(jsonPath("$..studies[0]..study.href").value(twinsStudyUrl))
+                .andExpect(jsonPath("$.page.totalElements").value(2));
+    }
+
+    @Test
+    public void searchSamplesWithTypos() throws Exception {
+        String taxonomyUrl = postTestTaxonomy();
+        String bloodSampleUrl = postTestSample("EGAN0001", "Blood sample", taxonomyUrl);
+        postTestSample("EGAN0002", "Saliva sample", taxonomyUrl);
+
+        mockMvc.perform(get("/samples/search/fuzzy").param("searchTerm", "blod"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..samples.length()").value(1))
+                .andExpect(jsonPath("$..samples[0]..sample.href").value(bloodSampleUrl));
+        mockMvc.perform(get("/samples/search/fuzzy").param("searchTerm", "100%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..samples.length()").value(0));
+
+        String firstPage = mockMvc.perform(get("/samples/search/fuzzy?searchTerm=sample&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.next.href", not(containsString("sort="))))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(get(JsonPath.<String>read(firstPage, "$._links.next.href")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..samples.length()").value(1))
+                .andExpect(jsonPath("$.page.totalElements").value(2));
+    }
+
+    private String postTestTaxonomy() throws Exception {
+        return mockMvc.perform(post("/taxonomies")
+                .content("{ \"taxonomyId\": 9606, \"name\": \"Homo sapiens\", \"ancestors\": [] }"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+    }
+
+    private String postTestStudy(String accession, String name, String taxonomyUrl) throws Exception {
+        return postTestStudy(accession, name, "Nothing important", taxonomyUrl);
+    }
+
+    private String postTestStudy(String accession, String name, String description, String taxonomyUrl)
+            throws Exception {
+        return mockMvc.perform(post("/studies")
+                .content("{ " +
+                        "\"accessionVersionId\":{ \"accession\": \"" + accession + "\",\"version\": 1}," +
+                        "\"name\": \"" + name + "\"," +
+                        "\"description\": \"" + description + "\"," +
+                        "\"center\": \"European Bioinformatics Institute\"," +
+                        "\"releaseDate\": \"2018-01-01\"," +
+                        "\"taxonomy\": \"" + taxonomyUrl + "\"" +
+                        "}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+    }
+
+    private String postTestSample(String accession, String name, String taxonomyUrl) throws Exception {
+        return mockMvc.perform(post("/samples")
+                .content("{ " +
+                        "\"accessionVersionId\":{ \"accession\": \"" + accession + "\",\"version\": 1}," +
+                        "\"name\": \"" + name + "\"," +
+                        "\"taxonomies\": [\"" + taxonomyUrl + "\"]" +
+                        "}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata;
+
+import com.jayway.jsonpath.JsonPath;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.querydsl.QSort;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ebi.ampt2d.metadata.persistence.entities.QStudy;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.StudyRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.TaxonomyRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.LikeStudyTextSearchEngine;
+import uk.ac.ebi.ampt2d.metadata.persistence.services.StudyTextSearchEngine;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the text search with an engine ordering the matches by an expression, like the PostgreSQL engine orders them
+ * by relevance, so the paging links are checked on H2
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class StudyTextSearchPagingTest {
+
+    @TestConfiguration
+    static class RelevanceConfiguration {
+
+        @Bean
+        @Primary
+        public StudyTextSearchEngine nameLengthStudyTextSearchEngine() {
+            StudyTextSearchEngine likeStudyTextSearchEngine = new LikeStudyTextSearchEngine();
+            return new StudyTextSearchEngine() {
+                @Override
+                public Predicate matches(String searchTerm) {
+                    return likeStudyTextSearchEngine.matches(searchTerm);
+                }
+
+                @Override
+                public Sort relevance(String searchTerm) {
+                    return new QSort(new OrderSpecifier<>(Order.DESC, QStudy.study.name.length()));
+                }
+            };
+        }
+
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StudyRepository studyRepository;
+
+    @Autowired
+    private TaxonomyRepository taxonomyRepository;
+
+    @Before
+    public void cleanDatabases() {
+        studyRepository.deleteAll();
+        taxonomyRepository.deleteAll();
+    }
+
+    @Test
+    public void followPagingLinksOfRelevanceOrderedSearch() throws Exception {
+        String taxonomyUrl = mockMvc.perform(post("/taxonomies")
+                .content("{ \"taxonomyId\": 9606, \"name\": \"Homo sapiens\", \"ancestors\": [] }"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+        String longestStudyUrl = postTestStudy("EGAS0001", "Exome sequencing of diabetes patients", taxonomyUrl);
+        String longerStudyUrl = postTestStudy("EGAS0002", "Type 2 diabetes in twins", taxonomyUrl);
+        String shortStudyUrl = postTestStudy("EGAS0003", "Diabetes", taxonomyUrl);
+
+        String firstPage = mockMvc.perform(get("/studies/search/text?searchTerm=diabetes&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..study.href").value(longestStudyUrl))
+                .andExpect(jsonPath("$._links.next.href", not(containsString("sort="))))
+                .andReturn().getResponse().getContentAsString();
+
+        String secondPage = mockMvc.perform(get(JsonPath.<String>read(firstPage, "$._links.next.href")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..study.href").value(longerStudyUrl))
+                .andExpect(jsonPath("$.page.totalElements").value(3))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get(JsonPath.<String>read(secondPage, "$._links.next.href")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..study.href").value(shortStudyUrl));
+    }
+
+    private String postTestStudy(String accession, String name, String taxonomyUrl) throws Exception {
+        return mockMvc.perform(post("/studies")
+                .content("{ " +
+                        "\"accessionVersionId\":{ \"accession\": \"" + accession + "\",\"version\": 1}," +
+                        "\"name\": \"" + name + "\"," +
+                        "\"description\": \"Nothing important\"," +
+                        "\"center\": \"EBI\"," +
+                        "\"releaseDate\": \"2018-01-01\"," +
+                        "\"taxonomy\": \"" + taxonomyUrl + "\"" +
+                        "}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.StudyRepository;
+import uk.ac.ebi.ampt2d.metadata.persistence.repositories.TaxonomyRepository;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs with "endpoints.studies.release-date.restricted" set to false, so studies released in the future are returned
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "endpoints.studies.release-date.restricted=false")
+@AutoConfigureMockMvc
+public class UnrestrictedReleaseDateTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StudyRepository studyRepository;
+
+    @Autowired
+    private TaxonomyRepository taxonomyRepository;
+
+    @Before
+    public void cleanDatabases() {
+        studyRepository.deleteAll();
+        taxonomyRepository.deleteAll();
+    }
+
+    @Test
+    public void searchUnreleasedStudyByAccession() throws Exception {
+        String taxonomyUrl = mockMvc.perform(post("/taxonomies")
+                .content("{ \"taxonomyId\": 9606, \"name\": \"Homo sapiens\", \"ancestors\": [] }"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+        postTestStudy("EGAS0001", 1, LocalDate.now(), false, taxonomyUrl);
+        String unreleasedStudyUrl = postTestStudy("EGAS0001", 2, LocalDate.now().plusDays(1), false, taxonomyUrl);
+        postTestStudy("EGAS0001", 3, LocalDate.now(), true, taxonomyUrl);
+
+        mockMvc.perform(get("/studies/search/accession").param("accession", "egas0001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..study.href").value(unreleasedStudyUrl))
+                .andExpect(jsonPath("$.accessionVersionId.version").value(2));
+    }
+
+    private String postTestStudy(String accession, int version, LocalDate releaseDate, boolean deprecated,
+                                 String taxonomyUrl) throws Exception {
+        return mockMvc.perform(post("/studies")
+                .content("{ " +
+                        "\"accessionVersionId\":{ \"accession\": \"" + accession + "\",\"version\": " + version + "}," +
+                        "\"name\": \"test human study\"," +
+                        "\"description\": \"Nothing important\"," +
+                        "\"center\": \"EBI\"," +
+                        "\"deprecated\": \"" + deprecated + "\"," +
+                        "\"releaseDate\": \"" + releaseDate + "\"," +
+                        "\"taxonomy\": \"" + taxonomyUrl + "\"" +
+                        "}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+    }
+
+}
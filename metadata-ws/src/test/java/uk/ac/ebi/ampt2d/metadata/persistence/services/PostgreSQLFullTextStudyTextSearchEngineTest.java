@@ -0,0 +1,37 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.ampt2d.metadata.persistence.services;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PostgreSQLFullTextStudyTextSearchEngineTest {
+
+    @Test
+    public void convertSearchTermToTextQuery() {
+        assertEquals("human & study", PostgreSQLFullTextStudyTextSearchEngine.toTextQuery("human study"));
+        assertEquals("(type <-> 2 <-> diabetes) & cohort",
+                PostgreSQLFullTextStudyTextSearchEngine.toTextQuery("\"type 2 diabetes\" cohort"));
+        assertEquals("geno:* & GRCh37", PostgreSQLFullTextStudyTextSearchEngine.toTextQuery("geno* GRCh37"));
+        assertEquals("don & t & drop", PostgreSQLFullTextStudyTextSearchEngine.toTextQuery("don't (drop) &|!"));
+        assertEquals("", PostgreSQLFullTextStudyTextSearchEngine.toTextQuery(" \"\" * "));
+        assertEquals("", PostgreSQLFullTextStudyTextSearchEngine.toTextQuery(null));
+    }
+
+}